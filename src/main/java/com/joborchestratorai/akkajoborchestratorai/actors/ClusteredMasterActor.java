@@ -1,14 +1,23 @@
 package com.joborchestratorai.akkajoborchestratorai.actors;
 
+import akka.Done;
 import akka.actor.typed.ActorRef;
 import akka.actor.typed.Behavior;
+import akka.actor.typed.DispatcherSelector;
 import akka.actor.typed.javadsl.*;
 import akka.cluster.sharding.typed.javadsl.ClusterSharding;
 import akka.cluster.sharding.typed.javadsl.Entity;
 import akka.cluster.sharding.typed.javadsl.EntityRef;
-import com.joborchestratorai.akkajoborchestratorai.models.SearchResult;
-
-import java.util.ArrayList;
+import com.joborchestratorai.akkajoborchestratorai.config.DispatcherProperties;
+import com.joborchestratorai.akkajoborchestratorai.ingest.IngestSettings;
+import com.joborchestratorai.akkajoborchestratorai.models.CrossDatasetSearchResult;
+import com.joborchestratorai.akkajoborchestratorai.models.IngestionStatus;
+import com.joborchestratorai.akkajoborchestratorai.services.ClusteredStorageService;
+import com.joborchestratorai.akkajoborchestratorai.services.DatasetCatalog;
+import com.joborchestratorai.akkajoborchestratorai.services.OpenAIService;
+import com.joborchestratorai.akkajoborchestratorai.storage.PointStore;
+
+import java.time.Duration;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
@@ -19,10 +28,22 @@ public class ClusteredMasterActor extends AbstractBehavior<ClusteredMasterActor.
     public static class ProcessDatasetFile implements Command {
         public final String datasetId;
         public final String filePath;
+        public final CompletableFuture<IngestionStatus> resultFuture;
 
-        public ProcessDatasetFile(String datasetId, String filePath) {
+        public ProcessDatasetFile(String datasetId, String filePath, CompletableFuture<IngestionStatus> resultFuture) {
             this.datasetId = datasetId;
             this.filePath = filePath;
+            this.resultFuture = resultFuture;
+        }
+    }
+
+    public static class ClearDataset implements Command {
+        public final String datasetId;
+        public final CompletableFuture<Done> resultFuture;
+
+        public ClearDataset(String datasetId, CompletableFuture<Done> resultFuture) {
+            this.datasetId = datasetId;
+            this.resultFuture = resultFuture;
         }
     }
 
@@ -30,41 +51,49 @@ public class ClusteredMasterActor extends AbstractBehavior<ClusteredMasterActor.
         public final List<String> datasetIds;
         public final String jobDescription;
         public final int topK;
-        public final CompletableFuture<List<SearchResult>> resultFuture;
-
-        public SearchAcrossDatasets(List<String> datasetIds, String jobDescription, int topK,
-                                    CompletableFuture<List<SearchResult>> resultFuture) {
+        public final int candidatePoolSize;
+        public final Duration deadline;
+        public final boolean allowPartialResults;
+        public final CompletableFuture<CrossDatasetSearchResult> resultFuture;
+
+        public SearchAcrossDatasets(List<String> datasetIds, String jobDescription, int topK, int candidatePoolSize,
+                                    Duration deadline, boolean allowPartialResults,
+                                    CompletableFuture<CrossDatasetSearchResult> resultFuture) {
             this.datasetIds = datasetIds;
             this.jobDescription = jobDescription;
             this.topK = topK;
+            this.candidatePoolSize = candidatePoolSize;
+            this.deadline = deadline;
+            this.allowPartialResults = allowPartialResults;
             this.resultFuture = resultFuture;
         }
     }
 
-    public static class CollectedSearchResults implements Command {
-        public final List<SearchResult> allResults;
-        public final CompletableFuture<List<SearchResult>> originalFuture;
-
-        public CollectedSearchResults(List<SearchResult> allResults, CompletableFuture<List<SearchResult>> originalFuture) {
-            this.allResults = allResults;
-            this.originalFuture = originalFuture;
-        }
-    }
-
     private final ClusterSharding sharding;
+    private final Duration ingestTimeout;
+    private long searchCounter;
 
-    public static Behavior<Command> create() {
-        return Behaviors.setup(ClusteredMasterActor::new);
+    public static Behavior<Command> create(OpenAIService openAIService, ClusteredStorageService storageService,
+                                           PointStore pointStore, DatasetCatalog datasetCatalog) {
+        return Behaviors.setup(context ->
+                new ClusteredMasterActor(context, openAIService, storageService, pointStore, datasetCatalog));
     }
 
-    private ClusteredMasterActor(ActorContext<Command> context) {
+    private ClusteredMasterActor(ActorContext<Command> context, OpenAIService openAIService,
+                                 ClusteredStorageService storageService, PointStore pointStore,
+                                 DatasetCatalog datasetCatalog) {
         super(context);
         this.sharding = ClusterSharding.get(context.getSystem());
+        this.ingestTimeout = IngestSettings.fromConfig(context.getSystem().settings().config()).timeout;
+
+        ActorRef<DatasetCatalogActor.Command> catalog =
+                context.spawn(DatasetCatalogActor.create(datasetCatalog, storageService), "dataset-catalog");
 
-        // Initialize the sharded entity
+        // Initialize the sharded entity; entities index and search on their own dispatcher so
+        // heavy datasets cannot delay cluster heartbeats or the shard coordinator
         sharding.init(Entity.of(ResumeShardActor.TYPE_KEY, entityContext ->
-                ResumeShardActor.create(entityContext.getEntityId())
-        ));
+                ResumeShardActor.create(entityContext.getEntityId(), openAIService, storageService, pointStore, catalog)
+        ).withEntityProps(DispatcherSelector.fromConfig(DispatcherProperties.SHARD)));
 
         getContext().getLog().info("ClusteredMasterActor initialized with sharding");
     }
@@ -73,8 +102,8 @@ public class ClusteredMasterActor extends AbstractBehavior<ClusteredMasterActor.
     public Receive<Command> createReceive() {
         return newReceiveBuilder()
                 .onMessage(ProcessDatasetFile.class, this::onProcessDatasetFile)
+                .onMessage(ClearDataset.class, this::onClearDataset)
                 .onMessage(SearchAcrossDatasets.class, this::onSearchAcrossDatasets)
-                .onMessage(CollectedSearchResults.class, this::onCollectedSearchResults)
                 .build();
     }
 
@@ -83,50 +112,52 @@ public class ClusteredMasterActor extends AbstractBehavior<ClusteredMasterActor.
                 ResumeShardActor.TYPE_KEY, msg.datasetId
         );
 
-        entityRef.tell(new ResumeShardActor.ProcessDataset(msg.datasetId, msg.filePath));
+        entityRef.<IngestionStatus>ask(
+                replyTo -> new ResumeShardActor.ProcessDataset(msg.datasetId, msg.filePath, replyTo, null),
+                ingestTimeout
+        ).whenComplete((status, error) -> {
+            if (error != null) {
+                msg.resultFuture.completeExceptionally(error);
+            } else {
+                msg.resultFuture.complete(status);
+            }
+        });
         getContext().getLog().info("Sent dataset {} for processing to shard", msg.datasetId);
 
         return this;
     }
 
-    private Behavior<Command> onSearchAcrossDatasets(SearchAcrossDatasets msg) {
-        List<SearchResult> allResults = new ArrayList<>();
-        int[] responsesReceived = {0};
-
-        ActorRef<ResumeShardActor.SearchResponse> responseCollector =
-                getContext().spawn(Behaviors.receive((context, response) -> {
-                    allResults.addAll(response.results);
-                    responsesReceived[0]++;
-
-                    if (responsesReceived[0] >= msg.datasetIds.size()) {
-                        // Sort by score and take top K
-                        List<SearchResult> topResults = allResults.stream()
-                                .sorted((a, b) -> Float.compare(b.getScore(), a.getScore()))
-                                .limit(msg.topK)
-                                .toList();
-
-                        getContext().getSelf().tell(new CollectedSearchResults(topResults, msg.resultFuture));
-                    }
-
-                    return Behaviors.same();
-                }), "response-collector");
-
-        // Send search requests to all datasets
-        for (String datasetId : msg.datasetIds) {
-            EntityRef<ResumeShardActor.Command> entityRef = sharding.entityRefFor(
-                    ResumeShardActor.TYPE_KEY, datasetId
-            );
-
-            entityRef.tell(new ResumeShardActor.SearchInDataset(
-                    datasetId, msg.jobDescription, msg.topK, responseCollector
-            ));
-        }
+    private Behavior<Command> onClearDataset(ClearDataset msg) {
+        EntityRef<ResumeShardActor.Command> entityRef = sharding.entityRefFor(
+                ResumeShardActor.TYPE_KEY, msg.datasetId
+        );
+
+        entityRef.<Done>askWithStatus(
+                replyTo -> new ResumeShardActor.ClearDataset(msg.datasetId, replyTo),
+                ingestTimeout
+        ).whenComplete((done, error) -> {
+            if (error != null) {
+                msg.resultFuture.completeExceptionally(error);
+            } else {
+                msg.resultFuture.complete(done);
+            }
+        });
+        getContext().getLog().info("Sent clear of dataset {} to shard", msg.datasetId);
 
         return this;
     }
 
-    private Behavior<Command> onCollectedSearchResults(CollectedSearchResults msg) {
-        msg.originalFuture.complete(msg.allResults);
+    private Behavior<Command> onSearchAcrossDatasets(SearchAcrossDatasets msg) {
+        if (msg.datasetIds.isEmpty()) {
+            msg.resultFuture.complete(new CrossDatasetSearchResult(List.of(), List.of()));
+            return this;
+        }
+
+        // One aggregator per request, with a unique name so concurrent searches never collide
+        getContext().spawn(
+                SearchAggregatorActor.create(sharding, msg),
+                "search-aggregator-" + (++searchCounter)
+        );
         return this;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,222 @@
+package com.joborchestratorai.akkajoborchestratorai.actors;
+
+import akka.actor.typed.Behavior;
+import akka.actor.typed.DispatcherSelector;
+import akka.actor.typed.javadsl.*;
+import akka.cluster.ddata.Key;
+import akka.cluster.ddata.LWWMap;
+import akka.cluster.ddata.LWWMapKey;
+import akka.cluster.ddata.LWWRegister;
+import akka.cluster.ddata.SelfUniqueAddress;
+import akka.cluster.ddata.typed.javadsl.DistributedData;
+import akka.cluster.ddata.typed.javadsl.Replicator;
+import akka.cluster.ddata.typed.javadsl.ReplicatorMessageAdapter;
+import com.joborchestratorai.akkajoborchestratorai.config.DispatcherProperties;
+import com.joborchestratorai.akkajoborchestratorai.models.DatasetInfo;
+import com.joborchestratorai.akkajoborchestratorai.services.ClusteredStorageService;
+import com.joborchestratorai.akkajoborchestratorai.services.DatasetCatalog;
+import com.joborchestratorai.akkajoborchestratorai.services.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * One per node. Keeps the dataset catalog in a replicated LWW map (an ORMap of
+ * datasetId to last-writer-wins registers), applies the updates shards send after an
+ * ingest or a clear, and publishes every replicated change to the node's {@link DatasetCatalog}.
+ * <p>
+ * Datasets this node already has on disk are added at startup with version 0 and a
+ * timestamp of 0, so they never overwrite an entry another node wrote after an ingest.
+ */
+public class DatasetCatalogActor extends AbstractBehavior<DatasetCatalogActor.Command> {
+
+    // For the startup scan, which runs off the actor thread
+    private static final Logger logger = LoggerFactory.getLogger(DatasetCatalogActor.class);
+
+    public interface Command {}
+
+    // Sent by a shard entity on this node once an ingest is persisted
+    public static class DatasetIndexed implements Command {
+        public final String datasetId;
+        public final int pointCount;
+
+        public DatasetIndexed(String datasetId, int pointCount) {
+            this.datasetId = datasetId;
+            this.pointCount = pointCount;
+        }
+    }
+
+    // Sent by a shard entity on this node once its dataset has been cleared from storage
+    public static class DatasetRemoved implements Command {
+        public final String datasetId;
+
+        public DatasetRemoved(String datasetId) {
+            this.datasetId = datasetId;
+        }
+    }
+
+    private static class CatalogChanged implements Command {
+        final Replicator.SubscribeResponse<LWWMap<String, DatasetInfo>> response;
+
+        CatalogChanged(Replicator.SubscribeResponse<LWWMap<String, DatasetInfo>> response) {
+            this.response = response;
+        }
+    }
+
+    private static class UpdateFinished implements Command {
+        final Replicator.UpdateResponse<LWWMap<String, DatasetInfo>> response;
+
+        UpdateFinished(Replicator.UpdateResponse<LWWMap<String, DatasetInfo>> response) {
+            this.response = response;
+        }
+    }
+
+    private static class LocalDatasetsScanned implements Command {
+        final Map<String, Integer> pointCounts;
+        final Throwable error;
+
+        LocalDatasetsScanned(Map<String, Integer> pointCounts, Throwable error) {
+            this.pointCounts = pointCounts;
+            this.error = error;
+        }
+    }
+
+    private static final Key<LWWMap<String, DatasetInfo>> CATALOG_KEY = LWWMapKey.create("dataset-catalog");
+    private static final Duration WRITE_TIMEOUT = Duration.ofSeconds(3);
+    // Loses against any register written with the default wall-clock timestamps
+    private static final LWWRegister.Clock<DatasetInfo> SEED_CLOCK = (current, value) -> 0L;
+
+    private final ReplicatorMessageAdapter<Command, LWWMap<String, DatasetInfo>> replicator;
+    private final SelfUniqueAddress node;
+    private final DatasetCatalog catalog;
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+
+    public static Behavior<Command> create(DatasetCatalog catalog, ClusteredStorageService storageService) {
+        return Behaviors.setup(context ->
+                DistributedData.<Command, LWWMap<String, DatasetInfo>>withReplicatorMessageAdapter(replicator ->
+                        new DatasetCatalogActor(context, replicator, catalog, storageService)));
+    }
+
+    private DatasetCatalogActor(ActorContext<Command> context,
+                                ReplicatorMessageAdapter<Command, LWWMap<String, DatasetInfo>> replicator,
+                                DatasetCatalog catalog, ClusteredStorageService storageService) {
+        super(context);
+        this.replicator = replicator;
+        this.node = DistributedData.get(context.getSystem()).selfUniqueAddress();
+        this.catalog = catalog;
+
+        replicator.subscribe(CATALOG_KEY, CatalogChanged::new);
+
+        // Counting points reads a header of every dataset, so it stays off the actor's thread
+        Executor storageExecutor = context.getSystem().dispatchers()
+                .lookup(DispatcherSelector.fromConfig(DispatcherProperties.STORAGE_IO));
+        context.pipeToSelf(
+                CompletableFuture.supplyAsync(() -> countLocalPoints(storageService), storageExecutor),
+                LocalDatasetsScanned::new
+        );
+    }
+
+    @Override
+    public Receive<Command> createReceive() {
+        return newReceiveBuilder()
+                .onMessage(DatasetIndexed.class, this::onDatasetIndexed)
+                .onMessage(DatasetRemoved.class, this::onDatasetRemoved)
+                .onMessage(CatalogChanged.class, this::onCatalogChanged)
+                .onMessage(UpdateFinished.class, this::onUpdateFinished)
+                .onMessage(LocalDatasetsScanned.class, this::onLocalDatasetsScanned)
+                .build();
+    }
+
+    private Behavior<Command> onDatasetIndexed(DatasetIndexed msg) {
+        DatasetInfo previous = catalog.get(msg.datasetId);
+        DatasetInfo info = new DatasetInfo(msg.datasetId, msg.pointCount,
+                previous != null ? previous.getVersion() + 1 : 1, System.currentTimeMillis());
+        catalog.record(info);
+
+        // Confirmed by a majority, so the entry outlives this node even if it leaves before gossiping
+        replicator.askUpdate(
+                replyTo -> new Replicator.Update<>(CATALOG_KEY, LWWMap.create(),
+                        new Replicator.WriteMajority(WRITE_TIMEOUT), replyTo,
+                        current -> current.put(node, msg.datasetId, info, LWWRegister.defaultClock())),
+                UpdateFinished::new
+        );
+        metrics.increment("dataset-catalog.updates");
+        return this;
+    }
+
+    private Behavior<Command> onDatasetRemoved(DatasetRemoved msg) {
+        catalog.remove(msg.datasetId);
+
+        // Confirmed by a majority like an update, so the removal outlives this node too
+        replicator.askUpdate(
+                replyTo -> new Replicator.Update<>(CATALOG_KEY, LWWMap.create(),
+                        new Replicator.WriteMajority(WRITE_TIMEOUT), replyTo,
+                        current -> current.remove(node, msg.datasetId)),
+                UpdateFinished::new
+        );
+        metrics.increment("dataset-catalog.removals");
+        return this;
+    }
+
+    private Behavior<Command> onCatalogChanged(CatalogChanged msg) {
+        if (msg.response instanceof Replicator.Changed<LWWMap<String, DatasetInfo>> changed) {
+            catalog.replace(changed.get(CATALOG_KEY).getEntries());
+        }
+        return this;
+    }
+
+    private Behavior<Command> onUpdateFinished(UpdateFinished msg) {
+        if (!(msg.response instanceof Replicator.UpdateSuccess)) {
+            // Still applied locally and gossiped later; only the majority acknowledgement is missing
+            getContext().getLog().warn("Dataset catalog update not confirmed by a majority: {}", msg.response);
+            metrics.increment("dataset-catalog.update-timeouts");
+        }
+        return this;
+    }
+
+    private Behavior<Command> onLocalDatasetsScanned(LocalDatasetsScanned msg) {
+        if (msg.error != null) {
+            getContext().getLog().error("Failed to scan local datasets for the catalog: {}", msg.error.getMessage());
+            return this;
+        }
+        if (msg.pointCounts.isEmpty()) {
+            return this;
+        }
+        long now = System.currentTimeMillis();
+        replicator.askUpdate(
+                replyTo -> new Replicator.Update<>(CATALOG_KEY, LWWMap.create(),
+                        Replicator.writeLocal(), replyTo,
+                        current -> {
+                            LWWMap<String, DatasetInfo> seeded = current;
+                            for (Map.Entry<String, Integer> entry : msg.pointCounts.entrySet()) {
+                                if (!seeded.contains(entry.getKey())) {
+                                    seeded = seeded.put(node, entry.getKey(),
+                                            new DatasetInfo(entry.getKey(), entry.getValue(), 0, now), SEED_CLOCK);
+                                }
+                            }
+                            return seeded;
+                        }),
+                UpdateFinished::new
+        );
+        getContext().getLog().info("Added {} local datasets to the dataset catalog", msg.pointCounts.size());
+        return this;
+    }
+
+    private static Map<String, Integer> countLocalPoints(ClusteredStorageService storageService) {
+        Map<String, Integer> pointCounts = new HashMap<>();
+        for (String datasetId : storageService.getAllDatasetIds()) {
+            try {
+                pointCounts.put(datasetId, storageService.getDatasetPointCount(datasetId));
+            } catch (IOException e) {
+                logger.warn("Leaving dataset {} out of the catalog: {}", datasetId, e.getMessage());
+            }
+        }
+        return pointCounts;
+    }
+}
@@ -3,17 +3,22 @@ package com.joborchestratorai.akkajoborchestratorai.actors;
 import akka.actor.typed.ActorRef;
 import akka.actor.typed.Behavior;
 import akka.actor.typed.javadsl.*;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import com.joborchestratorai.akkajoborchestratorai.ingest.IngestSettings;
+import com.joborchestratorai.akkajoborchestratorai.ingest.NearDuplicateDetector;
+import com.joborchestratorai.akkajoborchestratorai.ingest.PointNormalizer;
+import com.joborchestratorai.akkajoborchestratorai.ingest.StreamingExcelReader;
+import com.joborchestratorai.akkajoborchestratorai.models.IngestionStatus;
 import com.joborchestratorai.akkajoborchestratorai.models.ResumeData;
 
-import java.io.FileInputStream;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
 public class FileReaderActor extends AbstractBehavior<MasterActor.ProcessExcelFile> {
     private final ActorRef<Object> storageActor;
+    private final IngestSettings settings;
+    private final StreamingExcelReader reader;
 
     public static Behavior<MasterActor.ProcessExcelFile> create(ActorRef<Object> storageActor) {
         return Behaviors.setup(context -> new FileReaderActor(context, storageActor));
@@ -22,6 +27,8 @@ public class FileReaderActor extends AbstractBehavior<MasterActor.ProcessExcelFi
     private FileReaderActor(ActorContext<MasterActor.ProcessExcelFile> context, ActorRef<Object> storageActor) {
         super(context);
         this.storageActor = storageActor;
+        this.settings = IngestSettings.fromConfig(context.getSystem().settings().config());
+        this.reader = new StreamingExcelReader(settings);
     }
 
     @Override
@@ -32,30 +39,40 @@ public class FileReaderActor extends AbstractBehavior<MasterActor.ProcessExcelFi
     }
 
     private Behavior<MasterActor.ProcessExcelFile> onProcessExcelFile(MasterActor.ProcessExcelFile msg) {
-        try (FileInputStream fis = new FileInputStream(msg.filePath);
-             Workbook workbook = new XSSFWorkbook(fis)) {
-
-            Sheet sheet = workbook.getSheetAt(0);
+        String resumeId = UUID.randomUUID().toString();
+        long startedAt = System.nanoTime();
+        try {
+            // Single-node uploads are stored as one file that each OpenAIActor indexes on its next
+            // search, so the chunks are only collected here. Indexing while the sheet is still being
+            // parsed happens in the clustered DatasetIngestionPipeline.
             List<String> resumePoints = new ArrayList<>();
+            NearDuplicateDetector detector = new NearDuplicateDetector(settings.similarityThreshold);
+            int[] rowsRead = new int[1];
+            int pointsRead = reader.read(Paths.get(msg.filePath), chunk -> {
+                rowsRead[0] += chunk.size();
+                resumePoints.addAll(detector.addAll(PointNormalizer.normalizeAll(chunk, settings.minWords)));
+                msg.listener.accept(status(resumeId, IngestionStatus.PARSING, rowsRead[0], detector, startedAt));
+            });
 
-            for (Row row : sheet) {
-                Cell cell = row.getCell(0);
-                if (cell != null && cell.getCellType() == CellType.STRING) {
-                    String content = cell.getStringCellValue().trim();
-                    if (!content.isEmpty()) {
-                        resumePoints.add(content);
-                    }
-                }
-            }
-
-            ResumeData resumeData = new ResumeData(UUID.randomUUID().toString(), msg.filePath, resumePoints);
-            storageActor.tell(new MasterActor.StoreResumeData(resumeData));
+            ResumeData resumeData = new ResumeData(resumeId, msg.filePath, resumePoints);
+            resumeData.setMergedPoints(detector.getMergedPoints(resumePoints));
+            msg.listener.accept(status(resumeId, IngestionStatus.INDEXING, pointsRead, detector, startedAt));
+            storageActor.tell(new MasterActor.StoreResumeData(resumeData, pointsRead, detector.getDuplicates(),
+                    msg.listener));
 
-            getContext().getLog().info("Processed {} resume points", resumePoints.size());
+            getContext().getLog().info("Processed {} resume points, kept {} after dropping {} duplicates",
+                    pointsRead, resumePoints.size(), detector.getDuplicates());
         } catch (Exception e) {
             getContext().getLog().error("Error processing file", e);
+            msg.listener.accept(IngestionStatus.failed(resumeId, "Failed to read workbook: " + e.getMessage()));
         }
 
         return this;
     }
+
+    private static IngestionStatus status(String resumeId, String state, int rowsRead,
+                                          NearDuplicateDetector detector, long startedAt) {
+        return new IngestionStatus(resumeId, state, rowsRead, 0, detector.getDuplicates(),
+                (System.nanoTime() - startedAt) / 1_000_000, null);
+    }
 }
\ No newline at end of file
@@ -2,12 +2,23 @@ package com.joborchestratorai.akkajoborchestratorai.actors;
 
 import akka.actor.typed.ActorRef;
 import akka.actor.typed.Behavior;
+import akka.actor.typed.DispatcherSelector;
 import akka.actor.typed.PostStop;
+import akka.actor.typed.SupervisorStrategy;
 import akka.actor.typed.javadsl.*;
+import com.joborchestratorai.akkajoborchestratorai.config.DispatcherProperties;
+import com.joborchestratorai.akkajoborchestratorai.models.IngestionStatus;
 import com.joborchestratorai.akkajoborchestratorai.models.ResumeData;
 import com.joborchestratorai.akkajoborchestratorai.models.SearchResult;
+import com.joborchestratorai.akkajoborchestratorai.services.LocalStorageService;
+import com.joborchestratorai.akkajoborchestratorai.services.MetricsRegistry;
+import com.joborchestratorai.akkajoborchestratorai.services.OpenAIService;
+import com.joborchestratorai.akkajoborchestratorai.storage.PointStore;
+import com.joborchestratorai.akkajoborchestratorai.services.WriteBehindWriter;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 public class MasterActor extends AbstractBehavior<MasterActor.Command> {
 
@@ -16,34 +27,65 @@ public class MasterActor extends AbstractBehavior<MasterActor.Command> {
     // Messages
     public static class ProcessExcelFile implements Command {
         public final String filePath;
-        public ProcessExcelFile(String filePath) { this.filePath = filePath; }
+        // Told about parsing progress and the final outcome; called from actor threads
+        public final Consumer<IngestionStatus> listener;
+
+        public ProcessExcelFile(String filePath) { this(filePath, status -> {}); }
+
+        public ProcessExcelFile(String filePath, Consumer<IngestionStatus> listener) {
+            this.filePath = filePath;
+            this.listener = listener;
+        }
     }
 
     public static class ProcessJobDescription implements Command {
         public final String jobDescription;
         public final int topK;
+        public final int candidatePoolSize;
         public final ActorRef<List<SearchResult>> replyTo;
 
-        public ProcessJobDescription(String jobDescription, int topK, ActorRef<List<SearchResult>> replyTo) {
+        public ProcessJobDescription(String jobDescription, int topK, int candidatePoolSize,
+                                     ActorRef<List<SearchResult>> replyTo) {
             this.jobDescription = jobDescription;
             this.topK = topK;
+            this.candidatePoolSize = candidatePoolSize;
             this.replyTo = replyTo;
         }
     }
 
     public static class StoreResumeData implements Command {
         public final ResumeData resumeData;
-        public StoreResumeData(ResumeData resumeData) { this.resumeData = resumeData; }
+        // Rows the reader saw and how many of them were dropped as duplicates, for the final status
+        public final long rowsRead;
+        public final long duplicatesDropped;
+        public final Consumer<IngestionStatus> listener;
+
+        public StoreResumeData(ResumeData resumeData) { this(resumeData, status -> {}); }
+
+        public StoreResumeData(ResumeData resumeData, Consumer<IngestionStatus> listener) {
+            this(resumeData, resumeData.getResumePoints().size(), 0, listener);
+        }
+
+        public StoreResumeData(ResumeData resumeData, long rowsRead, long duplicatesDropped,
+                               Consumer<IngestionStatus> listener) {
+            this.resumeData = resumeData;
+            this.rowsRead = rowsRead;
+            this.duplicatesDropped = duplicatesDropped;
+            this.listener = listener;
+        }
     }
 
     public static class SearchWithOpenAI {
         public final String jobDescription;
         public final int limit;
+        public final int candidatePoolSize;
         public final ActorRef<SearchComplete> replyTo;
 
-        public SearchWithOpenAI(String jobDescription, int limit, ActorRef<SearchComplete> replyTo) {
+        public SearchWithOpenAI(String jobDescription, int limit, int candidatePoolSize,
+                                ActorRef<SearchComplete> replyTo) {
             this.jobDescription = jobDescription;
             this.limit = limit;
+            this.candidatePoolSize = candidatePoolSize;
             this.replyTo = replyTo;
         }
     }
@@ -66,16 +108,36 @@ public class MasterActor extends AbstractBehavior<MasterActor.Command> {
     private final ActorRef<Object> storageActor;
     private final ActorRef<Object> openAIActor;
     private final ActorRef<ProcessExcelFile> fileReaderActor;
-
-    public static Behavior<Command> create() {
-        return Behaviors.setup(MasterActor::new);
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    // Atomic because the metrics gauge reads it from outside the actor
+    private final AtomicInteger outstandingSearches = new AtomicInteger();
+
+    // writeBehind is null when uploads are to be written synchronously
+    public static Behavior<Command> create(OpenAIService openAIService, LocalStorageService storageService,
+                                           PointStore pointStore, WriteBehindWriter writeBehind, int openAIPoolSize) {
+        return Behaviors.setup(context ->
+                new MasterActor(context, openAIService, storageService, pointStore, writeBehind, openAIPoolSize));
     }
 
-    private MasterActor(ActorContext<Command> context) {
+    private MasterActor(ActorContext<Command> context, OpenAIService openAIService, LocalStorageService storageService,
+                        PointStore pointStore, WriteBehindWriter writeBehind, int openAIPoolSize) {
         super(context);
-        this.storageActor = context.spawn(StorageActor.create(), "storage-actor");
-        this.openAIActor = context.spawn(OpenAIActor.create(), "openai-actor");
-        this.fileReaderActor = context.spawn(FileReaderActor.create(storageActor), "file-reader-actor");
+        // Blocking file and network work runs on dedicated dispatchers, away from this actor and Akka internals
+        this.storageActor = context.spawn(StorageActor.create(storageService, writeBehind), "storage-actor",
+                DispatcherSelector.fromConfig(DispatcherProperties.STORAGE_IO));
+        // A fixed pool bounds how many OpenAI calls run at once; the rate limiter inside OpenAIService
+        // keeps the pool as a whole under the account's quota
+        this.openAIActor = context.spawn(
+                Routers.pool(Math.max(openAIPoolSize, 1),
+                        Behaviors.supervise(OpenAIActor.create(openAIService, storageService, pointStore)).onFailure(SupervisorStrategy.restart()))
+                        .withRouteeProps(DispatcherSelector.fromConfig(DispatcherProperties.OPENAI)),
+                "openai-pool"
+        );
+        this.fileReaderActor = context.spawn(FileReaderActor.create(storageActor), "file-reader-actor",
+                DispatcherSelector.fromConfig(DispatcherProperties.FILE_IO));
+
+        metrics.gauge("llm.pool.size", () -> Math.max(openAIPoolSize, 1));
+        metrics.gauge("llm.pool.outstanding", outstandingSearches::get);
     }
 
     @Override
@@ -85,6 +147,11 @@ public class MasterActor extends AbstractBehavior<MasterActor.Command> {
                     fileReaderActor.tell(msg);
                     return this;
                 })
+                .onMessage(StoreResumeData.class, msg -> {
+                    // Streamed uploads are parsed outside the actor system and only need storing
+                    storageActor.tell(msg);
+                    return this;
+                })
                 .onMessage(ProcessJobDescription.class, this::onProcessJobDescription)
                 .onMessage(AdaptedSearchComplete.class, this::onSearchComplete)
                 .onSignal(PostStop.class, signal -> onPostStop())
@@ -99,11 +166,14 @@ public class MasterActor extends AbstractBehavior<MasterActor.Command> {
         );
 
         // Forward the request to openAIActor with the adapter
-        openAIActor.tell(new SearchWithOpenAI(msg.jobDescription, msg.topK, responseAdapter));
+        openAIActor.tell(new SearchWithOpenAI(msg.jobDescription, msg.topK, msg.candidatePoolSize, responseAdapter));
+        outstandingSearches.incrementAndGet();
+        metrics.increment("llm.pool.dispatched");
         return this;
     }
 
     private Behavior<Command> onSearchComplete(AdaptedSearchComplete msg) {
+        outstandingSearches.decrementAndGet();
         // Reply to the original sender with the search results
         msg.originalReplyTo.tell(msg.searchComplete.results);
         return this;
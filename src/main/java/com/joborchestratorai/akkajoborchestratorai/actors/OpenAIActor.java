@@ -1,42 +1,144 @@
 package com.joborchestratorai.akkajoborchestratorai.actors;
 
+import akka.actor.typed.ActorRef;
 import akka.actor.typed.Behavior;
+import akka.actor.typed.PostStop;
+import akka.actor.typed.PreRestart;
 import akka.actor.typed.javadsl.*;
+import com.joborchestratorai.akkajoborchestratorai.models.ResumeData;
+import com.joborchestratorai.akkajoborchestratorai.search.ResumePointSearcher;
+import com.joborchestratorai.akkajoborchestratorai.search.SearchSettings;
+import com.joborchestratorai.akkajoborchestratorai.services.LocalStorageService;
 import com.joborchestratorai.akkajoborchestratorai.services.OpenAIService;
+import com.joborchestratorai.akkajoborchestratorai.storage.PointStore;
 import com.joborchestratorai.akkajoborchestratorai.models.SearchResult;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.List;
+import java.util.Objects;
 
 public class OpenAIActor extends AbstractBehavior<Object> {
-    private final OpenAIService openAIService;
 
-    public static Behavior<Object> create() {
-        return Behaviors.setup(OpenAIActor::new);
+    // Internal message carrying the outcome of an asynchronous search back into the actor
+    private static class SearchFinished {
+        final ActorRef<MasterActor.SearchComplete> replyTo;
+        final List<SearchResult> results;
+        final Throwable error;
+
+        SearchFinished(ActorRef<MasterActor.SearchComplete> replyTo, List<SearchResult> results, Throwable error) {
+            this.replyTo = replyTo;
+            this.results = results;
+            this.error = error;
+        }
+    }
+
+    // Internal message with the embeddings a vector search needed, made off the actor's thread
+    private static class SearchEmbedded {
+        final MasterActor.SearchWithOpenAI search;
+        final ResumePointSearcher.SearchEmbeddings embeddings;
+
+        SearchEmbedded(MasterActor.SearchWithOpenAI search, ResumePointSearcher.SearchEmbeddings embeddings) {
+            this.search = search;
+            this.embeddings = embeddings;
+        }
     }
 
-    private OpenAIActor(ActorContext<Object> context) {
+    private final LocalStorageService storageService;
+    private final ResumePointSearcher searcher;
+    private String indexedResumeId;
+
+    public static Behavior<Object> create(OpenAIService openAIService, LocalStorageService storageService,
+                                          PointStore pointStore) {
+        return Behaviors.setup(context -> new OpenAIActor(context, openAIService, storageService, pointStore));
+    }
+
+    private OpenAIActor(ActorContext<Object> context, OpenAIService openAIService, LocalStorageService storageService,
+                        PointStore pointStore) {
         super(context);
-        // Note: In real app, inject this properly
-        this.openAIService = new OpenAIService(new com.joborchestratorai.akkajoborchestratorai.services.LocalStorageService());
+        this.storageService = storageService;
+        // Each pool worker keeps its own index; the OpenAI client, its cache and rate limiter, and the point text are shared
+        this.searcher = new ResumePointSearcher(
+                SearchSettings.fromConfig(context.getSystem().settings().config()),
+                openAIService,
+                pointStore
+        );
     }
 
     @Override
     public Receive<Object> createReceive() {
         return newReceiveBuilder()
                 .onMessage(MasterActor.SearchWithOpenAI.class, this::onSearchWithOpenAI)
+                .onMessage(SearchEmbedded.class, this::onSearchEmbedded)
+                .onMessage(SearchFinished.class, this::onSearchFinished)
+                .onSignal(PostStop.class, signal -> onStopped())
+                .onSignal(PreRestart.class, signal -> onStopped())
                 .build();
     }
 
     private Behavior<Object> onSearchWithOpenAI(MasterActor.SearchWithOpenAI msg) {
         try {
-            List<SearchResult> results = openAIService.findMatchingPoints(msg.jobDescription, msg.limit);
-            msg.replyTo.tell(new MasterActor.SearchComplete(results));
-            getContext().getLog().info("OpenAI search completed with {} results", results.size());
+            ResumeData resumeData = storageService.getLatestResumeData();
+            if (resumeData == null) {
+                msg.replyTo.tell(new MasterActor.SearchComplete(List.of()));
+                return this;
+            }
+
+            // Only rebuild the index when a newer upload became the latest resume data
+            if (!Objects.equals(indexedResumeId, resumeData.getId())) {
+                searcher.index(resumeData.getResumePoints());
+                indexedResumeId = resumeData.getId();
+                getContext().getLog().info("Indexed {} resume points from {}", searcher.size(), indexedResumeId);
+            }
+
+            if (searcher.usesVectors()) {
+                // Embeddings may come from OpenAI too, so they are made off this thread and added back on it
+                getContext().pipeToSelf(searcher.embedForSearch(msg.jobDescription), (embeddings, error) -> error != null
+                        ? new SearchFinished(msg.replyTo, null, error)
+                        : new SearchEmbedded(msg, embeddings));
+                return this;
+            }
+            return search(msg, null);
+        } catch (Exception e) {
+            getContext().getLog().error("Error in OpenAI search", e);
+            msg.replyTo.tell(new MasterActor.SearchComplete(List.of()));
+        }
+        return this;
+    }
+
+    private Behavior<Object> onSearchEmbedded(SearchEmbedded msg) {
+        if (searcher.isStale(msg.embeddings)) {
+            // A newer upload was indexed meanwhile
+            return onSearchWithOpenAI(msg.search);
+        }
+        return search(msg.search, msg.embeddings);
+    }
+
+    private Behavior<Object> search(MasterActor.SearchWithOpenAI msg, ResumePointSearcher.SearchEmbeddings embeddings) {
+        try {
+            // The OpenAI call runs on the HTTP client's threads; this actor moves on to the next message
+            getContext().pipeToSelf(
+                    searcher.searchAsync(msg.jobDescription, embeddings, msg.limit, msg.candidatePoolSize),
+                    (results, error) -> new SearchFinished(msg.replyTo, results, error)
+            );
         } catch (Exception e) {
             getContext().getLog().error("Error in OpenAI search", e);
             msg.replyTo.tell(new MasterActor.SearchComplete(List.of()));
         }
         return this;
     }
-}
\ No newline at end of file
+
+    private Behavior<Object> onSearchFinished(SearchFinished msg) {
+        if (msg.error != null) {
+            getContext().getLog().error("Error in OpenAI search", msg.error);
+            msg.replyTo.tell(new MasterActor.SearchComplete(List.of()));
+        } else {
+            msg.replyTo.tell(new MasterActor.SearchComplete(msg.results));
+            getContext().getLog().info("OpenAI search completed with {} results", msg.results.size());
+        }
+        return this;
+    }
+
+    private Behavior<Object> onStopped() {
+        searcher.release();
+        return this;
+    }
+}
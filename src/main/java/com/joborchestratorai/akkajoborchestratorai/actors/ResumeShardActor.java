@@ -1,30 +1,64 @@
 package com.joborchestratorai.akkajoborchestratorai.actors;
 
+import akka.Done;
 import akka.actor.typed.ActorRef;
 import akka.actor.typed.Behavior;
+import akka.actor.typed.DispatcherSelector;
+import akka.actor.typed.PostStop;
+import akka.actor.typed.PreRestart;
 import akka.actor.typed.javadsl.*;
 import akka.cluster.sharding.typed.javadsl.EntityTypeKey;
+import akka.pattern.StatusReply;
+import akka.stream.Materializer;
+import com.joborchestratorai.akkajoborchestratorai.config.DispatcherProperties;
+import com.joborchestratorai.akkajoborchestratorai.ingest.DatasetIngestionPipeline;
+import com.joborchestratorai.akkajoborchestratorai.ingest.IngestSettings;
+import com.joborchestratorai.akkajoborchestratorai.models.IngestionStatus;
 import com.joborchestratorai.akkajoborchestratorai.models.ResumeData;
 import com.joborchestratorai.akkajoborchestratorai.models.SearchResult;
+import com.joborchestratorai.akkajoborchestratorai.search.ResumePointSearcher;
+import com.joborchestratorai.akkajoborchestratorai.search.SearchSettings;
 import com.joborchestratorai.akkajoborchestratorai.services.ClusteredStorageService;
+import com.joborchestratorai.akkajoborchestratorai.services.MetricsRegistry;
 import com.joborchestratorai.akkajoborchestratorai.services.OpenAIService;
+import com.joborchestratorai.akkajoborchestratorai.storage.PointStore;
+import com.joborchestratorai.akkajoborchestratorai.storage.DatasetSegmentLog;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 
 public class ResumeShardActor extends AbstractBehavior<ResumeShardActor.Command> {
 
     public static final EntityTypeKey<Command> TYPE_KEY =
             EntityTypeKey.create(Command.class, "ResumeDataset");
 
+    // Messages that arrive while the stored dataset is being loaded
+    private static final int STASH_CAPACITY = 1000;
+    // For work that runs off the entity thread, where the context log must not be used
+    private static final Logger logger = LoggerFactory.getLogger(ResumeShardActor.class);
+
     @JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "type")
     @JsonSubTypes({
             @JsonSubTypes.Type(value = ProcessDataset.class, name = "processDataset"),
-            @JsonSubTypes.Type(value = SearchInDataset.class, name = "searchInDataset")
+            @JsonSubTypes.Type(value = SearchInDataset.class, name = "searchInDataset"),
+            @JsonSubTypes.Type(value = ClearDataset.class, name = "clearDataset")
     })
     public interface Command extends Serializable {
         String getDatasetId();
@@ -35,12 +69,19 @@ public class ResumeShardActor extends AbstractBehavior<ResumeShardActor.Command>
 
         public final String datasetId;
         public final String filePath;
+        public final ActorRef<IngestionStatus> replyTo;
+        // Optional; receives an INDEXING status after every indexed chunk
+        public final ActorRef<IngestionStatus> progressTo;
 
         @JsonCreator
         public ProcessDataset(@JsonProperty("datasetId") String datasetId,
-                              @JsonProperty("filePath") String filePath) {
+                              @JsonProperty("filePath") String filePath,
+                              @JsonProperty("replyTo") ActorRef<IngestionStatus> replyTo,
+                              @JsonProperty("progressTo") ActorRef<IngestionStatus> progressTo) {
             this.datasetId = datasetId;
             this.filePath = filePath;
+            this.replyTo = replyTo;
+            this.progressTo = progressTo;
         }
 
         @Override
@@ -53,16 +94,37 @@ public class ResumeShardActor extends AbstractBehavior<ResumeShardActor.Command>
         public final String datasetId;
         public final String jobDescription;
         public final int topK;
+        public final int candidatePoolSize;
         public final ActorRef<SearchResponse> replyTo;
 
         @JsonCreator
         public SearchInDataset(@JsonProperty("datasetId") String datasetId,
                                @JsonProperty("jobDescription") String jobDescription,
                                @JsonProperty("topK") int topK,
+                               @JsonProperty("candidatePoolSize") int candidatePoolSize,
                                @JsonProperty("replyTo") ActorRef<SearchResponse> replyTo) {
             this.datasetId = datasetId;
             this.jobDescription = jobDescription;
             this.topK = topK;
+            this.candidatePoolSize = candidatePoolSize;
+            this.replyTo = replyTo;
+        }
+
+        @Override
+        public String getDatasetId() { return datasetId; }
+    }
+
+    // Deletes the stored dataset and its index snapshot and drops it from the dataset catalog
+    public static class ClearDataset implements Command {
+        private static final long serialVersionUID = 1L;
+
+        public final String datasetId;
+        public final ActorRef<StatusReply<Done>> replyTo;
+
+        @JsonCreator
+        public ClearDataset(@JsonProperty("datasetId") String datasetId,
+                            @JsonProperty("replyTo") ActorRef<StatusReply<Done>> replyTo) {
+            this.datasetId = datasetId;
             this.replyTo = replyTo;
         }
 
@@ -84,20 +146,223 @@ public class ResumeShardActor extends AbstractBehavior<ResumeShardActor.Command>
         }
     }
 
+    // Local-only message carrying an asynchronous search result back into the entity; never sent remotely
+    private static class SearchFinished implements Command {
+        private static final long serialVersionUID = 1L;
+
+        final String datasetId;
+        final ActorRef<SearchResponse> replyTo;
+        final List<SearchResult> results;
+        final Throwable error;
+
+        SearchFinished(String datasetId, ActorRef<SearchResponse> replyTo, List<SearchResult> results, Throwable error) {
+            this.datasetId = datasetId;
+            this.replyTo = replyTo;
+            this.results = results;
+            this.error = error;
+        }
+
+        @Override
+        public String getDatasetId() { return datasetId; }
+    }
+
+    // Local-only message with the embeddings a vector search needed, made off the entity thread
+    private static class SearchEmbedded implements Command {
+        private static final long serialVersionUID = 1L;
+
+        final String datasetId;
+        final SearchInDataset search;
+        // The searcher they were made for; a cleared or reloaded dataset has a new one
+        final ResumePointSearcher target;
+        final ResumePointSearcher.SearchEmbeddings embeddings;
+
+        SearchEmbedded(String datasetId, SearchInDataset search, ResumePointSearcher target,
+                       ResumePointSearcher.SearchEmbeddings embeddings) {
+            this.datasetId = datasetId;
+            this.search = search;
+            this.target = target;
+            this.embeddings = embeddings;
+        }
+
+        @Override
+        public String getDatasetId() { return datasetId; }
+    }
+
+    // Local-only message from the ingestion pipeline; the reply carries the points that were new
+    // and releases the next chunk
+    private static class IndexChunk implements Command {
+        private static final long serialVersionUID = 1L;
+
+        final String datasetId;
+        final List<String> points;
+        final ActorRef<List<String>> replyTo;
+
+        IndexChunk(String datasetId, List<String> points, ActorRef<List<String>> replyTo) {
+            this.datasetId = datasetId;
+            this.points = points;
+            this.replyTo = replyTo;
+        }
+
+        @Override
+        public String getDatasetId() { return datasetId; }
+    }
+
+    // Local-only message from the ingestion pipeline with the content keys of a whole re-upload;
+    // the reply carries the indexed points it no longer contains, which are removed
+    private static class RetainPoints implements Command {
+        private static final long serialVersionUID = 1L;
+
+        final String datasetId;
+        final Set<Long> keys;
+        final ActorRef<List<String>> replyTo;
+
+        RetainPoints(String datasetId, Set<Long> keys, ActorRef<List<String>> replyTo) {
+            this.datasetId = datasetId;
+            this.keys = keys;
+            this.replyTo = replyTo;
+        }
+
+        @Override
+        public String getDatasetId() { return datasetId; }
+    }
+
+    // Local-only message from the ingestion pipeline asking for the indexed points with the given content keys
+    private static class LookupPoints implements Command {
+        private static final long serialVersionUID = 1L;
+
+        final String datasetId;
+        final Set<Long> keys;
+        final ActorRef<List<String>> replyTo;
+
+        LookupPoints(String datasetId, Set<Long> keys, ActorRef<List<String>> replyTo) {
+            this.datasetId = datasetId;
+            this.keys = keys;
+            this.replyTo = replyTo;
+        }
+
+        @Override
+        public String getDatasetId() { return datasetId; }
+    }
+
+    // Local-only message with the searcher built from storage off the entity thread
+    private static class IndexLoaded implements Command {
+        private static final long serialVersionUID = 1L;
+
+        final String datasetId;
+        final LoadedIndex index;
+        final Throwable error;
+
+        IndexLoaded(String datasetId, LoadedIndex index, Throwable error) {
+            this.datasetId = datasetId;
+            this.index = index;
+            this.error = error;
+        }
+
+        @Override
+        public String getDatasetId() { return datasetId; }
+    }
+
+    // Local-only message telling the entity that a background index snapshot is done
+    private static class SnapshotWritten implements Command {
+        private static final long serialVersionUID = 1L;
+
+        final String datasetId;
+        final boolean written;
+
+        SnapshotWritten(String datasetId, boolean written) {
+            this.datasetId = datasetId;
+            this.written = written;
+        }
+
+        @Override
+        public String getDatasetId() { return datasetId; }
+    }
+
+    // Local-only message telling the entity that the stored dataset has been deleted
+    private static class DatasetCleared implements Command {
+        private static final long serialVersionUID = 1L;
+
+        final String datasetId;
+        final ActorRef<StatusReply<Done>> replyTo;
+        final Throwable error;
+
+        DatasetCleared(String datasetId, ActorRef<StatusReply<Done>> replyTo, Throwable error) {
+            this.datasetId = datasetId;
+            this.replyTo = replyTo;
+            this.error = error;
+        }
+
+        @Override
+        public String getDatasetId() { return datasetId; }
+    }
+
+    private static class IngestionFinished implements Command {
+        private static final long serialVersionUID = 1L;
+
+        final String datasetId;
+        final ActorRef<IngestionStatus> replyTo;
+        final IngestionStatus status;
+        final Throwable error;
+
+        IngestionFinished(String datasetId, ActorRef<IngestionStatus> replyTo, IngestionStatus status, Throwable error) {
+            this.datasetId = datasetId;
+            this.replyTo = replyTo;
+            this.status = status;
+            this.error = error;
+        }
+
+        @Override
+        public String getDatasetId() { return datasetId; }
+    }
+
     private final String datasetId;
     private final ClusteredStorageService storageService;
+    private final ActorRef<DatasetCatalogActor.Command> catalog;
+    private final SearchSettings searchSettings;
     private final OpenAIService openAIService;
-    private ResumeData cachedResumeData;
+    private final PointStore pointStore;
+    private final IngestSettings ingestSettings;
+    private final StashBuffer<Command> stash;
+    private final Executor storageExecutor;
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private ResumePointSearcher searcher;
+    private DatasetIngestionPipeline pipeline;
+    private boolean indexLoaded;
+    // Set while the stored dataset is being indexed; searches and uploads wait in the stash
+    private CompletionStage<LoadedIndex> loading;
+    // Set while a snapshot is read from the searcher on the storage dispatcher; whatever would
+    // change the searcher waits in the stash until it is done
+    private CompletionStage<Boolean> snapshotting;
+    // Set while the stored dataset is being deleted; uploads wait in the stash
+    private CompletionStage<Void> clearing;
+    private boolean ingesting;
+    // Whether the last index snapshot includes the vector index, which is built lazily
+    private boolean snapshotHasVectors;
 
-    public static Behavior<Command> create(String datasetId) {
-        return Behaviors.setup(context -> new ResumeShardActor(context, datasetId));
+    public static Behavior<Command> create(String datasetId, OpenAIService openAIService,
+                                           ClusteredStorageService storageService, PointStore pointStore,
+                                           ActorRef<DatasetCatalogActor.Command> catalog) {
+        return Behaviors.setup(context -> Behaviors.withStash(STASH_CAPACITY, stash ->
+                new ResumeShardActor(context, stash, datasetId, openAIService, storageService, pointStore, catalog)));
     }
 
-    private ResumeShardActor(ActorContext<Command> context, String datasetId) {
+    private ResumeShardActor(ActorContext<Command> context, StashBuffer<Command> stash, String datasetId,
+                             OpenAIService openAIService, ClusteredStorageService storageService,
+                             PointStore pointStore, ActorRef<DatasetCatalogActor.Command> catalog) {
         super(context);
+        this.stash = stash;
+        this.storageExecutor = context.getSystem().dispatchers()
+                .lookup(DispatcherSelector.fromConfig(DispatcherProperties.STORAGE_IO));
         this.datasetId = datasetId;
-        this.storageService = new ClusteredStorageService();
-        this.openAIService = new OpenAIService(new com.joborchestratorai.akkajoborchestratorai.services.LocalStorageService());
+        this.catalog = catalog;
+        // Shared by every entity on the node, so they share one bounded dataset cache
+        this.storageService = storageService;
+        this.openAIService = openAIService;
+        this.pointStore = pointStore;
+        this.searchSettings = SearchSettings.fromConfig(context.getSystem().settings().config());
+        // Empty until the stored dataset is loaded on the first search or upload
+        this.searcher = new ResumePointSearcher(searchSettings, openAIService, pointStore);
+        this.ingestSettings = IngestSettings.fromConfig(context.getSystem().settings().config());
 
         getContext().getLog().info("ResumeShardActor started for dataset: {}", datasetId);
     }
@@ -107,45 +372,408 @@ public class ResumeShardActor extends AbstractBehavior<ResumeShardActor.Command>
         return newReceiveBuilder()
                 .onMessage(ProcessDataset.class, this::onProcessDataset)
                 .onMessage(SearchInDataset.class, this::onSearchInDataset)
+                .onMessage(ClearDataset.class, this::onClearDataset)
+                .onMessage(DatasetCleared.class, this::onDatasetCleared)
+                .onMessage(SearchEmbedded.class, this::onSearchEmbedded)
+                .onMessage(SearchFinished.class, this::onSearchFinished)
+                .onMessage(IndexChunk.class, this::onIndexChunk)
+                .onMessage(RetainPoints.class, this::onRetainPoints)
+                .onMessage(LookupPoints.class, this::onLookupPoints)
+                .onMessage(IndexLoaded.class, this::onIndexLoaded)
+                .onMessage(SnapshotWritten.class, this::onSnapshotWritten)
+                .onMessage(IngestionFinished.class, this::onIngestionFinished)
+                .onSignal(PostStop.class, signal -> onStopped())
+                .onSignal(PreRestart.class, signal -> onStopped())
                 .build();
     }
 
     private Behavior<Command> onProcessDataset(ProcessDataset msg) {
-        try {
-            getContext().getLog().info("Processing dataset {} from file: {}", datasetId, msg.filePath);
+        if (ingesting) {
+            msg.replyTo.tell(IngestionStatus.failed(datasetId, "An upload is already being ingested into this dataset"));
+            return this;
+        }
+        // The upload is diffed against the stored dataset, so that has to be in the index first;
+        // searches during ingestion see the previous points plus the chunks added so far
+        if (awaitIndex(msg) || awaitStorage(msg)) {
+            return this;
+        }
+        getContext().getLog().info("Processing dataset {} from file: {}", datasetId, msg.filePath);
+        ingesting = true;
 
-            // Here you would integrate with your FileReaderActor logic
-            // to process the Excel file and store it with the dataset ID
+        ActorRef<Command> self = getContext().getSelf();
+        Duration indexTimeout = ingestSettings.indexTimeout;
+        CompletionStage<IngestionStatus> result = getPipeline().run(
+                datasetId,
+                Paths.get(msg.filePath),
+                chunk -> AskPattern.ask(self,
+                        (ActorRef<List<String>> replyTo) -> new IndexChunk(datasetId, chunk, replyTo),
+                        indexTimeout, getContext().getSystem().scheduler()),
+                keys -> AskPattern.ask(self,
+                        (ActorRef<List<String>> replyTo) -> new RetainPoints(datasetId, keys, replyTo),
+                        indexTimeout, getContext().getSystem().scheduler()),
+                keys -> AskPattern.ask(self,
+                        (ActorRef<List<String>> replyTo) -> new LookupPoints(datasetId, keys, replyTo),
+                        indexTimeout, getContext().getSystem().scheduler()),
+                status -> {
+                    if (msg.progressTo != null) {
+                        msg.progressTo.tell(status);
+                    }
+                }
+        );
+        getContext().pipeToSelf(result, (status, error) -> new IngestionFinished(datasetId, msg.replyTo, status, error));
+        return this;
+    }
 
-            // For now, simulate successful processing
-            getContext().getLog().info("Dataset {} processed successfully", datasetId);
-        } catch (Exception e) {
-            getContext().getLog().error("Error processing dataset {}: {}", datasetId, e.getMessage());
+    private Behavior<Command> onIndexChunk(IndexChunk msg) {
+        msg.replyTo.tell(searcher.addPoints(msg.points));
+        return this;
+    }
+
+    private Behavior<Command> onRetainPoints(RetainPoints msg) {
+        msg.replyTo.tell(searcher.retainOnly(msg.keys));
+        return this;
+    }
+
+    private Behavior<Command> onLookupPoints(LookupPoints msg) {
+        msg.replyTo.tell(searcher.getPoints(msg.keys));
+        return this;
+    }
+
+    private Behavior<Command> onIngestionFinished(IngestionFinished msg) {
+        ingesting = false;
+        if (msg.error != null) {
+            getContext().getLog().error("Error processing dataset {}: {}", datasetId, msg.error.getMessage());
+            // The index may hold part of the diff, but the previous upload is still on disk; reload it on the next search
+            indexLoaded = false;
+            msg.replyTo.tell(IngestionStatus.failed(datasetId, msg.error.getMessage()));
+        } else {
+            getContext().getLog().info("Dataset {} processed successfully with {} points", datasetId, searcher.size());
+            msg.replyTo.tell(msg.status);
+            catalog.tell(new DatasetCatalogActor.DatasetIndexed(datasetId, searcher.size()));
+            writeSnapshot();
         }
         return this;
     }
 
+    private Behavior<Command> onClearDataset(ClearDataset msg) {
+        if (ingesting) {
+            msg.replyTo.tell(StatusReply.error("An upload is being ingested into this dataset"));
+            return this;
+        }
+        // A load or snapshot still running could write the index file back after it is deleted
+        if (awaitStorage(msg)) {
+            return this;
+        }
+        getContext().getLog().info("Clearing dataset {}", datasetId);
+        searcher.release();
+        searcher = new ResumePointSearcher(searchSettings, openAIService, pointStore);
+        indexLoaded = true;
+        snapshotHasVectors = false;
+
+        clearing = CompletableFuture.runAsync(() -> {
+            try {
+                storageService.clearDataset(datasetId);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, storageExecutor);
+        getContext().pipeToSelf(clearing, (done, error) -> new DatasetCleared(datasetId, msg.replyTo, error));
+        return this;
+    }
+
+    private Behavior<Command> onDatasetCleared(DatasetCleared msg) {
+        clearing = null;
+        if (msg.error != null) {
+            getContext().getLog().error("Error clearing dataset {}: {}", datasetId, msg.error.getMessage());
+            // Part of the dataset may still be on disk; load whatever is left on the next search
+            indexLoaded = false;
+            msg.replyTo.tell(StatusReply.error("Failed to clear dataset: " + msg.error.getMessage()));
+        } else {
+            getContext().getLog().info("Dataset {} cleared", datasetId);
+            msg.replyTo.tell(StatusReply.ack());
+            catalog.tell(new DatasetCatalogActor.DatasetRemoved(datasetId));
+        }
+        return stash.unstashAll(this);
+    }
+
+    // Passivated or rebalanced: the point text goes back to the node-wide store unless other datasets share it
+    private Behavior<Command> onStopped() {
+        if (snapshotting != null) {
+            // Still being read by the snapshot; released once that is done
+            ResumePointSearcher stopped = searcher;
+            snapshotting.whenComplete((written, error) -> stopped.release());
+        } else {
+            searcher.release();
+        }
+        if (loading != null) {
+            // The entity will never adopt the searcher being loaded, so release it once it is built
+            loading.thenAccept(index -> index.searcher.release());
+        }
+        return this;
+    }
+
+    private DatasetIngestionPipeline getPipeline() {
+        if (pipeline == null) {
+            Executor readExecutor = getContext().getSystem().dispatchers()
+                    .lookup(DispatcherSelector.fromConfig(DispatcherProperties.FILE_IO));
+            Executor persistExecutor = getContext().getSystem().dispatchers()
+                    .lookup(DispatcherSelector.fromConfig(DispatcherProperties.STORAGE_IO));
+            pipeline = new DatasetIngestionPipeline(ingestSettings, Materializer.createMaterializer(getContext()),
+                    readExecutor, getContext().getExecutionContext(), persistExecutor,
+                    DispatcherProperties.SHARD, storageService);
+        }
+        return pipeline;
+    }
+
     private Behavior<Command> onSearchInDataset(SearchInDataset msg) {
+        // Load the stored dataset on the first search after startup
+        if (awaitIndex(msg) || (searcher.searchChangesIndex() && awaitStorage(msg))) {
+            return this;
+        }
+        if (searcher.size() == 0) {
+            getContext().getLog().warn("No data found for dataset: {}", datasetId);
+            msg.replyTo.tell(new SearchResponse(datasetId, List.of()));
+            return this;
+        }
+        if (!searcher.usesVectors()) {
+            return search(msg, null);
+        }
+        // Embedding may call OpenAI, so it runs off the entity thread and the vectors are added back on it
+        ResumePointSearcher target = searcher;
+        getContext().pipeToSelf(searcher.embedForSearch(msg.jobDescription), (embeddings, error) -> error != null
+                ? new SearchFinished(datasetId, msg.replyTo, null, error)
+                : new SearchEmbedded(datasetId, msg, target, embeddings));
+        return this;
+    }
+
+    private Behavior<Command> onSearchEmbedded(SearchEmbedded msg) {
+        if (msg.target != searcher || searcher.isStale(msg.embeddings)) {
+            // The indexes were replaced or rebuilt meanwhile, so the embeddings no longer line up
+            return onSearchInDataset(msg.search);
+        }
+        // Adding the vectors changes the searcher, which a snapshot being written still reads
+        if (msg.embeddings.changesIndex() && awaitStorage(msg)) {
+            return this;
+        }
+        return search(msg.search, msg.embeddings);
+    }
+
+    private Behavior<Command> search(SearchInDataset msg, ResumePointSearcher.SearchEmbeddings embeddings) {
+        try {
+            getContext().pipeToSelf(
+                    searcher.searchAsync(msg.jobDescription, embeddings, msg.topK, msg.candidatePoolSize),
+                    (results, error) -> new SearchFinished(datasetId, msg.replyTo, results, error)
+            );
+        } catch (Exception e) {
+            getContext().getLog().error("Error searching dataset {}: {}", datasetId, e.getMessage());
+            msg.replyTo.tell(new SearchResponse(datasetId, List.of()));
+        }
+        return this;
+    }
+
+    /**
+     * Returns false when the index is loaded and {@code msg} can be handled now. Otherwise the
+     * message is stashed until the stored dataset has been indexed on the storage dispatcher.
+     */
+    private boolean awaitIndex(Command msg) {
+        if (indexLoaded) {
+            return false;
+        }
+        if (stash.isFull()) {
+            getContext().getLog().warn("Dropping message for dataset {} while its index loads: stash is full", datasetId);
+            reject(msg, "Dataset " + datasetId + " is still loading, try again later");
+            return true;
+        }
+        stash.stash(msg);
+        if (loading == null) {
+            loading = CompletableFuture.supplyAsync(this::loadIndex, storageExecutor);
+            getContext().pipeToSelf(loading, (index, error) -> new IndexLoaded(datasetId, index, error));
+        }
+        return true;
+    }
+
+    private Behavior<Command> onIndexLoaded(IndexLoaded msg) {
+        loading = null;
+        if (msg.error != null) {
+            getContext().getLog().error("Failed to load stored dataset {}: {}", datasetId, msg.error.getMessage());
+            String reason = "Failed to load stored dataset: " + msg.error.getMessage();
+            List<Command> clears = new ArrayList<>();
+            stash.forEach(stashed -> {
+                if (stashed instanceof ClearDataset) {
+                    // Clearing does not need the index, and is how a dataset that cannot be loaded is dropped
+                    clears.add(stashed);
+                } else {
+                    reject(stashed, reason);
+                }
+            });
+            stash.clear();
+            clears.forEach(getContext().getSelf()::tell);
+            return this;
+        }
+        LoadedIndex index = msg.index;
+        if (index.ignoredSnapshot != null) {
+            getContext().getLog().warn("Ignoring index snapshot of dataset {}: {}", datasetId, index.ignoredSnapshot);
+        }
+        getContext().getLog().info(index.recovered
+                        ? "Recovered {} resume points for dataset {} from index snapshot"
+                        : "Indexed {} resume points for dataset {}",
+                index.searcher.size(), datasetId);
+        searcher.release();
+        searcher = index.searcher;
+        snapshotHasVectors = index.snapshotHasVectors;
+        indexLoaded = true;
+        return stash.unstashAll(this);
+    }
+
+    /**
+     * Returns false when the stored dataset is not being loaded, snapshotted or deleted, so
+     * {@code msg}, which would change the searcher or the stored dataset, can be handled now.
+     * Otherwise it is stashed until that is done.
+     */
+    private boolean awaitStorage(Command msg) {
+        if (loading == null && snapshotting == null && clearing == null) {
+            return false;
+        }
+        if (stash.isFull()) {
+            reject(msg, "Dataset " + datasetId + " is busy, try again later");
+        } else {
+            stash.stash(msg);
+        }
+        return true;
+    }
+
+    private void reject(Command msg, String reason) {
+        if (msg instanceof SearchInDataset search) {
+            search.replyTo.tell(new SearchResponse(datasetId, List.of()));
+        } else if (msg instanceof SearchEmbedded embedded) {
+            embedded.search.replyTo.tell(new SearchResponse(datasetId, List.of()));
+        } else if (msg instanceof ProcessDataset process) {
+            process.replyTo.tell(IngestionStatus.failed(datasetId, reason));
+        } else if (msg instanceof ClearDataset clear) {
+            clear.replyTo.tell(StatusReply.error(reason));
+        }
+    }
+
+    /**
+     * Restores the indexes from the last snapshot and replays what the dataset log recorded after
+     * it, so a rebalanced or restarted entity does not re-tokenize or re-embed the whole dataset.
+     * Without a usable snapshot the stored dataset is indexed from scratch. Runs off the entity
+     * thread on a searcher of its own, which the entity adopts once it is built.
+     */
+    private LoadedIndex loadIndex() {
+        long startedAt = System.nanoTime();
+        ResumePointSearcher loaded = new ResumePointSearcher(searchSettings, openAIService, pointStore);
         try {
-            // Load cached data or fetch from storage
-            if (cachedResumeData == null) {
-                cachedResumeData = storageService.getDatasetResumeData(datasetId);
+            LoadedIndex index = recoverFromSnapshot(loaded);
+            if (index.recovered) {
+                metrics.timer("shard.recovery").record(System.nanoTime() - startedAt);
+                return index;
             }
+            ResumeData resumeData = storageService.getDatasetResumeData(datasetId);
+            // With nothing stored yet an upload indexes into the empty searcher
+            loaded.index(resumeData != null ? resumeData.getResumePoints() : List.of());
+            boolean hasVectors = resumeData != null && writeSnapshot(loaded) && loaded.hasVectorIndex();
+            metrics.timer("shard.recovery").record(System.nanoTime() - startedAt);
+            return new LoadedIndex(loaded, false, hasVectors, index.ignoredSnapshot);
+        } catch (IOException | RuntimeException e) {
+            loaded.release();
+            throw new CompletionException(e);
+        }
+    }
 
-            if (cachedResumeData == null) {
-                getContext().getLog().warn("No data found for dataset: {}", datasetId);
-                msg.replyTo.tell(new SearchResponse(datasetId, List.of()));
-                return this;
+    private LoadedIndex recoverFromSnapshot(ResumePointSearcher loaded) {
+        Path snapshot = storageService.getIndexSnapshotPath(datasetId);
+        if (!Files.exists(snapshot)) {
+            return new LoadedIndex(loaded, false, false, null);
+        }
+        try {
+            long position = loaded.readSnapshot(snapshot);
+            boolean hasVectors = loaded.hasVectorIndex();
+            DatasetSegmentLog.Changes changes = storageService.getDatasetChangesSince(datasetId, position);
+            if (changes != null) {
+                loaded.removePoints(changes.removed);
+                loaded.addPoints(changes.added);
+                metrics.counter("shard.recovery.replayed-points").add(changes.added.size() + changes.removed.size());
+            } else {
+                // The log was compacted past the snapshot; diffing still beats rebuilding the indexes
+                ResumeData resumeData = storageService.getDatasetResumeData(datasetId);
+                loaded.reconcile(resumeData != null ? resumeData.getResumePoints() : List.of());
+                metrics.increment("shard.recovery.reconciled");
             }
+            return new LoadedIndex(loaded, true, hasVectors, null);
+        } catch (IOException | RuntimeException e) {
+            // A snapshot read only part-way may have interned points; start again from an empty searcher
+            loaded.release();
+            return new LoadedIndex(loaded, false, false, e.getMessage());
+        }
+    }
 
-            List<SearchResult> results = openAIService.findMatchingPoints(msg.jobDescription, msg.topK);
-            msg.replyTo.tell(new SearchResponse(datasetId, results));
+    /**
+     * Writes a snapshot of the searcher on the storage dispatcher. Best effort: a missing or stale
+     * snapshot only makes the next recovery slower, so one already being written is not repeated.
+     */
+    private void writeSnapshot() {
+        if (snapshotting != null) {
+            return;
+        }
+        ResumePointSearcher target = searcher;
+        snapshotting = CompletableFuture.supplyAsync(() -> writeSnapshot(target), storageExecutor);
+        getContext().pipeToSelf(snapshotting, (written, error) -> new SnapshotWritten(datasetId, error == null && written));
+    }
 
-            getContext().getLog().info("Search completed for dataset {} with {} results", datasetId, results.size());
-        } catch (Exception e) {
-            getContext().getLog().error("Error searching dataset {}: {}", datasetId, e.getMessage());
+    private Behavior<Command> onSnapshotWritten(SnapshotWritten msg) {
+        snapshotting = null;
+        if (msg.written) {
+            // Nothing that changes the searcher ran meanwhile, so it is still what the snapshot holds
+            snapshotHasVectors = searcher.hasVectorIndex();
+        }
+        return stash.unstashAll(this);
+    }
+
+    private boolean writeSnapshot(ResumePointSearcher target) {
+        long startedAt = System.nanoTime();
+        try {
+            long position = storageService.checkpointDataset(datasetId);
+            if (position < 0) {
+                return false;
+            }
+            target.writeSnapshot(storageService.getIndexSnapshotPath(datasetId), position);
+            metrics.timer("shard.snapshot").record(System.nanoTime() - startedAt);
+            return true;
+        } catch (IOException e) {
+            logger.warn("Failed to write index snapshot of dataset {}: {}", datasetId, e.getMessage());
+            return false;
+        }
+    }
+
+    private Behavior<Command> onSearchFinished(SearchFinished msg) {
+        if (msg.error != null) {
+            getContext().getLog().error("Error searching dataset {}: {}", datasetId, msg.error.getMessage());
             msg.replyTo.tell(new SearchResponse(datasetId, List.of()));
+        } else {
+            msg.replyTo.tell(new SearchResponse(datasetId, msg.results));
+            getContext().getLog().info("Search completed for dataset {} with {} results", datasetId, msg.results.size());
+            if (searcher.hasVectorIndex() && !snapshotHasVectors && !ingesting) {
+                // Keep the embeddings of the first vector search, the most expensive thing to rebuild
+                writeSnapshot();
+            }
         }
         return this;
     }
-}
\ No newline at end of file
+
+    private static class LoadedIndex {
+        final ResumePointSearcher searcher;
+        // Whether it came from the index snapshot rather than from indexing the stored dataset
+        final boolean recovered;
+        final boolean snapshotHasVectors;
+        // Why an existing snapshot could not be used, if there was one
+        final String ignoredSnapshot;
+
+        LoadedIndex(ResumePointSearcher searcher, boolean recovered, boolean snapshotHasVectors, String ignoredSnapshot) {
+            this.searcher = searcher;
+            this.recovered = recovered;
+            this.snapshotHasVectors = snapshotHasVectors;
+            this.ignoredSnapshot = ignoredSnapshot;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.joborchestratorai.akkajoborchestratorai.actors;
+
+import akka.actor.typed.ActorRef;
+import akka.actor.typed.Behavior;
+import akka.actor.typed.javadsl.*;
+import akka.cluster.sharding.typed.javadsl.ClusterSharding;
+import com.joborchestratorai.akkajoborchestratorai.models.CrossDatasetSearchResult;
+import com.joborchestratorai.akkajoborchestratorai.models.SearchResult;
+import com.joborchestratorai.akkajoborchestratorai.search.TopKMerger;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Scatter-gather for a single cross-dataset search. One instance is spawned per request,
+ * fans the search out to the dataset shards, merges responses as they arrive and stops
+ * once every shard answered or the request deadline passed.
+ * <p>
+ * Slow datasets are not hedged: each dataset is served by one sharded entity that handles
+ * its messages in order, so a second request could never finish before the first and would
+ * only repeat the search and its OpenAI rerank.
+ */
+public class SearchAggregatorActor extends AbstractBehavior<SearchAggregatorActor.Command> {
+
+    public interface Command {}
+
+    private static class WrappedSearchResponse implements Command {
+        final ResumeShardActor.SearchResponse response;
+
+        WrappedSearchResponse(ResumeShardActor.SearchResponse response) {
+            this.response = response;
+        }
+    }
+
+    private enum DeadlineReached implements Command { INSTANCE }
+
+    private final ClusterSharding sharding;
+    private final ClusteredMasterActor.SearchAcrossDatasets request;
+    private final ActorRef<ResumeShardActor.SearchResponse> responseAdapter;
+    private final Set<String> pendingDatasets;
+    private final TopKMerger<SearchResult> topResults;
+
+    public static Behavior<Command> create(ClusterSharding sharding, ClusteredMasterActor.SearchAcrossDatasets request) {
+        return Behaviors.setup(context -> Behaviors.withTimers(timers -> {
+            timers.startSingleTimer(DeadlineReached.INSTANCE, request.deadline);
+            return new SearchAggregatorActor(context, sharding, request);
+        }));
+    }
+
+    private SearchAggregatorActor(ActorContext<Command> context, ClusterSharding sharding,
+                                  ClusteredMasterActor.SearchAcrossDatasets request) {
+        super(context);
+        this.sharding = sharding;
+        this.request = request;
+        this.responseAdapter = context.messageAdapter(ResumeShardActor.SearchResponse.class, WrappedSearchResponse::new);
+        this.pendingDatasets = new LinkedHashSet<>(request.datasetIds);
+        this.topResults = TopKMerger.forSearchResults(request.topK);
+
+        for (String datasetId : pendingDatasets) {
+            sendSearch(datasetId);
+        }
+    }
+
+    @Override
+    public Receive<Command> createReceive() {
+        return newReceiveBuilder()
+                .onMessage(WrappedSearchResponse.class, this::onSearchResponse)
+                .onMessageEquals(DeadlineReached.INSTANCE, this::onDeadlineReached)
+                .build();
+    }
+
+    private Behavior<Command> onSearchResponse(WrappedSearchResponse msg) {
+        // Only the first answer from a dataset counts
+        if (!pendingDatasets.remove(msg.response.datasetId)) {
+            return this;
+        }
+        topResults.offerAll(msg.response.results);
+
+        if (pendingDatasets.isEmpty()) {
+            request.resultFuture.complete(new CrossDatasetSearchResult(topResults.result(), new ArrayList<>()));
+            return Behaviors.stopped();
+        }
+        return this;
+    }
+
+    private Behavior<Command> onDeadlineReached() {
+        getContext().getLog().warn("Search deadline of {} passed, datasets without an answer: {}",
+                request.deadline, pendingDatasets);
+
+        if (request.allowPartialResults) {
+            request.resultFuture.complete(
+                    new CrossDatasetSearchResult(topResults.result(), new ArrayList<>(pendingDatasets)));
+        } else {
+            request.resultFuture.completeExceptionally(new TimeoutException(
+                    "Datasets " + pendingDatasets + " did not answer within " + request.deadline));
+        }
+        return Behaviors.stopped();
+    }
+
+    private void sendSearch(String datasetId) {
+        sharding.entityRefFor(ResumeShardActor.TYPE_KEY, datasetId).tell(new ResumeShardActor.SearchInDataset(
+                datasetId, request.jobDescription, request.topK, request.candidatePoolSize, responseAdapter
+        ));
+    }
+}
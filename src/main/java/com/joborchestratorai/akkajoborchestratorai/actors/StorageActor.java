@@ -2,34 +2,82 @@ package com.joborchestratorai.akkajoborchestratorai.actors;
 
 import akka.actor.typed.Behavior;
 import akka.actor.typed.javadsl.*;
+import com.joborchestratorai.akkajoborchestratorai.models.IngestionStatus;
 import com.joborchestratorai.akkajoborchestratorai.services.LocalStorageService;
+import com.joborchestratorai.akkajoborchestratorai.services.WriteBehindWriter;
 
 public class StorageActor extends AbstractBehavior<Object> {
+
+    // Local-only message carrying the outcome of a write-behind store back into the actor
+    private static class StoreFinished {
+        final MasterActor.StoreResumeData request;
+        final Throwable error;
+
+        StoreFinished(MasterActor.StoreResumeData request, Throwable error) {
+            this.request = request;
+            this.error = error;
+        }
+    }
+
     private final LocalStorageService storageService;
+    // Null when write-behind is disabled and every store is written synchronously
+    private final WriteBehindWriter writeBehind;
 
-    public static Behavior<Object> create() {
-        return Behaviors.setup(StorageActor::new);
+    public static Behavior<Object> create(LocalStorageService storageService, WriteBehindWriter writeBehind) {
+        return Behaviors.setup(context -> new StorageActor(context, storageService, writeBehind));
     }
 
-    private StorageActor(ActorContext<Object> context) {
+    private StorageActor(ActorContext<Object> context, LocalStorageService storageService,
+                         WriteBehindWriter writeBehind) {
         super(context);
-        this.storageService = new LocalStorageService();
+        this.storageService = storageService;
+        this.writeBehind = writeBehind;
     }
 
     @Override
     public Receive<Object> createReceive() {
         return newReceiveBuilder()
                 .onMessage(MasterActor.StoreResumeData.class, this::onStoreResumeData)
+                .onMessage(StoreFinished.class, this::onStoreFinished)
                 .build();
     }
 
     private Behavior<Object> onStoreResumeData(MasterActor.StoreResumeData msg) {
         try {
-            storageService.storeResumeData(msg.resumeData);
-            getContext().getLog().info("Stored resume data: {}", msg.resumeData.getFileName());
+            if (writeBehind != null) {
+                // Acknowledged from onStoreFinished once the writer's group commit has made it durable
+                getContext().pipeToSelf(writeBehind.submit(msg.resumeData),
+                        (path, error) -> new StoreFinished(msg, error));
+            } else {
+                storageService.storeResumeData(msg.resumeData);
+                stored(msg);
+            }
         } catch (Exception e) {
-            getContext().getLog().error("Error storing resume data", e);
+            failed(msg, e);
         }
         return this;
     }
-}
\ No newline at end of file
+
+    private Behavior<Object> onStoreFinished(StoreFinished msg) {
+        if (msg.error != null) {
+            failed(msg.request, msg.error);
+        } else {
+            stored(msg.request);
+        }
+        return this;
+    }
+
+    private void stored(MasterActor.StoreResumeData msg) {
+        getContext().getLog().info("Stored resume data: {}", msg.resumeData.getFileName());
+        int points = msg.resumeData.getResumePoints().size();
+        // Stored data is what the OpenAIActor workers index from, so the upload is searchable now
+        msg.listener.accept(new IngestionStatus(msg.resumeData.getId(), IngestionStatus.COMPLETED,
+                msg.rowsRead, points, msg.duplicatesDropped, 0, null));
+    }
+
+    private void failed(MasterActor.StoreResumeData msg, Throwable error) {
+        getContext().getLog().error("Error storing resume data", error);
+        msg.listener.accept(IngestionStatus.failed(msg.resumeData.getId(),
+                "Failed to store resume data: " + error.getMessage()));
+    }
+}
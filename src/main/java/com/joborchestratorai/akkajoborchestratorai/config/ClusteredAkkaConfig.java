@@ -4,6 +4,11 @@ import akka.actor.typed.ActorSystem;
 import akka.management.cluster.bootstrap.ClusterBootstrap;
 import akka.management.javadsl.AkkaManagement;
 import com.joborchestratorai.akkajoborchestratorai.actors.ClusteredMasterActor;
+import com.joborchestratorai.akkajoborchestratorai.services.ClusteredStorageService;
+import com.joborchestratorai.akkajoborchestratorai.services.DatasetCatalog;
+import com.joborchestratorai.akkajoborchestratorai.services.OpenAIService;
+import com.joborchestratorai.akkajoborchestratorai.storage.PointStore;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -21,6 +26,27 @@ public class ClusteredAkkaConfig {
     @Value("${akka.management.http.port:8558}")
     private int managementPort;
 
+    @Autowired
+    private ResumeSearchProperties searchProperties;
+
+    @Autowired
+    private DispatcherProperties dispatcherProperties;
+
+    @Autowired
+    private IngestProperties ingestProperties;
+
+    @Autowired
+    private OpenAIService openAIService;
+
+    @Autowired
+    private ClusteredStorageService storageService;
+
+    @Autowired
+    private PointStore pointStore;
+
+    @Autowired
+    private DatasetCatalog datasetCatalog;
+
     @Bean
     public Config clusteredAkkaConfiguration() {  // Changed name to avoid conflicts
         return ConfigFactory.parseString(String.format("""
@@ -36,6 +62,8 @@ public class ClusteredAkkaConfig {
                   "com.joborchestratorai.akkajoborchestratorai.actors.ResumeShardActor$Command" = java
                   "com.joborchestratorai.akkajoborchestratorai.actors.ClusteredMasterActor$Command" = java
                   "java.io.Serializable" = java
+                  # Replicated in the dataset catalog; the replicator serializes it even on a single node
+                  "com.joborchestratorai.akkajoborchestratorai.models.DatasetInfo" = jackson-json
                 }
               }
               
@@ -64,13 +92,15 @@ public class ClusteredAkkaConfig {
                 }
               }
             }
-            """, akkaPort, managementPort));
+            """, akkaPort, managementPort)).withFallback(searchProperties.toAkkaConfig())
+                .withFallback(dispatcherProperties.toAkkaConfig())
+                .withFallback(ingestProperties.toAkkaConfig());
     }
 
     @Bean(destroyMethod = "terminate")
     public ActorSystem<ClusteredMasterActor.Command> clusteredActorSystem() {
         ActorSystem<ClusteredMasterActor.Command> system = ActorSystem.create(
-                ClusteredMasterActor.create(),
+                ClusteredMasterActor.create(openAIService, storageService, pointStore, datasetCatalog),
                 "resume-search-system",
                 clusteredAkkaConfiguration()  // Use the renamed method
         );
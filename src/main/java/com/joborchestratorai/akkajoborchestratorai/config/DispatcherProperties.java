@@ -0,0 +1,60 @@
+package com.joborchestratorai.akkajoborchestratorai.config;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Dedicated dispatchers for actors that block or burn CPU, so they cannot starve the default
+ * dispatcher that runs MasterActor, the cluster heartbeats and sharding.
+ * Sizes come from the {@code resume.dispatchers.*} Spring properties.
+ */
+@Component
+public class DispatcherProperties {
+
+    public static final String FILE_IO = "resume-dispatchers.file-io";
+    public static final String STORAGE_IO = "resume-dispatchers.storage-io";
+    public static final String OPENAI = "resume-dispatchers.openai";
+    public static final String SHARD = "resume-dispatchers.shard";
+
+    @Value("${resume.dispatchers.file-io.pool-size:2}")
+    private int fileIoPoolSize;
+
+    @Value("${resume.dispatchers.storage-io.pool-size:2}")
+    private int storageIoPoolSize;
+
+    @Value("${resume.dispatchers.openai.pool-size:4}")
+    private int openAIPoolSize;
+
+    @Value("${resume.dispatchers.shard.pool-size:4}")
+    private int shardPoolSize;
+
+    public Config toAkkaConfig() {
+        return ConfigFactory.parseString(String.format(Locale.ROOT, """
+            resume-dispatchers {
+              file-io = ${resume-dispatchers.defaults} {
+                instrumented-pool.size = %d
+              }
+              storage-io = ${resume-dispatchers.defaults} {
+                instrumented-pool.size = %d
+              }
+              openai = ${resume-dispatchers.defaults} {
+                instrumented-pool.size = %d
+              }
+              shard = ${resume-dispatchers.defaults} {
+                instrumented-pool.size = %d
+              }
+              defaults {
+                type = Dispatcher
+                executor = "%s"
+                # Hand the thread back after every message so one busy actor cannot hog the pool
+                throughput = 1
+              }
+            }
+            """, fileIoPoolSize, storageIoPoolSize, openAIPoolSize, shardPoolSize,
+                InstrumentedExecutorConfigurator.class.getName())).resolve();
+    }
+}
@@ -0,0 +1,67 @@
+package com.joborchestratorai.akkajoborchestratorai.config;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Bridges the {@code resume.ingest.*} Spring properties into the actor system config
+ * for the upload ingestion pipeline.
+ */
+@Component
+public class IngestProperties {
+
+    @Value("${resume.ingest.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${resume.ingest.buffer-chunks:4}")
+    private int bufferChunks;
+
+    @Value("${resume.ingest.normalize-parallelism:2}")
+    private int normalizeParallelism;
+
+    @Value("${resume.ingest.index-timeout:30s}")
+    private Duration indexTimeout;
+
+    @Value("${resume.ingest.timeout:30m}")
+    private Duration timeout;
+
+    @Value("${resume.ingest.columns:A}")
+    private String columns;
+
+    @Value("${resume.ingest.sheets:first}")
+    private String sheets;
+
+    @Value("${resume.ingest.sheet-parallelism:0}")
+    private int sheetParallelism;
+
+    @Value("${resume.ingest.dedupe.similarity-threshold:0.8}")
+    private double similarityThreshold;
+
+    @Value("${resume.ingest.dedupe.min-words:3}")
+    private int minWords;
+
+    public Config toAkkaConfig() {
+        return ConfigFactory.parseString(String.format(Locale.ROOT, """
+            resume-ingest {
+              chunk-size = %d
+              buffer-chunks = %d
+              normalize-parallelism = %d
+              index-timeout = %d ms
+              timeout = %d ms
+              columns = "%s"
+              sheets = "%s"
+              sheet-parallelism = %d
+              dedupe {
+                similarity-threshold = %s
+                min-words = %d
+              }
+            }
+            """, chunkSize, bufferChunks, normalizeParallelism, indexTimeout.toMillis(), timeout.toMillis(),
+                columns, sheets, sheetParallelism, similarityThreshold, minWords));
+    }
+}
@@ -0,0 +1,70 @@
+package com.joborchestratorai.akkajoborchestratorai.config;
+
+import akka.dispatch.DispatcherPrerequisites;
+import akka.dispatch.ExecutorServiceConfigurator;
+import akka.dispatch.ExecutorServiceFactory;
+import com.joborchestratorai.akkajoborchestratorai.services.MetricsRegistry;
+import com.typesafe.config.Config;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size thread pool for Akka dispatchers that reports its load to {@link MetricsRegistry}
+ * under {@code dispatcher.<name>.*}. Referenced by class name from the dispatcher config.
+ */
+public class InstrumentedExecutorConfigurator extends ExecutorServiceConfigurator {
+
+    private final int poolSize;
+
+    public InstrumentedExecutorConfigurator(Config config, DispatcherPrerequisites prerequisites) {
+        super(config, prerequisites);
+        this.poolSize = Math.max(config.getInt("instrumented-pool.size"), 1);
+    }
+
+    @Override
+    public ExecutorServiceFactory createExecutorServiceFactory(String id, ThreadFactory threadFactory) {
+        String name = id.substring(id.lastIndexOf('.') + 1);
+        return () -> new InstrumentedThreadPool(name, poolSize, threadFactory);
+    }
+
+    private static class InstrumentedThreadPool extends ThreadPoolExecutor {
+
+        private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+        private final MetricsRegistry.Timer taskTimer;
+        private final LongAdder busyNanos = new LongAdder();
+        private final ThreadLocal<Long> taskStart = new ThreadLocal<>();
+        private final long startedAt = System.nanoTime();
+
+        InstrumentedThreadPool(String name, int poolSize, ThreadFactory threadFactory) {
+            super(poolSize, poolSize, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+            String prefix = "dispatcher." + name;
+            this.taskTimer = metrics.timer(prefix + ".task");
+            metrics.gauge(prefix + ".pool-size", this::getPoolSize);
+            metrics.gauge(prefix + ".active-threads", this::getActiveCount);
+            metrics.gauge(prefix + ".queued-tasks", () -> getQueue().size());
+            metrics.gauge(prefix + ".utilisation-percent", this::utilisationPercent);
+        }
+
+        @Override
+        protected void beforeExecute(Thread thread, Runnable task) {
+            taskStart.set(System.nanoTime());
+        }
+
+        @Override
+        protected void afterExecute(Runnable task, Throwable error) {
+            long elapsed = System.nanoTime() - taskStart.get();
+            busyNanos.add(elapsed);
+            taskTimer.record(elapsed);
+        }
+
+        // Share of the pool's thread time spent running tasks since the dispatcher started
+        private double utilisationPercent() {
+            double available = (double) (System.nanoTime() - startedAt) * getMaximumPoolSize();
+            return available <= 0 ? 0.0 : 100.0 * busyNanos.sum() / available;
+        }
+    }
+}
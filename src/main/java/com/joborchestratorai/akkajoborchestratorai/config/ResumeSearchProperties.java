@@ -0,0 +1,88 @@
+package com.joborchestratorai.akkajoborchestratorai.config;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Bridges the {@code resume.search.*} Spring properties into the actor system config,
+ * which is where the actors read their {@code SearchSettings} from. The scatter-gather
+ * settings are only used on the Spring side and are read from the getters instead.
+ */
+@Component
+public class ResumeSearchProperties {
+
+    @Value("${resume.search.mode:hybrid}")
+    private String mode;
+
+    @Value("${resume.search.bm25.k1:1.2}")
+    private double bm25K1;
+
+    @Value("${resume.search.bm25.b:0.75}")
+    private double bm25B;
+
+    @Value("${resume.search.rerank.candidate-source:lexical}")
+    private String rerankCandidateSource;
+
+    @Value("${resume.search.rerank.candidates:50}")
+    private int rerankCandidates;
+
+    @Value("${resume.search.vector.embedder:hashing}")
+    private String vectorEmbedder;
+
+    @Value("${resume.search.vector.dimensions:256}")
+    private int vectorDimensions;
+
+    @Value("${resume.search.vector.hnsw.m:16}")
+    private int hnswM;
+
+    @Value("${resume.search.vector.hnsw.ef-construction:200}")
+    private int hnswEfConstruction;
+
+    @Value("${resume.search.vector.hnsw.ef-search:64}")
+    private int hnswEfSearch;
+
+    @Value("${resume.search.scatter-gather.deadline:10s}")
+    private Duration scatterGatherDeadline;
+
+    @Value("${resume.search.scatter-gather.allow-partial-results:true}")
+    private boolean allowPartialResults;
+
+    public Duration getScatterGatherDeadline() {
+        return scatterGatherDeadline;
+    }
+
+    public boolean isAllowPartialResults() {
+        return allowPartialResults;
+    }
+
+    public Config toAkkaConfig() {
+        return ConfigFactory.parseString(String.format(Locale.ROOT, """
+            resume-search {
+              mode = "%s"
+              bm25 {
+                k1 = %f
+                b = %f
+              }
+              rerank {
+                candidate-source = "%s"
+                candidates = %d
+              }
+              vector {
+                embedder = "%s"
+                dimensions = %d
+                hnsw {
+                  m = %d
+                  ef-construction = %d
+                  ef-search = %d
+                }
+              }
+            }
+            """, mode, bm25K1, bm25B, rerankCandidateSource, rerankCandidates,
+                vectorEmbedder, vectorDimensions, hnswM, hnswEfConstruction, hnswEfSearch));
+    }
+}
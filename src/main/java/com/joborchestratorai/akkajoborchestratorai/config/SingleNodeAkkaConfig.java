@@ -2,6 +2,12 @@ package com.joborchestratorai.akkajoborchestratorai.config;
 
 import akka.actor.typed.ActorSystem;
 import com.joborchestratorai.akkajoborchestratorai.actors.MasterActor;
+import com.joborchestratorai.akkajoborchestratorai.services.LocalStorageService;
+import com.joborchestratorai.akkajoborchestratorai.services.OpenAIService;
+import com.joborchestratorai.akkajoborchestratorai.services.WriteBehindWriter;
+import com.joborchestratorai.akkajoborchestratorai.storage.PointStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
@@ -12,6 +18,30 @@ import com.typesafe.config.ConfigFactory;
 @Profile("single-node")
 public class SingleNodeAkkaConfig {
 
+    @Autowired
+    private ResumeSearchProperties searchProperties;
+
+    @Autowired
+    private DispatcherProperties dispatcherProperties;
+
+    @Autowired
+    private IngestProperties ingestProperties;
+
+    @Autowired
+    private StorageProperties storageProperties;
+
+    @Autowired
+    private OpenAIService openAIService;
+
+    @Autowired
+    private LocalStorageService storageService;
+
+    @Autowired
+    private PointStore pointStore;
+
+    @Value("${resume.llm.pool-size:4}")
+    private int openAIPoolSize;
+
     @Bean
     public Config singleNodeAkkaConfiguration() {  // Changed name to avoid conflicts
         return ConfigFactory.parseString("""
@@ -20,13 +50,30 @@ public class SingleNodeAkkaConfig {
                 provider = local
               }
             }
-            """).withFallback(ConfigFactory.load());
+            """)
+                .withFallback(searchProperties.toAkkaConfig())
+                .withFallback(dispatcherProperties.toAkkaConfig())
+                .withFallback(ingestProperties.toAkkaConfig())
+                .withFallback(ConfigFactory.load());
+    }
+
+    // One writer for the node's storage directory; Spring closes it after the actor system that uses it
+    @Bean(destroyMethod = "close")
+    public WriteBehindWriter writeBehindWriter() {
+        if (!storageProperties.isWriteBehindEnabled()) {
+            // The storage actor then writes every upload synchronously
+            return null;
+        }
+        WriteBehindWriter writer = new WriteBehindWriter(storageService,
+                storageProperties.getFlushInterval(), storageProperties.getMaxBatch());
+        writer.start();
+        return writer;
     }
 
     @Bean(destroyMethod = "terminate")
     public ActorSystem<MasterActor.Command> singleNodeActorSystem() {
         return ActorSystem.create(
-                MasterActor.create(),
+                MasterActor.create(openAIService, storageService, pointStore, writeBehindWriter(), openAIPoolSize),
                 "resume-search-system",
                 singleNodeAkkaConfiguration()  // Use the renamed method
         );
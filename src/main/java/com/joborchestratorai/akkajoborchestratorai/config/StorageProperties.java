@@ -0,0 +1,35 @@
+package com.joborchestratorai.akkajoborchestratorai.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * The {@code resume.storage.write-behind.*} Spring properties, used to create the
+ * write-behind writer that the storage actor is handed.
+ */
+@Component
+public class StorageProperties {
+
+    @Value("${resume.storage.write-behind.enabled:true}")
+    private boolean writeBehindEnabled;
+
+    @Value("${resume.storage.write-behind.flush-interval:2ms}")
+    private Duration flushInterval;
+
+    @Value("${resume.storage.write-behind.max-batch:64}")
+    private int maxBatch;
+
+    public boolean isWriteBehindEnabled() {
+        return writeBehindEnabled;
+    }
+
+    public Duration getFlushInterval() {
+        return flushInterval;
+    }
+
+    public int getMaxBatch() {
+        return maxBatch;
+    }
+}
@@ -0,0 +1,19 @@
+package com.joborchestratorai.akkajoborchestratorai.controllers;
+
+import com.joborchestratorai.akkajoborchestratorai.services.MetricsRegistry;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api")
+public class MetricsController {
+
+    @GetMapping("/metrics")
+    public ResponseEntity<Map<String, Object>> metrics() {
+        return ResponseEntity.ok(MetricsRegistry.getInstance().snapshot());
+    }
+}
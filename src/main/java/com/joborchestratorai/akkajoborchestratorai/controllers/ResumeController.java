@@ -3,10 +3,13 @@ package com.joborchestratorai.akkajoborchestratorai.controllers;
 
 import com.joborchestratorai.akkajoborchestratorai.models.SearchRequest;
 import com.joborchestratorai.akkajoborchestratorai.models.SearchResult;
+import com.joborchestratorai.akkajoborchestratorai.models.UploadJob;
 import com.joborchestratorai.akkajoborchestratorai.services.ResumeSearchService;
 import com.joborchestratorai.akkajoborchestratorai.services.OpenAIService;
 import org.springframework.context.annotation.Profile;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
@@ -32,7 +35,7 @@ public class ResumeController {
         this.openAIService = openAIService;
     }
 
-    // Upload endpoint
+    // Upload endpoint; answers 202 with a job id as soon as the file is saved, see /api/jobs/{id}
     @PostMapping("/upload")
     public ResponseEntity<Map<String, String>> uploadExcel(@RequestParam("file") MultipartFile file) {
         try {
@@ -52,14 +55,17 @@ public class ResumeController {
             Path tempFile = Files.createTempFile("resume-", ".xlsx");
             file.transferTo(tempFile.toFile());
 
-            resumeSearchService.indexExcelFile(tempFile.toString());
+            UploadJob job = resumeSearchService.submitExcelFile(tempFile.toString(), originalFilename);
 
             Map<String, String> response = new HashMap<>();
-            response.put("message", "Resume data uploaded and indexed successfully");
+            response.put("message", "Resume data uploaded and queued for indexing");
             response.put("filename", originalFilename);
-            response.put("status", "success");
+            response.put("status", "accepted");
+            response.put("jobId", job.getId());
+            response.put("statusUrl", "/api/jobs/" + job.getId());
+            response.put("eventsUrl", "/api/jobs/" + job.getId() + "/events");
 
-            return ResponseEntity.ok(response);
+            return ResponseEntity.accepted().body(response);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("error", "Failed to process file: " + e.getMessage());
@@ -68,6 +74,39 @@ public class ResumeController {
         }
     }
 
+    // Streaming upload: the raw request body is the .xlsx itself, with no multipart buffering and
+    // no multipart size limit; POI unpacks the zip before parsing, spilling large entries to temp files
+    @PostMapping(value = "/upload/stream", consumes = {
+            MediaType.APPLICATION_OCTET_STREAM_VALUE,
+            "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"
+    })
+    public ResponseEntity<Map<String, String>> uploadExcelStream(
+            @RequestParam(value = "filename", defaultValue = "upload.xlsx") String filename,
+            HttpServletRequest request) {
+        try {
+            UploadJob job = resumeSearchService.ingestExcelStream(request.getInputStream(), filename);
+
+            Map<String, String> response = new HashMap<>();
+            response.put("filename", filename);
+            response.put("jobId", job.getId());
+            response.put("statusUrl", "/api/jobs/" + job.getId());
+            response.put("eventsUrl", "/api/jobs/" + job.getId() + "/events");
+            if (UploadJob.FAILED.equals(job.getState())) {
+                response.put("status", "error");
+                response.put("error", job.getError());
+                return ResponseEntity.badRequest().body(response);
+            }
+            response.put("message", "Resume data parsed and queued for storage");
+            response.put("status", "accepted");
+            return ResponseEntity.accepted().body(response);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Failed to process upload: " + e.getMessage());
+            error.put("status", "error");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+        }
+    }
+
     // Generate tailored LaTeX resume
     @PostMapping("/generate-resume")
     public ResponseEntity<Map<String, String>> generateTailoredResume(@RequestBody Map<String, String> request) {
@@ -99,7 +138,8 @@ public class ResumeController {
     // Legacy search for resume points (keeping for compatibility)
     @PostMapping("/search")
     public CompletionStage<ResponseEntity<List<SearchResult>>> search(@RequestBody SearchRequest request) {
-        return resumeSearchService.searchResumes(request.getJobDescription(), request.getTopK())
+        return resumeSearchService.searchResumes(request.getJobDescription(), request.getTopK(),
+                        request.getCandidatePoolSize())
                 .thenApply(ResponseEntity::ok)
                 .exceptionally(ex -> ResponseEntity.internalServerError().build());
     }
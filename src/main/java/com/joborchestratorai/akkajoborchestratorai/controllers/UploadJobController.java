@@ -0,0 +1,36 @@
+package com.joborchestratorai.akkajoborchestratorai.controllers;
+
+import com.joborchestratorai.akkajoborchestratorai.models.UploadJob;
+import com.joborchestratorai.akkajoborchestratorai.services.UploadJobRegistry;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/jobs")
+@CrossOrigin
+public class UploadJobController {
+
+    private final UploadJobRegistry jobRegistry;
+
+    public UploadJobController(UploadJobRegistry jobRegistry) {
+        this.jobRegistry = jobRegistry;
+    }
+
+    // Poll the current state of an upload
+    @GetMapping("/{id}")
+    public ResponseEntity<UploadJob> getJob(@PathVariable String id) {
+        return jobRegistry.get(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Stream progress as Server-Sent Events until the job is done or failed
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamJob(@PathVariable String id) {
+        return jobRegistry.subscribe(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,238 @@
+package com.joborchestratorai.akkajoborchestratorai.ingest;
+
+import akka.japi.Pair;
+import akka.stream.ActorAttributes;
+import akka.stream.Materializer;
+import akka.stream.OverflowStrategy;
+import akka.stream.QueueOfferResult;
+import akka.stream.javadsl.Keep;
+import akka.stream.javadsl.Sink;
+import akka.stream.javadsl.Source;
+import akka.stream.javadsl.SourceQueueWithComplete;
+import com.joborchestratorai.akkajoborchestratorai.models.IngestionStatus;
+import com.joborchestratorai.akkajoborchestratorai.models.ResumeData;
+import com.joborchestratorai.akkajoborchestratorai.services.ClusteredStorageService;
+import com.joborchestratorai.akkajoborchestratorai.services.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Streams one uploaded workbook into a dataset: read, normalize, dedupe, diff, index, persist.
+ * Chunks flow through bounded buffers, so a slow stage (usually indexing) backpressures
+ * the SAX reader instead of letting parsed rows pile up in memory.
+ * <p>
+ * A re-upload is diffed against the points already in the dataset by content hash: only
+ * added points are indexed and only points missing from the new upload are removed, so
+ * the index work is proportional to the change rather than to the dataset. The diff is
+ * made by the index itself, so the pipeline holds the keys of the upload but never the
+ * text of the dataset.
+ */
+public class DatasetIngestionPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatasetIngestionPipeline.class);
+    private static final long LOG_EVERY_POINTS = 10_000;
+
+    private final IngestSettings settings;
+    private final Materializer materializer;
+    private final Executor readExecutor;
+    private final Executor cpuExecutor;
+    private final Executor persistExecutor;
+    private final String streamDispatcher;
+    private final ClusteredStorageService storageService;
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+
+    /**
+     * The reader parks a thread of {@code readExecutor} for the whole upload, so it must not be the
+     * executor the other stages depend on.
+     */
+    public DatasetIngestionPipeline(IngestSettings settings, Materializer materializer, Executor readExecutor,
+                                    Executor cpuExecutor, Executor persistExecutor, String streamDispatcher,
+                                    ClusteredStorageService storageService) {
+        this.settings = settings;
+        this.materializer = materializer;
+        this.readExecutor = readExecutor;
+        this.cpuExecutor = cpuExecutor;
+        this.persistExecutor = persistExecutor;
+        this.streamDispatcher = streamDispatcher;
+        this.storageService = storageService;
+    }
+
+    /**
+     * Runs the pipeline against the dataset's index. {@code index} receives the unique points of each chunk
+     * in order, adds those not indexed yet and completes with them; the next chunk is not sent until it
+     * completes. Once the upload has been read, {@code retain} receives the content keys of all its points,
+     * removes every indexed point not among them and completes with the removed points. {@code lookup}
+     * completes with the indexed points for the given content keys. {@code onProgress} is called after
+     * every chunk.
+     */
+    public CompletionStage<IngestionStatus> run(String datasetId, Path file,
+                                                Function<List<String>, CompletionStage<List<String>>> index,
+                                                Function<Set<Long>, CompletionStage<List<String>>> retain,
+                                                Function<Set<Long>, CompletionStage<List<String>>> lookup,
+                                                Consumer<IngestionStatus> onProgress) {
+        Progress progress = new Progress(datasetId);
+        NearDuplicateDetector detector = new NearDuplicateDetector(settings.similarityThreshold);
+        Set<Long> keptKeys = new HashSet<>();
+
+        Pair<SourceQueueWithComplete<List<String>>, CompletionStage<IngestionStatus>> materialized =
+                Source.<List<String>>queue(settings.bufferChunks, OverflowStrategy.backpressure())
+                        .mapAsync(settings.normalizeParallelism,
+                                chunk -> CompletableFuture.supplyAsync(
+                                        () -> PointNormalizer.normalizeAll(chunk, settings.minWords), cpuExecutor))
+                        // Single stage, so the detector is only ever touched by one thread at a time
+                        .map(chunk -> keep(dedupe(chunk, detector, progress), keptKeys))
+                        .filter(chunk -> !chunk.isEmpty())
+                        .mapAsync(1, chunk -> index.apply(chunk).thenApply(added -> new ChunkDiff(chunk.size(), added)))
+                        .map(chunk -> {
+                            progress.ingested(chunk.kept, chunk.added.size());
+                            onProgress.accept(progress.snapshot(IngestionStatus.INDEXING, null));
+                            return chunk;
+                        })
+                        // Unchanged points are already stored, so only their count is carried to the end
+                        .fold(new ChunkDiff(0, new ArrayList<>()), (all, chunk) -> {
+                            all.added.addAll(chunk.added);
+                            return new ChunkDiff(all.kept + chunk.kept, all.added);
+                        })
+                        // Only now is it known which previous points the upload no longer contains
+                        .mapAsync(1, diff -> retain.apply(keptKeys).thenApply(removed -> {
+                            diff.removed = removed;
+                            progress.removed(removed.size());
+                            return diff;
+                        }))
+                        // Every canonical point is indexed by now, whether it was added or already there
+                        .mapAsync(1, diff -> detector.getMergedCanonicalKeys().isEmpty()
+                                ? CompletableFuture.completedFuture(diff)
+                                : lookup.apply(detector.getMergedCanonicalKeys()).thenApply(canonical -> {
+                                    diff.canonical = canonical;
+                                    return diff;
+                                }))
+                        .mapAsync(1, diff -> CompletableFuture.supplyAsync(
+                                () -> persist(datasetId, file, diff, detector, progress), persistExecutor))
+                        .withAttributes(ActorAttributes.dispatcher(streamDispatcher))
+                        .toMat(Sink.head(), Keep.both())
+                        .run(materializer);
+
+        SourceQueueWithComplete<List<String>> queue = materialized.first();
+        CompletableFuture.runAsync(() -> readInto(file, queue, progress), readExecutor);
+        return materialized.second();
+    }
+
+    // Runs on an IO thread; blocking on offer is what propagates backpressure into the SAX parser
+    private void readInto(Path file, SourceQueueWithComplete<List<String>> queue, Progress progress) {
+        try {
+            new StreamingExcelReader(settings).read(file, chunk -> {
+                progress.read(chunk.size());
+                QueueOfferResult result = queue.offer(chunk).toCompletableFuture().join();
+                if (result != QueueOfferResult.enqueued()) {
+                    throw new IllegalStateException("Ingestion stream stopped accepting chunks: " + result);
+                }
+            });
+            queue.complete();
+        } catch (Exception e) {
+            queue.fail(e);
+        }
+    }
+
+    private List<String> dedupe(List<String> chunk, NearDuplicateDetector detector, Progress progress) {
+        List<String> unique = detector.addAll(chunk);
+        progress.duplicates(chunk.size() - unique.size());
+        return unique;
+    }
+
+    // Runs in the single dedupe stage, like the detector, so the key set needs no locking
+    private List<String> keep(List<String> unique, Set<Long> keptKeys) {
+        for (String point : unique) {
+            keptKeys.add(PointNormalizer.dedupeKey(point));
+        }
+        return unique;
+    }
+
+    private IngestionStatus persist(String datasetId, Path file, ChunkDiff diff,
+                                    NearDuplicateDetector detector, Progress progress) {
+        try {
+            // An unchanged re-upload leaves the stored dataset as it is
+            if (!diff.added.isEmpty() || !diff.removed.isEmpty() || !storageService.hasDatasetData(datasetId)) {
+                // Metadata only: the points are in the log already or in the change written with it
+                ResumeData resumeData = new ResumeData(datasetId, file.getFileName().toString(), List.of());
+                resumeData.setMergedPoints(detector.getMergedPoints(diff.canonical));
+                // Only the change is written, so storage costs are proportional to it as well
+                storageService.storeDatasetChanges(datasetId, resumeData, diff.added, diff.removed);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to persist dataset " + datasetId + ": " + e.getMessage(), e);
+        }
+        IngestionStatus status = progress.snapshot(IngestionStatus.COMPLETED, null);
+        metrics.timer("ingest.dataset").record(status.getElapsedMillis() * 1_000_000);
+        logger.info("Ingested dataset {}: {} points read, {} kept ({} added, {} removed), {} duplicates dropped in {} ms",
+                datasetId, status.getPointsRead(), status.getPointsIngested(), progress.added.get(),
+                progress.removed.get(), status.getDuplicatesDropped(), status.getElapsedMillis());
+        return status;
+    }
+
+    private static class ChunkDiff {
+        final int kept;
+        final List<String> added;
+        // Only known for the whole upload, after the last chunk
+        List<String> removed = List.of();
+        // The points near-duplicates were merged into, looked up in the index
+        List<String> canonical = List.of();
+
+        ChunkDiff(int kept, List<String> added) {
+            this.kept = kept;
+            this.added = added;
+        }
+    }
+
+    private class Progress {
+        private final String datasetId;
+        private final long startedAt = System.nanoTime();
+        private final AtomicLong read = new AtomicLong();
+        private final AtomicLong ingested = new AtomicLong();
+        private final AtomicLong duplicates = new AtomicLong();
+        private final AtomicLong added = new AtomicLong();
+        private final AtomicLong removed = new AtomicLong();
+
+        Progress(String datasetId) {
+            this.datasetId = datasetId;
+        }
+
+        void read(int count) {
+            read.addAndGet(count);
+            metrics.counter("ingest.points.read").add(count);
+        }
+
+        void duplicates(int count) {
+            duplicates.addAndGet(count);
+            metrics.counter("ingest.points.duplicates").add(count);
+        }
+
+        void ingested(int count, int addedCount) {
+            long before = ingested.getAndAdd(count);
+            added.addAndGet(addedCount);
+            metrics.counter("ingest.points.indexed").add(addedCount);
+            metrics.counter("ingest.points.unchanged").add(count - addedCount);
+            if ((before + count) / LOG_EVERY_POINTS > before / LOG_EVERY_POINTS) {
+                logger.info("Dataset {}: {} points read, {} indexed so far", datasetId, read.get(), before + count);
+            }
+        }
+
+        void removed(int count) {
+            removed.addAndGet(count);
+            metrics.counter("ingest.points.removed").add(count);
+        }
+
+        IngestionStatus snapshot(String state, String error) {
+            return new IngestionStatus(datasetId, state, read.get(), ingested.get(), duplicates.get(),
+                    (System.nanoTime() - startedAt) / 1_000_000, error);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.joborchestratorai.akkajoborchestratorai.ingest;
+
+import com.typesafe.config.Config;
+import org.apache.poi.ss.util.CellReference;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Ingestion tuning read from the {@code resume-ingest} block of the actor system config,
+ * which the Spring config classes populate from {@code resume.ingest.*} properties.
+ */
+public class IngestSettings {
+    public final int chunkSize;
+    public final int bufferChunks;
+    public final int normalizeParallelism;
+    public final Duration indexTimeout;
+    public final Duration timeout;
+    /** Zero-based indexes of the spreadsheet columns holding resume points. */
+    public final List<Integer> columns;
+    public final boolean allSheets;
+    public final int sheetParallelism;
+    /** Minimum Jaccard similarity at which two points count as duplicates; 1 keeps near-duplicates. */
+    public final double similarityThreshold;
+    public final int minWords;
+
+    public IngestSettings(int chunkSize, int bufferChunks, int normalizeParallelism,
+                          Duration indexTimeout, Duration timeout,
+                          List<Integer> columns, boolean allSheets, int sheetParallelism,
+                          double similarityThreshold, int minWords) {
+        this.chunkSize = Math.max(chunkSize, 1);
+        this.bufferChunks = Math.max(bufferChunks, 1);
+        this.normalizeParallelism = Math.max(normalizeParallelism, 1);
+        this.indexTimeout = indexTimeout;
+        this.timeout = timeout;
+        this.columns = columns.isEmpty() ? List.of(0) : List.copyOf(columns);
+        this.allSheets = allSheets;
+        // Zero means one sheet task per core
+        this.sheetParallelism = sheetParallelism > 0 ? sheetParallelism : Runtime.getRuntime().availableProcessors();
+        this.similarityThreshold = similarityThreshold;
+        this.minWords = Math.max(minWords, 1);
+    }
+
+    public static IngestSettings fromConfig(Config config) {
+        Config ingest = config.getConfig("resume-ingest");
+        return new IngestSettings(
+                ingest.getInt("chunk-size"),
+                ingest.getInt("buffer-chunks"),
+                ingest.getInt("normalize-parallelism"),
+                ingest.getDuration("index-timeout"),
+                ingest.getDuration("timeout"),
+                parseColumns(ingest.getString("columns")),
+                "all".equalsIgnoreCase(ingest.getString("sheets")),
+                ingest.getInt("sheet-parallelism"),
+                ingest.getDouble("dedupe.similarity-threshold"),
+                ingest.getInt("dedupe.min-words")
+        );
+    }
+
+    /**
+     * Parses a comma-separated list of Excel column letters, e.g. {@code "A,C"}.
+     */
+    static List<Integer> parseColumns(String columns) {
+        return List.of(columns.split(",")).stream()
+                .map(String::trim)
+                .filter(column -> !column.isEmpty())
+                .map(CellReference::convertColStringToIndex)
+                .distinct()
+                .collect(Collectors.toList());
+    }
+}
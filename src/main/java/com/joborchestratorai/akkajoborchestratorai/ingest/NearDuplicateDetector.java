@@ -0,0 +1,349 @@
+package com.joborchestratorai.akkajoborchestratorai.ingest;
+
+import com.joborchestratorai.akkajoborchestratorai.search.Tokenizer;
+
+import java.util.*;
+
+/**
+ * Collapses near-identical resume points into the first one seen, using MinHash signatures
+ * over character shingles and LSH banding to find candidates without comparing every pair.
+ * Candidates are confirmed by the similarity their stored signatures estimate, so the banding
+ * only decides what gets compared, never what gets merged.
+ * <p>
+ * Only hashes are kept per point: its content key, the band keys and an 8-bit-per-row signature,
+ * about 250 bytes in all, so a detector over millions of points does not hold their text.
+ * Merged points are kept as back-references on the key of their canonical point. Not thread-safe;
+ * one detector covers one dataset and is fed from a single stage.
+ */
+public class NearDuplicateDetector {
+
+    private static final int SHINGLE_SIZE = 4;
+    // 12 bands of 4 rows: pairs at 0.8 similarity share a band 99.8% of the time, pairs at 0.5 about 50%
+    private static final int BANDS = 12;
+    private static final int ROWS = 4;
+    // The bands use the first 48 rows; confirming a candidate uses all of them, since the similarity
+    // estimate from 96 rows is off by about 0.04 where one from 48 would be off by 0.06
+    private static final int SIGNATURE_SIZE = 96;
+    // Templated bullets ("Delivered project X for client Y") can pile thousands of points into one bucket;
+    // capping buckets and comparisons keeps a point's cost constant instead of growing with the dataset
+    private static final int MAX_BUCKET_SIZE = 32;
+    private static final int MAX_CANDIDATES = 64;
+    private static final long[] SEEDS = new long[SIGNATURE_SIZE];
+
+    static {
+        Random random = new Random(0x5eed);
+        for (int i = 0; i < SEEDS.length; i++) {
+            SEEDS[i] = random.nextLong();
+        }
+    }
+
+    private final double threshold;
+    private final LongSet exact = new LongSet();
+    // Indexed by canonical id: its content key, and the low byte of each of its MinHash values
+    private long[] canonicalKeys = new long[1024];
+    private byte[] signatures = new byte[1024 * SIGNATURE_SIZE];
+    private int canonicalCount;
+    private final BandTable buckets = new BandTable();
+    private final Map<Long, List<String>> mergedPoints = new LinkedHashMap<>();
+    private int duplicates;
+
+    /**
+     * A threshold of 1 or more turns near-duplicate detection off and only drops exact
+     * (case-insensitive) duplicates.
+     */
+    public NearDuplicateDetector(double threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * Returns the points of {@code normalizedPoints} that are neither duplicates of an earlier point
+     * nor of each other, in order.
+     */
+    public List<String> addAll(List<String> normalizedPoints) {
+        List<String> unique = new ArrayList<>(normalizedPoints.size());
+        for (String point : normalizedPoints) {
+            if (add(point)) {
+                unique.add(point);
+            }
+        }
+        return unique;
+    }
+
+    /**
+     * Returns true when the point is new and becomes a canonical point itself.
+     */
+    public boolean add(String normalizedPoint) {
+        long key = PointNormalizer.dedupeKey(normalizedPoint);
+        if (!exact.add(key)) {
+            duplicates++;
+            return false;
+        }
+        if (threshold >= 1.0) {
+            return true;
+        }
+
+        int[] signature = signature(shingles(normalizedPoint));
+        int[] bandKeys = bandKeys(signature);
+        int match = findMatch(signature, bandKeys);
+        if (match >= 0) {
+            duplicates++;
+            mergedPoints.computeIfAbsent(canonicalKeys[match], canonical -> new ArrayList<>()).add(normalizedPoint);
+            return false;
+        }
+
+        int id = canonicalCount++;
+        if (id == canonicalKeys.length) {
+            canonicalKeys = Arrays.copyOf(canonicalKeys, id * 2);
+            signatures = Arrays.copyOf(signatures, id * 2 * SIGNATURE_SIZE);
+        }
+        canonicalKeys[id] = key;
+        for (int i = 0; i < SIGNATURE_SIZE; i++) {
+            signatures[id * SIGNATURE_SIZE + i] = (byte) signature[i];
+        }
+        for (int bandKey : bandKeys) {
+            buckets.add(bandKey, id);
+        }
+        return true;
+    }
+
+    /**
+     * Near-duplicates keyed by the canonical point they were merged into, in source order. The
+     * detector does not keep point text, so the canonical points are looked up in {@code keptPoints},
+     * which has to contain every point {@link #add} kept; other points in it are ignored.
+     */
+    public Map<String, List<String>> getMergedPoints(Iterable<String> keptPoints) {
+        if (mergedPoints.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+        Map<Long, String> canonical = new HashMap<>(mergedPoints.size() * 2);
+        for (String point : keptPoints) {
+            long key = PointNormalizer.dedupeKey(point);
+            if (mergedPoints.containsKey(key)) {
+                canonical.putIfAbsent(key, point);
+            }
+        }
+        Map<String, List<String>> resolved = new LinkedHashMap<>();
+        mergedPoints.forEach((key, merged) -> {
+            String point = canonical.get(key);
+            if (point != null) {
+                resolved.put(point, merged);
+            }
+        });
+        return resolved;
+    }
+
+    /** Content keys of the canonical points that near-duplicates were merged into. */
+    public Set<Long> getMergedCanonicalKeys() {
+        return Collections.unmodifiableSet(mergedPoints.keySet());
+    }
+
+    /** Exact and near duplicates dropped so far. */
+    public int getDuplicates() {
+        return duplicates;
+    }
+
+    private int findMatch(int[] signature, int[] bandKeys) {
+        int[] checked = new int[MAX_CANDIDATES];
+        int checkedCount = 0;
+        int[] candidates = new int[MAX_BUCKET_SIZE];
+        for (int bandKey : bandKeys) {
+            int found = buckets.get(bandKey, candidates);
+            for (int c = 0; c < found; c++) {
+                int id = candidates[c];
+                if (contains(checked, checkedCount, id)) {
+                    continue;
+                }
+                if (checkedCount == MAX_CANDIDATES) {
+                    return -1;
+                }
+                checked[checkedCount++] = id;
+                if (estimatedSimilarity(signature, id) >= threshold) {
+                    return id;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static boolean contains(int[] ids, int count, int id) {
+        for (int i = 0; i < count; i++) {
+            if (ids[i] == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Jaccard similarity estimated from the share of equal signature rows. Only the low 8 bits of a row
+     * are stored, and unrelated rows agree on them 1 time in 256, so that chance is taken out again.
+     */
+    private double estimatedSimilarity(int[] signature, int id) {
+        int offset = id * SIGNATURE_SIZE;
+        int equal = 0;
+        for (int i = 0; i < SIGNATURE_SIZE; i++) {
+            if ((byte) signature[i] == signatures[offset + i]) {
+                equal++;
+            }
+        }
+        double chance = 1.0 / 256;
+        return ((double) equal / SIGNATURE_SIZE - chance) / (1 - chance);
+    }
+
+    private static int[] signature(int[] shingles) {
+        int[] signature = new int[SIGNATURE_SIZE];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (int shingle : shingles) {
+            for (int i = 0; i < SIGNATURE_SIZE; i++) {
+                int hash = (int) mix(shingle ^ SEEDS[i]);
+                if (hash < signature[i]) {
+                    signature[i] = hash;
+                }
+            }
+        }
+        return signature;
+    }
+
+    // Only candidates are looked up by band key, so 32 bits are plenty: a collision costs one comparison
+    private static int[] bandKeys(int[] signature) {
+        int[] keys = new int[BANDS];
+        for (int band = 0; band < BANDS; band++) {
+            // The band number is part of the key so equal rows in different bands do not collide
+            long key = band;
+            for (int row = 0; row < ROWS; row++) {
+                key = mix(key * 31 + signature[band * ROWS + row]);
+            }
+            keys[band] = (int) (key ^ (key >>> 32));
+        }
+        return keys;
+    }
+
+    // Character shingles over the stop-word free tokens, so "delivered" and "delivering" still overlap
+    private static int[] shingles(String point) {
+        String text = String.join(" ", Tokenizer.tokenize(point));
+        if (text.length() <= SHINGLE_SIZE) {
+            return new int[]{text.hashCode()};
+        }
+        int[] shingles = new int[text.length() - SHINGLE_SIZE + 1];
+        for (int i = 0; i < shingles.length; i++) {
+            int hash = 0;
+            for (int j = i; j < i + SHINGLE_SIZE; j++) {
+                hash = 31 * hash + text.charAt(j);
+            }
+            shingles[i] = hash;
+        }
+        return shingles;
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Set of longs with open addressing and linear probing; 0 marks an empty slot, so it is tracked apart.
+     */
+    private static class LongSet {
+        private long[] table = new long[1024];
+        private int size;
+        private boolean hasZero;
+
+        boolean add(long value) {
+            if (value == 0) {
+                boolean added = !hasZero;
+                hasZero = true;
+                return added;
+            }
+            int mask = table.length - 1;
+            int slot = (int) mix(value) & mask;
+            while (table[slot] != 0) {
+                if (table[slot] == value) {
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = value;
+            // Kept at most three quarters full so probe runs stay short
+            if (++size * 4 > table.length * 3) {
+                rehash();
+            }
+            return true;
+        }
+
+        private void rehash() {
+            long[] rehashed = new long[table.length * 2];
+            int mask = rehashed.length - 1;
+            for (long value : table) {
+                if (value != 0) {
+                    int slot = (int) mix(value) & mask;
+                    while (rehashed[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    rehashed[slot] = value;
+                }
+            }
+            table = rehashed;
+        }
+    }
+
+    /**
+     * LSH buckets as one open-addressing multimap from band key to canonical id. Entries with the same
+     * key sit in the same probe run, so a lookup scans that run; a slot holds id + 1, or 0 when empty.
+     */
+    private static class BandTable {
+        private int[] keys = new int[4096];
+        private int[] ids = new int[4096];
+        private int size;
+
+        void add(int key, int id) {
+            int mask = ids.length - 1;
+            int slot = (int) mix(key) & mask;
+            int bucketSize = 0;
+            while (ids[slot] != 0) {
+                if (keys[slot] == key && ++bucketSize >= MAX_BUCKET_SIZE) {
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            ids[slot] = id + 1;
+            if (++size * 4 > ids.length * 3) {
+                rehash();
+            }
+        }
+
+        // Fills {@code found} with the ids under {@code key} and returns how many there are
+        int get(int key, int[] found) {
+            int mask = ids.length - 1;
+            int slot = (int) mix(key) & mask;
+            int count = 0;
+            while (ids[slot] != 0 && count < found.length) {
+                if (keys[slot] == key) {
+                    found[count++] = ids[slot] - 1;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return count;
+        }
+
+        private void rehash() {
+            int[] oldKeys = keys;
+            int[] oldIds = ids;
+            keys = new int[oldIds.length * 2];
+            ids = new int[oldIds.length * 2];
+            int mask = ids.length - 1;
+            for (int i = 0; i < oldIds.length; i++) {
+                if (oldIds[i] != 0) {
+                    int slot = (int) mix(oldKeys[i]) & mask;
+                    while (ids[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    ids[slot] = oldIds[i];
+                }
+            }
+        }
+    }
+}
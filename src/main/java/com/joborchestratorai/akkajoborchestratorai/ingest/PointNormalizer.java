@@ -0,0 +1,65 @@
+package com.joborchestratorai.akkajoborchestratorai.ingest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Cleans up resume points as they come out of a spreadsheet: bullet markers and
+ * repeated whitespace (including non-breaking spaces) are removed, and points too
+ * short to be a real bullet (column headers like "Bullet / Achievement") are dropped.
+ */
+public final class PointNormalizer {
+
+    private static final Pattern LEADING_BULLET = Pattern.compile("^[\\s\\u2022\\u00B7\\u25AA\\u25CF\\u2013\\u2014*\\-]+");
+    private static final Pattern WHITESPACE = Pattern.compile("[\\s\\u00A0]+");
+
+    private PointNormalizer() {}
+
+    public static String normalize(String point) {
+        String collapsed = WHITESPACE.matcher(point).replaceAll(" ").trim();
+        return LEADING_BULLET.matcher(collapsed).replaceFirst("");
+    }
+
+    /**
+     * Normalizes every point and keeps those with at least {@code minWords} words, in order.
+     */
+    public static List<String> normalizeAll(List<String> points, int minWords) {
+        List<String> normalized = new ArrayList<>(points.size());
+        for (String point : points) {
+            String cleaned = normalize(point);
+            if (!cleaned.isEmpty() && wordCount(cleaned) >= minWords) {
+                normalized.add(cleaned);
+            }
+        }
+        return normalized;
+    }
+
+    static int wordCount(String point) {
+        int words = 0;
+        boolean inWord = false;
+        for (int i = 0; i < point.length(); i++) {
+            boolean letterOrDigit = Character.isLetterOrDigit(point.charAt(i));
+            if (letterOrDigit && !inWord) {
+                words++;
+            }
+            inWord = letterOrDigit;
+        }
+        return words;
+    }
+
+    /**
+     * Case-insensitive 64-bit FNV-1a hash used as the duplicate key. Keeping the hash rather
+     * than the text halves the memory of the dedupe stage, and collisions are negligible at 64 bits.
+     */
+    public static long dedupeKey(String normalizedPoint) {
+        String key = normalizedPoint.toLowerCase(Locale.ROOT);
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
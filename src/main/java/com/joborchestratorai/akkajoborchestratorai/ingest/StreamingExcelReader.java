@@ -0,0 +1,255 @@
+package com.joborchestratorai.akkajoborchestratorai.ingest;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.openxml4j.util.ZipInputStreamZipEntrySource;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+/**
+ * Reads resume points from the configured columns of the first or of every sheet with POI's
+ * SAX event API, so the workbook is never loaded as a DOM. Points are handed out in chunks
+ * in source order (sheet, row, column).
+ * <p>
+ * With a single sheet, or a parallelism of one, chunks are emitted while the sheet is still being
+ * parsed. Otherwise each sheet is parsed as its own task on a fork/join pool, and sheets are
+ * released in order as soon as they and every sheet before them are done.
+ */
+public class StreamingExcelReader {
+
+    public static final int DEFAULT_CHUNK_SIZE = 500;
+    public static final int STREAM_TEMP_FILE_THRESHOLD_BYTES = 1024 * 1024;
+
+    private static ForkJoinPool sheetPool;
+
+    // POI keeps the threshold in a JVM-wide static, so it is set once when the reader is first used
+    static {
+        ZipInputStreamZipEntrySource.setThresholdBytesForTempFiles(STREAM_TEMP_FILE_THRESHOLD_BYTES);
+    }
+
+    private final int chunkSize;
+    private final Set<Integer> columns;
+    private final boolean allSheets;
+    private final int parallelism;
+
+    public StreamingExcelReader() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    public StreamingExcelReader(int chunkSize) {
+        this(chunkSize, List.of(0), false, 1);
+    }
+
+    public StreamingExcelReader(IngestSettings settings) {
+        this(settings.chunkSize, settings.columns, settings.allSheets, settings.sheetParallelism);
+    }
+
+    public StreamingExcelReader(int chunkSize, List<Integer> columns, boolean allSheets, int parallelism) {
+        this.chunkSize = Math.max(chunkSize, 1);
+        this.columns = new HashSet<>(columns);
+        this.allSheets = allSheets;
+        this.parallelism = Math.max(parallelism, 1);
+    }
+
+    // One pool per node; sized by the first reader that needs it, since the setting is node-wide anyway
+    private static synchronized ForkJoinPool sheetPool(int parallelism) {
+        if (sheetPool == null) {
+            sheetPool = new ForkJoinPool(parallelism);
+        }
+        return sheetPool;
+    }
+
+    /**
+     * Parses the workbook and passes each full chunk, then the final partial one, to {@code onChunk}.
+     * Returns the total number of points read.
+     */
+    public int read(Path file, Consumer<List<String>> onChunk) throws IOException {
+        // Opening from a file lets POI read zip entries on demand instead of buffering the package
+        try (OPCPackage pkg = OPCPackage.open(file.toFile(), PackageAccess.READ)) {
+            return read(pkg, onChunk);
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Failed to read workbook " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Parses a workbook from a stream, e.g. an HTTP request body, without saving it first. The zip
+     * directory is at its end, so POI unpacks every entry before any sheet is parsed; entries above
+     * {@link #STREAM_TEMP_FILE_THRESHOLD_BYTES} go to a temp file instead of the heap.
+     */
+    public int read(InputStream workbook, Consumer<List<String>> onChunk) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(workbook)) {
+            return read(pkg, onChunk);
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Failed to read workbook stream: " + e.getMessage(), e);
+        }
+    }
+
+    private int read(OPCPackage pkg, Consumer<List<String>> onChunk) throws Exception {
+        XSSFReader reader = new XSSFReader(pkg);
+        // Shared strings and styles are parsed once and only read afterwards, so sheet tasks can share them
+        ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+        StylesTable styles = reader.getStylesTable();
+
+        List<PackagePart> sheets = new ArrayList<>();
+        XSSFReader.SheetIterator iterator = (XSSFReader.SheetIterator) reader.getSheetsData();
+        while (iterator.hasNext() && (allSheets || sheets.isEmpty())) {
+            iterator.next().close();
+            sheets.add(iterator.getSheetPart());
+        }
+
+        ChunkingHandler handler = new ChunkingHandler(onChunk);
+        if (sheets.size() <= 1 || parallelism == 1) {
+            for (PackagePart sheet : sheets) {
+                parseSheet(sheet, strings, styles, handler);
+            }
+        } else {
+            readInParallel(sheets, strings, styles, handler);
+        }
+        handler.flush();
+        return handler.total;
+    }
+
+    private void readInParallel(List<PackagePart> sheets, ReadOnlySharedStringsTable strings, StylesTable styles,
+                                ChunkingHandler handler) throws Exception {
+        ForkJoinPool pool = sheetPool(parallelism);
+        // Finished sheets are held in memory until released, so at most `parallelism` are parsed ahead
+        Deque<ForkJoinTask<List<String>>> window = new ArrayDeque<>(parallelism);
+        Iterator<PackagePart> pending = sheets.iterator();
+
+        try {
+            while (pending.hasNext() || !window.isEmpty()) {
+                while (pending.hasNext() && window.size() < parallelism) {
+                    PackagePart sheet = pending.next();
+                    window.add(pool.submit(() -> {
+                        List<String> points = new ArrayList<>();
+                        parseSheet(sheet, strings, styles, new CollectingHandler(points));
+                        return points;
+                    }));
+                }
+                // Joining in sheet order is what keeps the merged output in source order
+                for (String point : window.poll().get()) {
+                    handler.addMerged(point);
+                }
+            }
+        } catch (ExecutionException e) {
+            window.forEach(task -> task.cancel(true));
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    private void parseSheet(PackagePart sheet, ReadOnlySharedStringsTable strings, StylesTable styles,
+                            PointHandler handler) throws Exception {
+        try (InputStream in = sheet.getInputStream()) {
+            XMLReader parser = XMLHelper.newXMLReader();
+            // DataFormatter is not thread-safe, so every sheet gets its own
+            parser.setContentHandler(new XSSFSheetXMLHandler(
+                    styles, null, strings, handler, new DataFormatter(), false));
+            parser.parse(new InputSource(in));
+        }
+    }
+
+    /**
+     * Picks the configured columns out of each row; subclasses decide what happens to the points.
+     */
+    private abstract class PointHandler implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private int column;
+
+        @Override
+        public void startRow(int rowNum) {
+            column = -1;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            // Some writers omit the reference; cells then arrive in column order
+            column = cellReference != null ? new CellReference(cellReference).getCol() : column + 1;
+            if (!columns.contains(column) || formattedValue == null) {
+                return;
+            }
+            String content = formattedValue.trim();
+            if (!content.isEmpty()) {
+                add(content);
+            }
+        }
+
+        abstract void add(String point);
+    }
+
+    private class CollectingHandler extends PointHandler {
+        private final List<String> points;
+
+        CollectingHandler(List<String> points) {
+            this.points = points;
+        }
+
+        @Override
+        void add(String point) {
+            points.add(point);
+        }
+    }
+
+    private class ChunkingHandler extends PointHandler {
+        private final Consumer<List<String>> onChunk;
+        private List<String> chunk = new ArrayList<>(chunkSize);
+        private int total;
+
+        ChunkingHandler(Consumer<List<String>> onChunk) {
+            this.onChunk = onChunk;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        @Override
+        void add(String point) {
+            chunk.add(point);
+            total++;
+        }
+
+        // Rows are not seen when sheets are merged in parallel, so chunks are cut by point count alone
+        void addMerged(String point) {
+            add(point);
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (!chunk.isEmpty()) {
+                onChunk.accept(chunk);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+    }
+}
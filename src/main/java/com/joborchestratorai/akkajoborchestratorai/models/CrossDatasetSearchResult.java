@@ -0,0 +1,27 @@
+package com.joborchestratorai.akkajoborchestratorai.models;
+
+import java.util.List;
+
+public class CrossDatasetSearchResult {
+    private List<SearchResult> results;
+    // Datasets that had not answered when the search deadline passed
+    private List<String> timedOutDatasets;
+    private boolean partial;
+
+    public CrossDatasetSearchResult() {}
+
+    public CrossDatasetSearchResult(List<SearchResult> results, List<String> timedOutDatasets) {
+        this.results = results;
+        this.timedOutDatasets = timedOutDatasets;
+        this.partial = !timedOutDatasets.isEmpty();
+    }
+
+    public List<SearchResult> getResults() { return results; }
+    public void setResults(List<SearchResult> results) { this.results = results; }
+
+    public List<String> getTimedOutDatasets() { return timedOutDatasets; }
+    public void setTimedOutDatasets(List<String> timedOutDatasets) { this.timedOutDatasets = timedOutDatasets; }
+
+    public boolean isPartial() { return partial; }
+    public void setPartial(boolean partial) { this.partial = partial; }
+}
@@ -0,0 +1,37 @@
+package com.joborchestratorai.akkajoborchestratorai.models;
+
+import java.io.Serializable;
+
+/**
+ * Catalog entry for one dataset, replicated to every node of the cluster.
+ */
+public class DatasetInfo implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private String datasetId;
+    private int pointCount;
+    // Bumped on every ingest into the dataset; 0 for datasets only found on disk at startup
+    private long version;
+    private long updatedAtMillis;
+
+    public DatasetInfo() {}
+
+    public DatasetInfo(String datasetId, int pointCount, long version, long updatedAtMillis) {
+        this.datasetId = datasetId;
+        this.pointCount = pointCount;
+        this.version = version;
+        this.updatedAtMillis = updatedAtMillis;
+    }
+
+    public String getDatasetId() { return datasetId; }
+    public void setDatasetId(String datasetId) { this.datasetId = datasetId; }
+
+    public int getPointCount() { return pointCount; }
+    public void setPointCount(int pointCount) { this.pointCount = pointCount; }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
+    public long getUpdatedAtMillis() { return updatedAtMillis; }
+    public void setUpdatedAtMillis(long updatedAtMillis) { this.updatedAtMillis = updatedAtMillis; }
+}
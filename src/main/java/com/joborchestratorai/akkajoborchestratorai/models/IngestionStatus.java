@@ -0,0 +1,58 @@
+package com.joborchestratorai.akkajoborchestratorai.models;
+
+import java.io.Serializable;
+
+public class IngestionStatus implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public static final String PARSING = "PARSING";
+    public static final String INDEXING = "INDEXING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+
+    private String datasetId;
+    private String state;
+    private long pointsRead;
+    private long pointsIngested;
+    private long duplicatesDropped;
+    private long elapsedMillis;
+    private String error;
+
+    public IngestionStatus() {}
+
+    public IngestionStatus(String datasetId, String state, long pointsRead, long pointsIngested,
+                           long duplicatesDropped, long elapsedMillis, String error) {
+        this.datasetId = datasetId;
+        this.state = state;
+        this.pointsRead = pointsRead;
+        this.pointsIngested = pointsIngested;
+        this.duplicatesDropped = duplicatesDropped;
+        this.elapsedMillis = elapsedMillis;
+        this.error = error;
+    }
+
+    public static IngestionStatus failed(String datasetId, String error) {
+        return new IngestionStatus(datasetId, FAILED, 0, 0, 0, 0, error);
+    }
+
+    public String getDatasetId() { return datasetId; }
+    public void setDatasetId(String datasetId) { this.datasetId = datasetId; }
+
+    public String getState() { return state; }
+    public void setState(String state) { this.state = state; }
+
+    public long getPointsRead() { return pointsRead; }
+    public void setPointsRead(long pointsRead) { this.pointsRead = pointsRead; }
+
+    public long getPointsIngested() { return pointsIngested; }
+    public void setPointsIngested(long pointsIngested) { this.pointsIngested = pointsIngested; }
+
+    public long getDuplicatesDropped() { return duplicatesDropped; }
+    public void setDuplicatesDropped(long duplicatesDropped) { this.duplicatesDropped = duplicatesDropped; }
+
+    public long getElapsedMillis() { return elapsedMillis; }
+    public void setElapsedMillis(long elapsedMillis) { this.elapsedMillis = elapsedMillis; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
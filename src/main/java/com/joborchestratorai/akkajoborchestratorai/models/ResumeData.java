@@ -2,12 +2,15 @@ package com.joborchestratorai.akkajoborchestratorai.models;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 public class ResumeData {
     private String id;
     private String fileName;
     private List<String> resumePoints;
     private LocalDateTime uploadedAt;
+    // Canonical point -> near-duplicates that were merged into it at ingest
+    private Map<String, List<String>> mergedPoints;
 
     public ResumeData() {}
 
@@ -29,4 +32,7 @@ public class ResumeData {
 
     public LocalDateTime getUploadedAt() { return uploadedAt; }
     public void setUploadedAt(LocalDateTime uploadedAt) { this.uploadedAt = uploadedAt; }
+
+    public Map<String, List<String>> getMergedPoints() { return mergedPoints; }
+    public void setMergedPoints(Map<String, List<String>> mergedPoints) { this.mergedPoints = mergedPoints; }
 }
\ No newline at end of file
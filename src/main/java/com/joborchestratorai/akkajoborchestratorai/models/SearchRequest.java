@@ -3,6 +3,8 @@ package com.joborchestratorai.akkajoborchestratorai.models;
 public class SearchRequest {
     private String jobDescription;
     private int topK = 5;
+    // How many locally retrieved candidates go to the LLM for reranking; 0 uses the configured default
+    private int candidatePoolSize = 0;
 
     public SearchRequest() {}
 
@@ -11,4 +13,7 @@ public class SearchRequest {
 
     public int getTopK() { return topK; }
     public void setTopK(int topK) { this.topK = topK; }
-}
\ No newline at end of file
+
+    public int getCandidatePoolSize() { return candidatePoolSize; }
+    public void setCandidatePoolSize(int candidatePoolSize) { this.candidatePoolSize = candidatePoolSize; }
+}
@@ -1,9 +1,16 @@
 package com.joborchestratorai.akkajoborchestratorai.models;
 
 public class SearchResult {
+    public static final String STAGE_LEXICAL = "lexical";
+    public static final String STAGE_VECTOR = "vector";
+    public static final String STAGE_LLM = "llm";
+    public static final String STAGE_LLM_RERANK = "llm-rerank";
+
     private String content;
     private float score;
     private String category;
+    // Which search stage produced the score, e.g. lexical retrieval or LLM rerank
+    private String stage;
 
     public SearchResult() {}
 
@@ -13,6 +20,11 @@ public class SearchResult {
         this.category = category;
     }
 
+    public SearchResult(String content, float score, String category, String stage) {
+        this(content, score, category);
+        this.stage = stage;
+    }
+
     public String getContent() { return content; }
     public void setContent(String content) { this.content = content; }
 
@@ -21,4 +33,7 @@ public class SearchResult {
 
     public String getCategory() { return category; }
     public void setCategory(String category) { this.category = category; }
-}
\ No newline at end of file
+
+    public String getStage() { return stage; }
+    public void setStage(String stage) { this.stage = stage; }
+}
@@ -0,0 +1,86 @@
+package com.joborchestratorai.akkajoborchestratorai.models;
+
+public class UploadJob {
+    public static final String QUEUED = "QUEUED";
+    public static final String PARSING = "PARSING";
+    public static final String INDEXING = "INDEXING";
+    public static final String DONE = "DONE";
+    public static final String FAILED = "FAILED";
+
+    private String id;
+    private String fileName;
+    private String state;
+    private long rowsRead;
+    private long pointsIndexed;
+    private long duplicatesDropped;
+    private long createdAtMillis;
+    private long startedAtMillis;
+    private long finishedAtMillis;
+    private String error;
+
+    public UploadJob() {}
+
+    public UploadJob(String id, String fileName) {
+        this.id = id;
+        this.fileName = fileName;
+        this.state = QUEUED;
+        this.createdAtMillis = System.currentTimeMillis();
+    }
+
+    public UploadJob copy() {
+        UploadJob copy = new UploadJob(id, fileName);
+        copy.state = state;
+        copy.rowsRead = rowsRead;
+        copy.pointsIndexed = pointsIndexed;
+        copy.duplicatesDropped = duplicatesDropped;
+        copy.createdAtMillis = createdAtMillis;
+        copy.startedAtMillis = startedAtMillis;
+        copy.finishedAtMillis = finishedAtMillis;
+        copy.error = error;
+        return copy;
+    }
+
+    public boolean isFinished() {
+        return DONE.equals(state) || FAILED.equals(state);
+    }
+
+    // Rows parsed per second since the job started, up to now or until it finished
+    public double getRowsPerSecond() {
+        if (startedAtMillis == 0) {
+            return 0.0;
+        }
+        long end = finishedAtMillis != 0 ? finishedAtMillis : System.currentTimeMillis();
+        long elapsed = Math.max(end - startedAtMillis, 1);
+        return rowsRead * 1000.0 / elapsed;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+
+    public String getState() { return state; }
+    public void setState(String state) { this.state = state; }
+
+    public long getRowsRead() { return rowsRead; }
+    public void setRowsRead(long rowsRead) { this.rowsRead = rowsRead; }
+
+    public long getPointsIndexed() { return pointsIndexed; }
+    public void setPointsIndexed(long pointsIndexed) { this.pointsIndexed = pointsIndexed; }
+
+    public long getDuplicatesDropped() { return duplicatesDropped; }
+    public void setDuplicatesDropped(long duplicatesDropped) { this.duplicatesDropped = duplicatesDropped; }
+
+    public long getCreatedAtMillis() { return createdAtMillis; }
+    public void setCreatedAtMillis(long createdAtMillis) { this.createdAtMillis = createdAtMillis; }
+
+    public long getStartedAtMillis() { return startedAtMillis; }
+    public void setStartedAtMillis(long startedAtMillis) { this.startedAtMillis = startedAtMillis; }
+
+    public long getFinishedAtMillis() { return finishedAtMillis; }
+    public void setFinishedAtMillis(long finishedAtMillis) { this.finishedAtMillis = finishedAtMillis; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
@@ -0,0 +1,199 @@
+package com.joborchestratorai.akkajoborchestratorai.search;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Tokenized inverted index over resume points, scored with Okapi BM25.
+ * Point ids are assigned sequentially by {@link #add(String)}; {@link #remove(int, String)}
+ * leaves a tombstone so the remaining ids stay stable.
+ * Not thread-safe: each owning actor keeps its own instance.
+ */
+public class Bm25Index {
+
+    private static class Postings {
+        int[] pointIds = new int[4];
+        int[] termFreqs = new int[4];
+        int size;
+        // Postings of removed points stay in the arrays; this counts the others for the IDF
+        int live;
+
+        void add(int pointId, int termFreq) {
+            if (size == pointIds.length) {
+                pointIds = Arrays.copyOf(pointIds, size * 2);
+                termFreqs = Arrays.copyOf(termFreqs, size * 2);
+            }
+            pointIds[size] = pointId;
+            termFreqs[size] = termFreq;
+            size++;
+            live++;
+        }
+    }
+
+    private final float k1;
+    private final float b;
+    private final Map<String, Postings> postings = new HashMap<>();
+    private int[] pointLengths = new int[16];
+    private final BitSet removed = new BitSet();
+    private int pointCount;
+    private int livePointCount;
+    private long totalLength;
+
+    public Bm25Index(float k1, float b) {
+        this.k1 = k1;
+        this.b = b;
+    }
+
+    public int add(String text) {
+        int pointId = pointCount++;
+        List<String> tokens = Tokenizer.tokenize(text);
+
+        Map<String, Integer> termFreqs = new HashMap<>();
+        for (String token : tokens) {
+            termFreqs.merge(token, 1, Integer::sum);
+        }
+        for (Map.Entry<String, Integer> entry : termFreqs.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), t -> new Postings()).add(pointId, entry.getValue());
+        }
+
+        if (pointId == pointLengths.length) {
+            pointLengths = Arrays.copyOf(pointLengths, pointLengths.length * 2);
+        }
+        pointLengths[pointId] = tokens.size();
+        totalLength += tokens.size();
+        livePointCount++;
+        return pointId;
+    }
+
+    /**
+     * Removes a point; {@code text} must be what it was added with, so its terms can be found
+     * without scanning every posting list.
+     */
+    public void remove(int pointId, String text) {
+        if (pointId < 0 || pointId >= pointCount || removed.get(pointId)) {
+            return;
+        }
+        removed.set(pointId);
+        for (String term : new HashSet<>(Tokenizer.tokenize(text))) {
+            Postings list = postings.get(term);
+            if (list != null) {
+                list.live--;
+            }
+        }
+        totalLength -= pointLengths[pointId];
+        livePointCount--;
+    }
+
+    /** Number of points that have not been removed. */
+    public int size() {
+        return livePointCount;
+    }
+
+    public List<ScoredPoint> search(String query, int topK) {
+        if (livePointCount == 0 || topK <= 0) {
+            return List.of();
+        }
+
+        float avgLength = (float) totalLength / livePointCount;
+        float[] scores = new float[pointCount];
+        boolean matched = false;
+
+        // Query term frequency is ignored on purpose: long job descriptions repeat words a lot
+        for (String term : new LinkedHashSet<>(Tokenizer.tokenize(query))) {
+            Postings list = postings.get(term);
+            if (list == null || list.live == 0) {
+                continue;
+            }
+            matched = true;
+
+            double idf = Math.log(1.0 + (livePointCount - list.live + 0.5) / (list.live + 0.5));
+            for (int i = 0; i < list.size; i++) {
+                int pointId = list.pointIds[i];
+                if (removed.get(pointId)) {
+                    continue;
+                }
+                int tf = list.termFreqs[i];
+                float norm = k1 * (1 - b + b * pointLengths[pointId] / avgLength);
+                scores[pointId] += (float) (idf * (tf * (k1 + 1)) / (tf + norm));
+            }
+        }
+
+        if (!matched) {
+            return List.of();
+        }
+
+        TopKMerger<ScoredPoint> top = new TopKMerger<>(topK, p -> p.score);
+        for (int pointId = 0; pointId < pointCount; pointId++) {
+            if (scores[pointId] > 0) {
+                top.offer(new ScoredPoint(pointId, scores[pointId]));
+            }
+        }
+        return top.result();
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(pointCount);
+        out.writeInt(livePointCount);
+        out.writeLong(totalLength);
+        for (int i = 0; i < pointCount; i++) {
+            out.writeInt(pointLengths[i]);
+        }
+        writeBits(out, removed);
+        out.writeInt(postings.size());
+        for (Map.Entry<String, Postings> entry : postings.entrySet()) {
+            Postings list = entry.getValue();
+            out.writeUTF(entry.getKey());
+            out.writeInt(list.size);
+            out.writeInt(list.live);
+            for (int i = 0; i < list.size; i++) {
+                out.writeInt(list.pointIds[i]);
+                out.writeInt(list.termFreqs[i]);
+            }
+        }
+    }
+
+    static Bm25Index readFrom(DataInputStream in, float k1, float b) throws IOException {
+        Bm25Index index = new Bm25Index(k1, b);
+        index.pointCount = in.readInt();
+        index.livePointCount = in.readInt();
+        index.totalLength = in.readLong();
+        index.pointLengths = new int[Math.max(16, index.pointCount)];
+        for (int i = 0; i < index.pointCount; i++) {
+            index.pointLengths[i] = in.readInt();
+        }
+        index.removed.or(readBits(in));
+        int terms = in.readInt();
+        for (int t = 0; t < terms; t++) {
+            String term = in.readUTF();
+            Postings list = new Postings();
+            list.size = in.readInt();
+            list.live = in.readInt();
+            list.pointIds = new int[Math.max(4, list.size)];
+            list.termFreqs = new int[list.pointIds.length];
+            for (int i = 0; i < list.size; i++) {
+                list.pointIds[i] = in.readInt();
+                list.termFreqs[i] = in.readInt();
+            }
+            index.postings.put(term, list);
+        }
+        return index;
+    }
+
+    static void writeBits(DataOutputStream out, BitSet bits) throws IOException {
+        long[] words = bits.toLongArray();
+        out.writeInt(words.length);
+        for (long word : words) {
+            out.writeLong(word);
+        }
+    }
+
+    static BitSet readBits(DataInputStream in) throws IOException {
+        long[] words = new long[in.readInt()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = in.readLong();
+        }
+        return BitSet.valueOf(words);
+    }
+}
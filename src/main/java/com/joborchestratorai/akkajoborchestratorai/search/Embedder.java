@@ -0,0 +1,17 @@
+package com.joborchestratorai.akkajoborchestratorai.search;
+
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Turns text into vectors for the {@link HnswIndex}. Embedding may mean a network call, so it
+ * never blocks the caller: the owner of a searcher embeds off its thread and applies the result
+ * back on it.
+ */
+public interface Embedder {
+
+    int dimensions();
+
+    /** Embeds {@code texts} in order. */
+    CompletionStage<float[][]> embedAll(List<String> texts);
+}
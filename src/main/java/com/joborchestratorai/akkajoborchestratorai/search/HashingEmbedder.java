@@ -0,0 +1,53 @@
+package com.joborchestratorai.akkajoborchestratorai.search;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Local embedding via the hashing trick over unigrams and bigrams. Needs no network call,
+ * so the vector index works even without an OpenAI key, at the cost of purely surface-level
+ * similarity.
+ */
+public class HashingEmbedder implements Embedder {
+
+    private final int dimensions;
+
+    public HashingEmbedder(int dimensions) {
+        this.dimensions = dimensions;
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+
+    /** Purely local, so the stage is already complete when it is returned. */
+    @Override
+    public CompletionStage<float[][]> embedAll(List<String> texts) {
+        float[][] embeddings = new float[texts.size()][];
+        for (int i = 0; i < texts.size(); i++) {
+            embeddings[i] = embed(texts.get(i));
+        }
+        return CompletableFuture.completedFuture(embeddings);
+    }
+
+    public float[] embed(String text) {
+        float[] vector = new float[dimensions];
+        List<String> tokens = Tokenizer.tokenize(text);
+        for (int i = 0; i < tokens.size(); i++) {
+            addFeature(vector, tokens.get(i), 1f);
+            if (i > 0) {
+                addFeature(vector, tokens.get(i - 1) + ' ' + tokens.get(i), 0.5f);
+            }
+        }
+        return vector;
+    }
+
+    private void addFeature(float[] vector, String feature, float weight) {
+        int hash = feature.hashCode() * 0x9E3779B9;
+        int bucket = Math.floorMod(hash, dimensions);
+        // A second hash bit picks the sign so that collisions cancel out instead of piling up
+        vector[bucket] += (hash >>> 31) == 0 ? weight : -weight;
+    }
+}
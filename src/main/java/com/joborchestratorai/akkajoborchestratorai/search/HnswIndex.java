@@ -0,0 +1,351 @@
+package com.joborchestratorai.akkajoborchestratorai.search;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Hierarchical Navigable Small World graph for approximate nearest-neighbour search
+ * over resume point embeddings. Vectors are L2-normalised on insert and kept in one
+ * flat {@code float[]}, so similarity is a plain dot product.
+ * Points are inserted incrementally; not thread-safe.
+ * <p>
+ * Removed points stay in the graph as routing nodes and are only filtered out of results,
+ * which keeps removal O(1) at the cost of some search effort until the owner rebuilds.
+ */
+public class HnswIndex {
+
+    private static class Candidate {
+        final int id;
+        final float distance;
+
+        Candidate(int id, float distance) {
+            this.id = id;
+            this.distance = distance;
+        }
+    }
+
+    private static final Comparator<Candidate> NEAREST_FIRST = Comparator.comparingDouble(c -> c.distance);
+    private static final Comparator<Candidate> FARTHEST_FIRST = NEAREST_FIRST.reversed();
+
+    private final int dimensions;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final int efSearch;
+    private final double levelMultiplier;
+    private final Random random = new Random(42);
+
+    private float[] vectors;
+    // links[node][level] holds the neighbour count at index 0 followed by the neighbour ids
+    private int[][][] links;
+    private int[] visitedMarks;
+    private int visitEpoch;
+    private int size;
+    private final BitSet removed = new BitSet();
+    private int removedCount;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    public HnswIndex(int dimensions, int m, int efConstruction, int efSearch) {
+        this.dimensions = dimensions;
+        this.m = m;
+        this.maxM0 = m * 2;
+        this.efConstruction = Math.max(efConstruction, m);
+        this.efSearch = efSearch;
+        this.levelMultiplier = 1 / Math.log(Math.max(m, 2));
+        this.vectors = new float[dimensions * 16];
+        this.links = new int[16][][];
+        this.visitedMarks = new int[16];
+    }
+
+    public int getDimensions() {
+        return dimensions;
+    }
+
+    public int getM() {
+        return m;
+    }
+
+    /** Number of ids handed out, including removed points. */
+    public int size() {
+        return size;
+    }
+
+    public void remove(int id) {
+        if (id >= 0 && id < size && !removed.get(id)) {
+            removed.set(id);
+            removedCount++;
+        }
+    }
+
+    public int add(float[] vector) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException("Expected " + dimensions + " dimensions but got " + vector.length);
+        }
+
+        int id = size++;
+        ensureCapacity(size);
+        System.arraycopy(vector, 0, vectors, id * dimensions, dimensions);
+        normalize(id);
+
+        int level = (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+        links[id] = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            links[id][l] = new int[(l == 0 ? maxM0 : m) + 1];
+        }
+
+        if (entryPoint < 0) {
+            entryPoint = id;
+            maxLevel = level;
+            return id;
+        }
+
+        int current = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            current = greedyClosest(id, current, l);
+        }
+
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            PriorityQueue<Candidate> found = searchLayer(id, current, efConstruction, l);
+            List<Candidate> neighbours = selectNeighbours(drainNearestFirst(found), m);
+            for (Candidate neighbour : neighbours) {
+                addLink(id, neighbour.id, l);
+                addLink(neighbour.id, id, l);
+            }
+            current = neighbours.isEmpty() ? current : neighbours.get(0).id;
+        }
+
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = id;
+        }
+        return id;
+    }
+
+    public List<ScoredPoint> search(float[] query, int topK) {
+        if (size == removedCount || topK <= 0) {
+            return List.of();
+        }
+
+        // The query is stored in a scratch slot past the last point so the distance code stays uniform
+        ensureCapacity(size + 1);
+        System.arraycopy(query, 0, vectors, size * dimensions, dimensions);
+        normalize(size);
+
+        int current = entryPoint;
+        for (int l = maxLevel; l > 0; l--) {
+            current = greedyClosest(size, current, l);
+        }
+
+        // Widen the beam by the share of removed points so roughly as many live ones come back
+        int ef = (int) ((long) Math.max(efSearch, topK) * size / (size - removedCount));
+        List<Candidate> nearest = drainNearestFirst(searchLayer(size, current, ef, 0));
+        List<ScoredPoint> results = new ArrayList<>(Math.min(topK, nearest.size()));
+        for (Candidate candidate : nearest) {
+            if (results.size() == topK) {
+                break;
+            }
+            if (removed.get(candidate.id)) {
+                continue;
+            }
+            results.add(new ScoredPoint(candidate.id, Math.max(0f, 1 - candidate.distance)));
+        }
+        return results;
+    }
+
+    private int greedyClosest(int query, int start, int level) {
+        int current = start;
+        float currentDistance = distance(query, current);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] neighbours = links[current][level];
+            for (int i = 1; i <= neighbours[0]; i++) {
+                float d = distance(query, neighbours[i]);
+                if (d < currentDistance) {
+                    currentDistance = d;
+                    current = neighbours[i];
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    private PriorityQueue<Candidate> searchLayer(int query, int entry, int ef, int level) {
+        int epoch = ++visitEpoch;
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(NEAREST_FIRST);
+        PriorityQueue<Candidate> found = new PriorityQueue<>(FARTHEST_FIRST);
+
+        Candidate start = new Candidate(entry, distance(query, entry));
+        visitedMarks[entry] = epoch;
+        candidates.add(start);
+        found.add(start);
+
+        while (!candidates.isEmpty()) {
+            Candidate closest = candidates.poll();
+            if (closest.distance > found.peek().distance && found.size() >= ef) {
+                break;
+            }
+
+            int[] neighbours = links[closest.id][level];
+            for (int i = 1; i <= neighbours[0]; i++) {
+                int neighbour = neighbours[i];
+                if (visitedMarks[neighbour] == epoch) {
+                    continue;
+                }
+                visitedMarks[neighbour] = epoch;
+
+                float d = distance(query, neighbour);
+                if (found.size() < ef || d < found.peek().distance) {
+                    Candidate candidate = new Candidate(neighbour, d);
+                    candidates.add(candidate);
+                    found.add(candidate);
+                    if (found.size() > ef) {
+                        found.poll();
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    // Keeps a candidate only if it is closer to the base node than to any neighbour already kept,
+    // which spreads links across directions instead of clustering them
+    private List<Candidate> selectNeighbours(List<Candidate> nearestFirst, int limit) {
+        List<Candidate> selected = new ArrayList<>(limit);
+        for (Candidate candidate : nearestFirst) {
+            if (selected.size() >= limit) {
+                break;
+            }
+            boolean keep = true;
+            for (Candidate kept : selected) {
+                if (distance(candidate.id, kept.id) < candidate.distance) {
+                    keep = false;
+                    break;
+                }
+            }
+            if (keep) {
+                selected.add(candidate);
+            }
+        }
+        return selected;
+    }
+
+    private void addLink(int from, int to, int level) {
+        int[] neighbours = links[from][level];
+        int capacity = neighbours.length - 1;
+        if (neighbours[0] < capacity) {
+            neighbours[++neighbours[0]] = to;
+            return;
+        }
+
+        List<Candidate> all = new ArrayList<>(capacity + 1);
+        for (int i = 1; i <= neighbours[0]; i++) {
+            all.add(new Candidate(neighbours[i], distance(from, neighbours[i])));
+        }
+        all.add(new Candidate(to, distance(from, to)));
+        all.sort(NEAREST_FIRST);
+
+        List<Candidate> pruned = selectNeighbours(all, capacity);
+        neighbours[0] = pruned.size();
+        for (int i = 0; i < pruned.size(); i++) {
+            neighbours[i + 1] = pruned.get(i).id;
+        }
+    }
+
+    private List<Candidate> drainNearestFirst(PriorityQueue<Candidate> farthestFirst) {
+        Candidate[] drained = new Candidate[farthestFirst.size()];
+        for (int i = drained.length - 1; i >= 0; i--) {
+            drained[i] = farthestFirst.poll();
+        }
+        return Arrays.asList(drained);
+    }
+
+    private float distance(int a, int b) {
+        int offsetA = a * dimensions;
+        int offsetB = b * dimensions;
+        float dot = 0;
+        for (int i = 0; i < dimensions; i++) {
+            dot += vectors[offsetA + i] * vectors[offsetB + i];
+        }
+        return 1 - dot;
+    }
+
+    private void normalize(int id) {
+        int offset = id * dimensions;
+        double norm = 0;
+        for (int i = 0; i < dimensions; i++) {
+            norm += vectors[offset + i] * vectors[offset + i];
+        }
+        if (norm == 0) {
+            return;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < dimensions; i++) {
+            vectors[offset + i] *= scale;
+        }
+    }
+
+    private void ensureCapacity(int points) {
+        if (points > links.length) {
+            int capacity = Math.max(points, links.length * 2);
+            links = Arrays.copyOf(links, capacity);
+            visitedMarks = Arrays.copyOf(visitedMarks, capacity);
+            vectors = Arrays.copyOf(vectors, capacity * dimensions);
+        }
+    }
+
+    // The graph is written as built, so reading it back costs no distance computations
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(dimensions);
+        out.writeInt(m);
+        out.writeInt(size);
+        out.writeInt(entryPoint);
+        out.writeInt(maxLevel);
+        Bm25Index.writeBits(out, removed);
+        for (int i = 0; i < size * dimensions; i++) {
+            out.writeFloat(vectors[i]);
+        }
+        for (int id = 0; id < size; id++) {
+            out.writeByte(links[id].length);
+            for (int[] neighbours : links[id]) {
+                for (int i = 0; i <= neighbours[0]; i++) {
+                    out.writeInt(neighbours[i]);
+                }
+            }
+        }
+    }
+
+    static HnswIndex readFrom(DataInputStream in, int efConstruction, int efSearch) throws IOException {
+        HnswIndex index = new HnswIndex(in.readInt(), in.readInt(), efConstruction, efSearch);
+        int size = in.readInt();
+        index.ensureCapacity(size + 1);
+        index.size = size;
+        index.entryPoint = in.readInt();
+        index.maxLevel = in.readInt();
+        index.removed.or(Bm25Index.readBits(in));
+        index.removedCount = index.removed.cardinality();
+        for (int i = 0; i < size * index.dimensions; i++) {
+            index.vectors[i] = in.readFloat();
+        }
+        for (int id = 0; id < size; id++) {
+            int levels = in.readUnsignedByte();
+            index.links[id] = new int[levels][];
+            for (int l = 0; l < levels; l++) {
+                int[] neighbours = new int[(l == 0 ? index.maxM0 : index.m) + 1];
+                neighbours[0] = in.readInt();
+                if (neighbours[0] < 0 || neighbours[0] >= neighbours.length) {
+                    throw new IOException("Corrupt HNSW links for node " + id);
+                }
+                for (int i = 1; i <= neighbours[0]; i++) {
+                    neighbours[i] = in.readInt();
+                }
+                index.links[id][l] = neighbours;
+            }
+        }
+        return index;
+    }
+}
@@ -0,0 +1,47 @@
+package com.joborchestratorai.akkajoborchestratorai.search;
+
+import com.joborchestratorai.akkajoborchestratorai.services.OpenAIService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+public class OpenAIEmbedder implements Embedder {
+
+    // The embeddings endpoint accepts batched input, which is far cheaper than one call per point
+    private static final int BATCH_SIZE = 256;
+
+    private final OpenAIService openAIService;
+    private final int dimensions;
+
+    public OpenAIEmbedder(OpenAIService openAIService, int dimensions) {
+        this.openAIService = openAIService;
+        this.dimensions = dimensions;
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+
+    // The batches are sent together; the client's rate limiter spaces them out if it has to
+    @Override
+    public CompletionStage<float[][]> embedAll(List<String> texts) {
+        List<CompletableFuture<float[][]>> batches = new ArrayList<>();
+        for (int start = 0; start < texts.size(); start += BATCH_SIZE) {
+            List<String> batch = texts.subList(start, Math.min(start + BATCH_SIZE, texts.size()));
+            batches.add(openAIService.createEmbeddingsAsync(batch, dimensions).toCompletableFuture());
+        }
+        return CompletableFuture.allOf(batches.toArray(new CompletableFuture[0])).thenApply(done -> {
+            float[][] embeddings = new float[texts.size()][];
+            int start = 0;
+            for (CompletableFuture<float[][]> batch : batches) {
+                float[][] batchEmbeddings = batch.join();
+                System.arraycopy(batchEmbeddings, 0, embeddings, start, batchEmbeddings.length);
+                start += batchEmbeddings.length;
+            }
+            return embeddings;
+        });
+    }
+}
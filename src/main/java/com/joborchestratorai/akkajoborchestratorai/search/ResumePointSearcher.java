@@ -0,0 +1,566 @@
+package com.joborchestratorai.akkajoborchestratorai.search;
+
+import com.joborchestratorai.akkajoborchestratorai.ingest.PointNormalizer;
+import com.joborchestratorai.akkajoborchestratorai.models.SearchResult;
+import com.joborchestratorai.akkajoborchestratorai.services.OpenAIService;
+import com.joborchestratorai.akkajoborchestratorai.storage.PointStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Holds the search indexes for one set of resume points and answers searches
+ * in the configured {@link SearchMode}. Owned by a single actor, so not thread-safe.
+ * <p>
+ * Embedding may be a network call, so it never runs on the owner's thread: a search that uses
+ * vectors first gets its query and the points the vector index lacks embedded through
+ * {@link #embedForSearch}, then hands them to {@link #searchAsync(String, SearchEmbeddings, int, int)}
+ * back on the owner's thread. Points added after the vector index was built are embedded that way
+ * by the next vector search.
+ */
+public class ResumePointSearcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResumePointSearcher.class);
+
+    private static final int SNAPSHOT_MAGIC = 0x52494458; // "RIDX"
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private final SearchSettings settings;
+    private final OpenAIService openAIService;
+    private final Embedder embedder;
+
+    private final PointStore store;
+    // Indexed by point id: where its text lives in the node-wide store, or -1 once removed,
+    // so the ids in the indexes stay valid
+    private int[] storeIds = new int[16];
+    private int pointCount;
+    // Content hash of every live point to its id, so a re-upload can be diffed against what is indexed
+    private final Map<Long, Integer> idsByContent = new HashMap<>();
+    private int removedCount;
+    private Bm25Index lexicalIndex;
+    // Built on the first vector query; holds the points up to its size, and the next vector query adds the rest
+    private HnswIndex vectorIndex;
+    // Bumped whenever point ids are reassigned, so embeddings made for the old ids are not applied
+    private long generation;
+
+    /**
+     * The embeddings a search needs before it can run: its query, and the points the vector index
+     * did not hold when {@link #embedForSearch} was called.
+     */
+    public static class SearchEmbeddings {
+        final float[] query;
+        // Embeddings of the points from fromPointId on, null where the point had been removed
+        final float[][] points;
+        final int fromPointId;
+        final long generation;
+
+        SearchEmbeddings(float[] query, float[][] points, int fromPointId, long generation) {
+            this.query = query;
+            this.points = points;
+            this.fromPointId = fromPointId;
+            this.generation = generation;
+        }
+
+        /** Whether applying these changes the vector index. */
+        public boolean changesIndex() {
+            return points.length > 0;
+        }
+    }
+
+    public ResumePointSearcher(SearchSettings settings, OpenAIService openAIService, PointStore store) {
+        this.settings = settings;
+        this.openAIService = openAIService;
+        this.store = store;
+        this.embedder = "openai".equalsIgnoreCase(settings.vectorEmbedder)
+                ? new OpenAIEmbedder(openAIService, settings.vectorDimensions)
+                : new HashingEmbedder(settings.vectorDimensions);
+        this.lexicalIndex = new Bm25Index(settings.bm25K1, settings.bm25B);
+    }
+
+    public void index(List<String> resumePoints) {
+        // Released only after the new points are interned, so text shared by both is never dropped and re-added
+        int[] previousIds = storeIds;
+        int previousCount = pointCount;
+        storeIds = new int[16];
+        pointCount = 0;
+        idsByContent.clear();
+        removedCount = 0;
+        lexicalIndex = new Bm25Index(settings.bm25K1, settings.bm25B);
+        vectorIndex = null;
+        generation++;
+        addPoints(resumePoints);
+        releaseAll(previousIds, previousCount);
+    }
+
+    /**
+     * Adds the points not indexed yet and returns them. A point whose content is already indexed, or that
+     * occurs twice in {@code resumePoints}, is skipped: a second id for it could never be removed again.
+     * Only the lexical index is updated here; the next vector search embeds the new points.
+     */
+    public List<String> addPoints(List<String> resumePoints) {
+        List<String> added = new ArrayList<>();
+        for (String point : resumePoints) {
+            long key = PointNormalizer.dedupeKey(point);
+            if (idsByContent.containsKey(key)) {
+                continue;
+            }
+            idsByContent.put(key, lexicalIndex.add(point));
+            append(store.intern(point));
+            added.add(point);
+        }
+        return added;
+    }
+
+    /**
+     * Drops every point and gives its text back to the node-wide store; call when the owner stops.
+     */
+    public void release() {
+        index(List.of());
+    }
+
+    /**
+     * Removes the given points from every index. Ids are tombstoned rather than reused; once
+     * most of them are dead the indexes are rebuilt from the live points.
+     */
+    public void removePoints(Collection<String> resumePoints) {
+        for (String point : resumePoints) {
+            Integer id = idsByContent.remove(PointNormalizer.dedupeKey(point));
+            if (id != null) {
+                remove(id);
+            }
+        }
+        if (removedCount > pointCount / 2) {
+            compact();
+        }
+    }
+
+    private String remove(int id) {
+        String point = text(id);
+        lexicalIndex.remove(id, point);
+        if (vectorIndex != null) {
+            vectorIndex.remove(id);
+        }
+        store.release(storeIds[id]);
+        storeIds[id] = -1;
+        removedCount++;
+        return point;
+    }
+
+    /**
+     * Brings the indexes in line with {@code resumePoints}, adding and removing only the
+     * points that differ from what is already indexed.
+     */
+    public void reconcile(List<String> resumePoints) {
+        Set<Long> wanted = new HashSet<>();
+        List<String> added = new ArrayList<>();
+        for (String point : resumePoints) {
+            long key = PointNormalizer.dedupeKey(point);
+            if (wanted.add(key) && !idsByContent.containsKey(key)) {
+                added.add(point);
+            }
+        }
+        retainOnly(wanted);
+        addPoints(added);
+    }
+
+    /**
+     * Removes every point whose {@link PointNormalizer#dedupeKey} is not in {@code keys} and returns
+     * the removed points. Found by content hash, so only the removed points are ever decoded.
+     */
+    public List<String> retainOnly(Set<Long> keys) {
+        List<String> removed = new ArrayList<>();
+        Iterator<Map.Entry<Long, Integer>> indexed = idsByContent.entrySet().iterator();
+        while (indexed.hasNext()) {
+            Map.Entry<Long, Integer> entry = indexed.next();
+            if (!keys.contains(entry.getKey())) {
+                indexed.remove();
+                removed.add(remove(entry.getValue()));
+            }
+        }
+        if (removedCount > pointCount / 2) {
+            compact();
+        }
+        return removed;
+    }
+
+    public boolean contains(String point) {
+        return idsByContent.containsKey(PointNormalizer.dedupeKey(point));
+    }
+
+    /** The live points with the given {@link PointNormalizer#dedupeKey}s; keys not indexed are skipped. */
+    public List<String> getPoints(Collection<Long> keys) {
+        List<String> points = new ArrayList<>(keys.size());
+        for (long key : keys) {
+            Integer id = idsByContent.get(key);
+            if (id != null) {
+                points.add(text(id));
+            }
+        }
+        return points;
+    }
+
+    /** The live points in id order. */
+    public List<String> getPoints() {
+        List<String> live = new ArrayList<>(size());
+        for (int id = 0; id < pointCount; id++) {
+            if (storeIds[id] >= 0) {
+                live.add(store.get(storeIds[id]));
+            }
+        }
+        return live;
+    }
+
+    public int size() {
+        return pointCount - removedCount;
+    }
+
+    private String text(int pointId) {
+        return storeIds[pointId] >= 0 ? store.get(storeIds[pointId]) : null;
+    }
+
+    private void append(int storeId) {
+        if (pointCount == storeIds.length) {
+            storeIds = Arrays.copyOf(storeIds, pointCount * 2);
+        }
+        storeIds[pointCount++] = storeId;
+    }
+
+    private void releaseAll(int[] ids, int count) {
+        for (int i = 0; i < count; i++) {
+            if (ids[i] >= 0) {
+                store.release(ids[i]);
+            }
+        }
+    }
+
+    public boolean hasVectorIndex() {
+        return vectorIndex != null;
+    }
+
+    /** Whether searches need {@link #embedForSearch} first. */
+    public boolean usesVectors() {
+        return settings.mode == SearchMode.VECTOR
+                || settings.mode == SearchMode.HYBRID && settings.rerankCandidateSource == SearchMode.VECTOR;
+    }
+
+    /**
+     * Whether the next search builds or extends the vector index, the only way a search changes the
+     * searcher; any other search can run while {@link #writeSnapshot} reads it on another thread.
+     */
+    public boolean searchChangesIndex() {
+        return usesVectors() && (vectorIndex == null || vectorIndex.size() < pointCount);
+    }
+
+    /**
+     * Writes the points and the built indexes, tagged with {@code position} so the owner knows
+     * which later changes to replay after {@link #readSnapshot}. The file is made durable, then
+     * replaced atomically. Only reads the searcher, so it may run off the owner's thread as long
+     * as the owner does not change the searcher meanwhile.
+     */
+    public void writeSnapshot(Path file, long position) throws IOException {
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            CRC32C crc = new CRC32C();
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                OutputStream raw = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+                DataOutputStream out = new DataOutputStream(new CheckedOutputStream(raw, crc));
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeLong(position);
+                out.writeFloat(settings.bm25K1);
+                out.writeFloat(settings.bm25B);
+                out.writeUTF(settings.vectorEmbedder);
+
+                out.writeInt(pointCount);
+                for (int id = 0; id < pointCount; id++) {
+                    if (storeIds[id] < 0) {
+                        out.writeInt(-1);
+                    } else {
+                        store.writeTo(storeIds[id], out);
+                    }
+                }
+                lexicalIndex.writeTo(out);
+                out.writeBoolean(vectorIndex != null);
+                if (vectorIndex != null) {
+                    vectorIndex.writeTo(out);
+                }
+                out.flush();
+                // The checksum itself goes straight to the file, outside the checked stream
+                new DataOutputStream(raw).writeLong(crc.getValue());
+                raw.flush();
+                // Without this a crash after the rename can leave the new name pointing at missing data
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Replaces the current state with a snapshot from {@link #writeSnapshot} and returns its position.
+     * The state is left untouched if the file is corrupt or was built with different BM25 settings;
+     * a vector index built with a different embedder or shape is dropped and rebuilt on demand.
+     */
+    public long readSnapshot(Path file) throws IOException {
+        try (InputStream raw = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+            CRC32C crc = new CRC32C();
+            DataInputStream in = new DataInputStream(new CheckedInputStream(raw, crc));
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException(file + " is not an index snapshot of this version");
+            }
+            long position = in.readLong();
+            if (in.readFloat() != settings.bm25K1 || in.readFloat() != settings.bm25B) {
+                throw new IOException("Index snapshot " + file + " was built with different BM25 settings");
+            }
+            boolean sameEmbedder = in.readUTF().equals(settings.vectorEmbedder);
+
+            int count = in.readInt();
+            List<String> snapshotPoints = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int length = in.readInt();
+                if (length < 0) {
+                    snapshotPoints.add(null);
+                } else {
+                    byte[] bytes = new byte[length];
+                    in.readFully(bytes);
+                    snapshotPoints.add(new String(bytes, StandardCharsets.UTF_8));
+                }
+            }
+            Bm25Index snapshotLexical = Bm25Index.readFrom(in, settings.bm25K1, settings.bm25B);
+            HnswIndex snapshotVectors = in.readBoolean()
+                    ? HnswIndex.readFrom(in, settings.hnswEfConstruction, settings.hnswEfSearch)
+                    : null;
+            long expected = crc.getValue();
+            if (new DataInputStream(raw).readLong() != expected) {
+                throw new IOException("Checksum mismatch in index snapshot " + file);
+            }
+
+            int[] previousIds = storeIds;
+            int previousCount = pointCount;
+            storeIds = new int[Math.max(16, snapshotPoints.size())];
+            pointCount = 0;
+            idsByContent.clear();
+            removedCount = 0;
+            for (int id = 0; id < snapshotPoints.size(); id++) {
+                String point = snapshotPoints.get(id);
+                if (point == null) {
+                    append(-1);
+                    removedCount++;
+                } else {
+                    append(store.intern(point));
+                    idsByContent.put(PointNormalizer.dedupeKey(point), id);
+                }
+            }
+            releaseAll(previousIds, previousCount);
+            lexicalIndex = snapshotLexical;
+            vectorIndex = snapshotVectors != null && sameEmbedder
+                    && snapshotVectors.getDimensions() == settings.vectorDimensions
+                    && snapshotVectors.getM() == settings.hnswM
+                    && snapshotVectors.size() <= pointCount
+                    ? snapshotVectors : null;
+            generation++;
+            return position;
+        }
+    }
+
+    private void compact() {
+        logger.info("Rebuilding indexes after {} of {} resume points were removed", removedCount, pointCount);
+        // The vector index is dropped too and rebuilt lazily on the next vector query
+        index(getPoints());
+    }
+
+    /**
+     * Starts embedding the query and the points the vector index lacks. Their text is collected on the
+     * calling thread, which has to be the owner's, and the indexes may be rebuilt there before the first
+     * vector index is built; the embedding itself runs off it. Pass the result to
+     * {@link #searchAsync(String, SearchEmbeddings, int, int)} back on the owner's thread.
+     */
+    public CompletionStage<SearchEmbeddings> embedForSearch(String jobDescription) {
+        if (vectorIndex == null && removedCount > 0) {
+            // Removed points have no text to embed, so drop their tombstones before building
+            index(getPoints());
+        }
+        int fromPointId = vectorIndex == null ? 0 : vectorIndex.size();
+        // The query goes in the same request as the points
+        List<String> texts = new ArrayList<>();
+        texts.add(jobDescription);
+        int[] slots = new int[pointCount - fromPointId];
+        for (int id = fromPointId; id < pointCount; id++) {
+            String point = text(id);
+            slots[id - fromPointId] = point == null ? -1 : texts.size();
+            if (point != null) {
+                texts.add(point);
+            }
+        }
+        long startedGeneration = generation;
+        return embedder.embedAll(texts).thenApply(embeddings -> {
+            float[][] points = new float[slots.length][];
+            for (int i = 0; i < slots.length; i++) {
+                points[i] = slots[i] < 0 ? null : embeddings[slots[i]];
+            }
+            return new SearchEmbeddings(embeddings[0], points, fromPointId, startedGeneration);
+        });
+    }
+
+    /**
+     * Whether the indexes were rebuilt since {@code embeddings} were made, so they no longer line up with
+     * the points; the owner should embed again.
+     */
+    public boolean isStale(SearchEmbeddings embeddings) {
+        return embeddings.generation != generation;
+    }
+
+    /**
+     * Searches in a mode without vectors; see {@link #searchAsync(String, SearchEmbeddings, int, int)}.
+     */
+    public CompletionStage<List<SearchResult>> searchAsync(String jobDescription, int topK, int candidatePoolSize) {
+        return searchAsync(jobDescription, null, topK, candidatePoolSize);
+    }
+
+    /**
+     * Runs the local stages on the calling thread and returns a stage for the OpenAI call, if any.
+     * The stage never touches the indexes, so the owning actor can keep handling messages while it runs.
+     * {@code embeddings} come from {@link #embedForSearch} and are added to the vector index first;
+     * they are required when {@link #usesVectors} and ignored otherwise.
+     */
+    public CompletionStage<List<SearchResult>> searchAsync(String jobDescription, SearchEmbeddings embeddings,
+                                                           int topK, int candidatePoolSize) {
+        float[] query = null;
+        if (usesVectors()) {
+            if (embeddings == null) {
+                throw new IllegalStateException("A " + settings.mode + " search needs embedForSearch first");
+            }
+            applyVectors(embeddings);
+            query = embeddings.query;
+        }
+        switch (settings.mode) {
+            case LEXICAL:
+                return CompletableFuture.completedFuture(lexicalSearch(jobDescription, topK));
+            case LLM:
+                return openAIService.findMatchingPointsAsync(jobDescription, getPoints(), topK)
+                        .thenApply(results -> withStage(results, SearchResult.STAGE_LLM));
+            case VECTOR:
+                return CompletableFuture.completedFuture(vectorSearch(query, topK));
+            default:
+                int poolSize = candidatePoolSize > 0 ? candidatePoolSize : settings.rerankCandidates;
+                return retrieveAndRerank(jobDescription, query, topK, Math.max(poolSize, topK));
+        }
+    }
+
+    private List<SearchResult> lexicalSearch(String jobDescription, int topK) {
+        List<ScoredPoint> hits = lexicalIndex.search(jobDescription, topK);
+        if (hits.isEmpty()) {
+            return List.of();
+        }
+
+        // BM25 scores are unbounded, so scale them against the best hit to keep the 0-1 range
+        float maxScore = hits.get(0).score;
+        List<SearchResult> results = new ArrayList<>(hits.size());
+        for (ScoredPoint hit : hits) {
+            results.add(new SearchResult(text(hit.pointId), hit.score / maxScore, "Matched",
+                    SearchResult.STAGE_LEXICAL));
+        }
+        return results;
+    }
+
+    private List<SearchResult> vectorSearch(float[] query, int topK) {
+        List<SearchResult> results = new ArrayList<>();
+        // Null only if the indexes were rebuilt while the embeddings were made; the next search builds it
+        if (vectorIndex == null) {
+            return results;
+        }
+        for (ScoredPoint hit : vectorIndex.search(query, topK)) {
+            results.add(new SearchResult(text(hit.pointId), hit.score, "Matched", SearchResult.STAGE_VECTOR));
+        }
+        return results;
+    }
+
+    private void applyVectors(SearchEmbeddings embeddings) {
+        // Made for ids that have been reassigned, or overtaken by another search that added them
+        if (isStale(embeddings)
+                || embeddings.fromPointId != (vectorIndex == null ? 0 : vectorIndex.size())) {
+            return;
+        }
+        if (vectorIndex == null) {
+            vectorIndex = new HnswIndex(settings.vectorDimensions, settings.hnswM,
+                    settings.hnswEfConstruction, settings.hnswEfSearch);
+        }
+        // Vector ids line up with point ids because both are assigned in insertion order
+        for (float[] embedding : embeddings.points) {
+            int id = vectorIndex.add(embedding != null ? embedding : new float[settings.vectorDimensions]);
+            // Removed before or while it was embedded; the id is still taken so later ones line up
+            if (storeIds[id] < 0) {
+                vectorIndex.remove(id);
+            }
+        }
+        if (embeddings.fromPointId == 0) {
+            logger.info("Built HNSW index over {} resume points", vectorIndex.size());
+        }
+    }
+
+    /**
+     * Stage one pulls the top candidates from a local index; only those go to OpenAI for
+     * stage two. Candidates OpenAI does not return keep their stage one score and are
+     * ranked after the reranked ones.
+     */
+    private CompletionStage<List<SearchResult>> retrieveAndRerank(String jobDescription, float[] query,
+                                                                  int topK, int candidatePoolSize) {
+        List<SearchResult> candidates = settings.rerankCandidateSource == SearchMode.VECTOR
+                ? vectorSearch(query, candidatePoolSize)
+                : lexicalSearch(jobDescription, candidatePoolSize);
+        if (candidates.isEmpty()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+
+        List<String> candidatePoints = candidates.stream().map(SearchResult::getContent).toList();
+        return openAIService.findMatchingPointsAsync(jobDescription, candidatePoints, topK)
+                .handle((reranked, error) -> {
+                    if (error != null) {
+                        logger.warn("OpenAI rerank failed, returning stage one candidates: {}", error.getMessage());
+                        // Copied because sub-lists are not serializable and the results may cross the cluster
+                        return new ArrayList<>(candidates.subList(0, Math.min(topK, candidates.size())));
+                    }
+                    return mergeReranked(reranked, candidates, candidatePoints, topK);
+                });
+    }
+
+    private List<SearchResult> mergeReranked(List<SearchResult> reranked, List<SearchResult> candidates,
+                                             List<String> candidatePoints, int topK) {
+        Set<String> candidateContent = new HashSet<>(candidatePoints);
+        Set<String> seen = new HashSet<>();
+        List<SearchResult> results = new ArrayList<>(topK);
+        for (SearchResult result : reranked) {
+            // Skip anything OpenAI paraphrased, since it can no longer be traced to a stored point
+            if (results.size() < topK && candidateContent.contains(result.getContent()) && seen.add(result.getContent())) {
+                result.setStage(SearchResult.STAGE_LLM_RERANK);
+                results.add(result);
+            }
+        }
+        for (SearchResult candidate : candidates) {
+            if (results.size() < topK && seen.add(candidate.getContent())) {
+                results.add(candidate);
+            }
+        }
+        return results;
+    }
+
+    private List<SearchResult> withStage(List<SearchResult> results, String stage) {
+        results.forEach(result -> result.setStage(stage));
+        return results;
+    }
+}
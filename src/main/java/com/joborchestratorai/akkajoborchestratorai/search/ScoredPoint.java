@@ -0,0 +1,11 @@
+package com.joborchestratorai.akkajoborchestratorai.search;
+
+public class ScoredPoint {
+    public final int pointId;
+    public final float score;
+
+    public ScoredPoint(int pointId, float score) {
+        this.pointId = pointId;
+        this.score = score;
+    }
+}
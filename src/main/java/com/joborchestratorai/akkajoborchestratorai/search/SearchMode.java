@@ -0,0 +1,21 @@
+package com.joborchestratorai.akkajoborchestratorai.search;
+
+import java.util.Locale;
+
+public enum SearchMode {
+    // Rank purely from the in-process BM25 index, no OpenAI call
+    LEXICAL,
+    // Send the resume points to OpenAI and use its scores
+    LLM,
+    // Rank by embedding similarity from the per-dataset HNSW graph
+    VECTOR,
+    // Retrieve candidates locally (BM25 or HNSW), then let OpenAI rerank only those
+    HYBRID;
+
+    public static SearchMode fromString(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return HYBRID;
+        }
+        return SearchMode.valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,52 @@
+package com.joborchestratorai.akkajoborchestratorai.search;
+
+import com.typesafe.config.Config;
+
+/**
+ * Search tuning read from the {@code resume-search} block of the actor system config,
+ * which the Spring config classes populate from {@code resume.search.*} properties.
+ */
+public class SearchSettings {
+    public final SearchMode mode;
+    public final float bm25K1;
+    public final float bm25B;
+    public final SearchMode rerankCandidateSource;
+    public final int rerankCandidates;
+    public final String vectorEmbedder;
+    public final int vectorDimensions;
+    public final int hnswM;
+    public final int hnswEfConstruction;
+    public final int hnswEfSearch;
+
+    public SearchSettings(SearchMode mode, float bm25K1, float bm25B,
+                          SearchMode rerankCandidateSource, int rerankCandidates,
+                          String vectorEmbedder, int vectorDimensions,
+                          int hnswM, int hnswEfConstruction, int hnswEfSearch) {
+        this.mode = mode;
+        this.bm25K1 = bm25K1;
+        this.bm25B = bm25B;
+        this.rerankCandidateSource = rerankCandidateSource;
+        this.rerankCandidates = rerankCandidates;
+        this.vectorEmbedder = vectorEmbedder;
+        this.vectorDimensions = vectorDimensions;
+        this.hnswM = hnswM;
+        this.hnswEfConstruction = hnswEfConstruction;
+        this.hnswEfSearch = hnswEfSearch;
+    }
+
+    public static SearchSettings fromConfig(Config config) {
+        Config search = config.getConfig("resume-search");
+        return new SearchSettings(
+                SearchMode.fromString(search.getString("mode")),
+                (float) search.getDouble("bm25.k1"),
+                (float) search.getDouble("bm25.b"),
+                SearchMode.fromString(search.getString("rerank.candidate-source")),
+                search.getInt("rerank.candidates"),
+                search.getString("vector.embedder"),
+                search.getInt("vector.dimensions"),
+                search.getInt("vector.hnsw.m"),
+                search.getInt("vector.hnsw.ef-construction"),
+                search.getInt("vector.hnsw.ef-search")
+        );
+    }
+}
@@ -0,0 +1,50 @@
+package com.joborchestratorai.akkajoborchestratorai.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+public final class Tokenizer {
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "has", "have", "in",
+            "into", "is", "it", "its", "of", "on", "or", "our", "that", "the", "their", "this",
+            "to", "we", "will", "with", "you", "your"
+    );
+
+    private Tokenizer() {}
+
+    /**
+     * Lower-cases the text and splits it into word tokens, dropping stop words.
+     * '+' and '#' are kept so that terms like "c++" and "c#" survive.
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+
+        StringBuilder current = new StringBuilder();
+        String lower = text.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            if (Character.isLetterOrDigit(c) || c == '+' || c == '#') {
+                current.append(c);
+            } else if (current.length() > 0) {
+                addToken(tokens, current.toString());
+                current.setLength(0);
+            }
+        }
+        if (current.length() > 0) {
+            addToken(tokens, current.toString());
+        }
+        return tokens;
+    }
+
+    private static void addToken(List<String> tokens, String token) {
+        if (!STOP_WORDS.contains(token)) {
+            tokens.add(token);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.joborchestratorai.akkajoborchestratorai.search;
+
+import com.joborchestratorai.akkajoborchestratorai.models.SearchResult;
+
+import java.util.*;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Keeps the K highest-scoring items seen so far in a bounded min-heap, so results can be
+ * folded in as they arrive with O(K) memory and O(n log K) work overall.
+ */
+public class TopKMerger<T> {
+
+    private final int k;
+    private final Comparator<T> lowestFirst;
+    private final PriorityQueue<T> heap;
+
+    public TopKMerger(int k, ToDoubleFunction<T> score) {
+        this.k = Math.max(k, 0);
+        this.lowestFirst = Comparator.comparingDouble(score);
+        this.heap = new PriorityQueue<>(Math.max(this.k, 1), lowestFirst);
+    }
+
+    public static TopKMerger<SearchResult> forSearchResults(int k) {
+        return new TopKMerger<>(k, SearchResult::getScore);
+    }
+
+    public void offer(T item) {
+        if (k == 0) {
+            return;
+        }
+        if (heap.size() < k) {
+            heap.add(item);
+        } else if (lowestFirst.compare(item, heap.peek()) > 0) {
+            heap.poll();
+            heap.add(item);
+        }
+    }
+
+    public void offerAll(Collection<? extends T> items) {
+        for (T item : items) {
+            offer(item);
+        }
+    }
+
+    public int size() {
+        return heap.size();
+    }
+
+    /**
+     * Returns the retained items, highest score first. The merger can keep accepting items afterwards.
+     */
+    public List<T> result() {
+        List<T> results = new ArrayList<>(heap);
+        results.sort(lowestFirst.reversed());
+        return results;
+    }
+}
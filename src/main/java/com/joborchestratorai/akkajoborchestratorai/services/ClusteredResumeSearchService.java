@@ -1,17 +1,19 @@
 package com.joborchestratorai.akkajoborchestratorai.services;
 
-import akka.actor.typed.ActorRef;
+import akka.Done;
 import akka.actor.typed.ActorSystem;
-import akka.actor.typed.javadsl.Behaviors;
-import akka.cluster.sharding.typed.javadsl.ClusterSharding;
-import akka.cluster.sharding.typed.javadsl.EntityRef;
 import com.joborchestratorai.akkajoborchestratorai.actors.ClusteredMasterActor;
-import com.joborchestratorai.akkajoborchestratorai.actors.ResumeShardActor;
+import com.joborchestratorai.akkajoborchestratorai.config.ResumeSearchProperties;
+import com.joborchestratorai.akkajoborchestratorai.models.CrossDatasetSearchResult;
+import com.joborchestratorai.akkajoborchestratorai.models.DatasetInfo;
+import com.joborchestratorai.akkajoborchestratorai.models.IngestionStatus;
 import com.joborchestratorai.akkajoborchestratorai.models.SearchResult;
-import com.joborchestratorai.akkajoborchestratorai.services.LocalStorageService;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
@@ -20,65 +22,93 @@ import java.util.concurrent.TimeUnit;
 @Profile({"node1", "node2", "clustered"}) // Only active in clustered profiles
 public class ClusteredResumeSearchService {
 
-    private final ActorSystem<ClusteredMasterActor.Command> actorSystem;
-    private final ClusterSharding sharding;
+    private static final long SAFETY_MARGIN_MILLIS = 5000;
 
-    public ClusteredResumeSearchService(ActorSystem<ClusteredMasterActor.Command> actorSystem) {
+    private final ActorSystem<ClusteredMasterActor.Command> actorSystem;
+    private final ResumeSearchProperties searchProperties;
+    private final DatasetCatalog datasetCatalog;
+    private final SingleFlight<List<Object>, CrossDatasetSearchResult> searchesInFlight =
+            new SingleFlight<>("cluster-search");
+
+    public ClusteredResumeSearchService(ActorSystem<ClusteredMasterActor.Command> actorSystem,
+                                        ResumeSearchProperties searchProperties,
+                                        DatasetCatalog datasetCatalog) {
         this.actorSystem = actorSystem;
-        this.sharding = ClusterSharding.get(actorSystem);
+        this.searchProperties = searchProperties;
+        this.datasetCatalog = datasetCatalog;
     }
 
-    public CompletableFuture<Void> indexDatasetFile(String datasetId, String filePath) {
-        return CompletableFuture.runAsync(() -> {
-            actorSystem.tell(new ClusteredMasterActor.ProcessDatasetFile(datasetId, filePath));
-        });
+    // Completes once the dataset is indexed and persisted, or with a FAILED status
+    public CompletableFuture<IngestionStatus> indexDatasetFile(String datasetId, String filePath) {
+        CompletableFuture<IngestionStatus> future = new CompletableFuture<>();
+        actorSystem.tell(new ClusteredMasterActor.ProcessDatasetFile(datasetId, filePath, future));
+        return future;
+    }
+
+    // Completes once the node owning the dataset has deleted it; its catalog entry is removed with it
+    public CompletableFuture<Done> clearDataset(String datasetId) {
+        CompletableFuture<Done> future = new CompletableFuture<>();
+        actorSystem.tell(new ClusteredMasterActor.ClearDataset(datasetId, future));
+        return future;
     }
 
     public CompletableFuture<List<SearchResult>> searchInDataset(String datasetId, String jobDescription, int topK) {
-        CompletableFuture<List<SearchResult>> future = new CompletableFuture<>();
-
-        EntityRef<ResumeShardActor.Command> entityRef = sharding.entityRefFor(
-                ResumeShardActor.TYPE_KEY, datasetId
-        );
-
-        // Simplified approach using Behaviors.receiveMessage
-        ActorRef<ResumeShardActor.SearchResponse> responseHandler =
-                actorSystem.systemActorOf(
-                        Behaviors.setup(context ->
-                                Behaviors.receiveMessage(response -> {
-                                    future.complete(response.results);
-                                    return Behaviors.stopped();
-                                })
-                        ),
-                        "search-response-" + System.currentTimeMillis(),
-                        akka.actor.typed.Props.empty()
-                );
-
-        entityRef.tell(new ResumeShardActor.SearchInDataset(datasetId, jobDescription, topK, responseHandler));
-
-        return future.orTimeout(30, TimeUnit.SECONDS);
+        return searchInDataset(datasetId, jobDescription, topK, 0);
+    }
+
+    public CompletableFuture<List<SearchResult>> searchInDataset(String datasetId, String jobDescription, int topK,
+                                                                 int candidatePoolSize) {
+        // A single-dataset search is a scatter-gather of one, so it gets the same deadline
+        return searchAcrossDatasets(Collections.singletonList(datasetId), jobDescription, topK, candidatePoolSize);
     }
 
     public CompletableFuture<List<SearchResult>> searchAcrossDatasets(List<String> datasetIds,
                                                                       String jobDescription, int topK) {
-        CompletableFuture<List<SearchResult>> future = new CompletableFuture<>();
+        return searchAcrossDatasets(datasetIds, jobDescription, topK, 0);
+    }
 
-        actorSystem.tell(new ClusteredMasterActor.SearchAcrossDatasets(
-                datasetIds, jobDescription, topK, future
-        ));
+    public CompletableFuture<List<SearchResult>> searchAcrossDatasets(List<String> datasetIds, String jobDescription,
+                                                                      int topK, int candidatePoolSize) {
+        return searchAcrossDatasetsWithStatus(datasetIds, jobDescription, topK, candidatePoolSize,
+                searchProperties.getScatterGatherDeadline(), searchProperties.isAllowPartialResults())
+                .thenApply(CrossDatasetSearchResult::getResults);
+    }
+
+    // Also reports which datasets missed the deadline when partial results are allowed
+    public CompletableFuture<CrossDatasetSearchResult> searchAcrossDatasetsWithStatus(
+            List<String> datasetIds, String jobDescription, int topK, int candidatePoolSize,
+            Duration deadline, boolean allowPartialResults) {
+        if (datasetIds == null || datasetIds.isEmpty()) {
+            return CompletableFuture.completedFuture(new CrossDatasetSearchResult(List.of(), List.of()));
+        }
+        // Unlike List.of, Arrays.asList allows null elements, so a request missing a field still reaches validation
+        List<Object> key = Arrays.asList(datasetIds, jobDescription, topK, candidatePoolSize, deadline, allowPartialResults);
 
-        return future.orTimeout(60, TimeUnit.SECONDS);
+        // Identical searches arriving while one is running share its scatter-gather
+        return searchesInFlight.execute(key, () -> {
+            CompletableFuture<CrossDatasetSearchResult> future = new CompletableFuture<>();
+
+            actorSystem.tell(new ClusteredMasterActor.SearchAcrossDatasets(
+                    datasetIds, jobDescription, topK, candidatePoolSize, deadline, allowPartialResults, future
+            ));
+
+            // The aggregator enforces the deadline; this is only a safety net if the request is lost
+            return future.orTimeout(deadline.toMillis() + SAFETY_MARGIN_MILLIS, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    // Searches every dataset in the cluster-wide catalog
+    public CompletableFuture<List<SearchResult>> searchAllDatasets(String jobDescription, int topK) {
+        return searchAcrossDatasets(getAllDatasetIds(), jobDescription, topK);
     }
 
-    // Convenience method to get all available dataset IDs
+    // Every dataset known anywhere in the cluster, answered from this node's replica of the catalog
     public List<String> getAllDatasetIds() {
-        try {
-            LocalStorageService storageService = new LocalStorageService();
-            return storageService.getAllDatasetIds().stream().toList();
-        } catch (Exception e) {
-            System.err.println("Error getting dataset IDs: " + e.getMessage());
-            return List.of();
-        }
+        return datasetCatalog.getDatasetIds();
+    }
+
+    public List<DatasetInfo> getDatasets() {
+        return datasetCatalog.getDatasets();
     }
 
     // Test method to verify cluster connectivity
@@ -2,26 +2,50 @@ package com.joborchestratorai.akkajoborchestratorai.services;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.joborchestratorai.akkajoborchestratorai.ingest.PointNormalizer;
 import com.joborchestratorai.akkajoborchestratorai.models.ResumeData;
+import com.joborchestratorai.akkajoborchestratorai.storage.DatasetSegmentLog;
+import com.joborchestratorai.akkajoborchestratorai.storage.MappedDatasetFile;
+import com.joborchestratorai.akkajoborchestratorai.storage.WeightedLruCache;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Service
 public class ClusteredStorageService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ClusteredStorageService.class);
+
     @Value("${resume.storage.path:./resume-data}")
     private String storagePath;
 
+    @Value("${resume.storage.cache.max-size:256MB}")
+    private DataSize maxCacheSize;
+
     private final ObjectMapper objectMapper;
-    private final Map<String, ResumeData> datasetCache = new HashMap<>();
+    private WeightedLruCache<String, ResumeData> datasetCache;
+    // One log per dataset, since a log only serialises appends and compaction within its instance
+    private final Map<String, DatasetSegmentLog> logs = new ConcurrentHashMap<>();
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "dataset-log-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     public ClusteredStorageService() {
         this.objectMapper = new ObjectMapper();
@@ -33,39 +57,185 @@ public class ClusteredStorageService {
                 ? storagePath : "./resume-data";
     }
 
+    // Created on first use so the @Value size is injected; one bean, so one cache per node.
+    // Only mapped datasets are kept: a dataset rebuilt on the heap from its log would sit here
+    // next to the copy the shard entity interns into the PointStore, so it is read, handed over
+    // and dropped instead. That leaves the cache to save reopening and checking the snapshots of
+    // datasets that have not changed since their last compaction, not to hold dataset text
+    private synchronized WeightedLruCache<String, ResumeData> getDatasetCache() {
+        if (datasetCache == null) {
+            long maxBytes = maxCacheSize != null ? maxCacheSize.toBytes() : DataSize.ofMegabytes(256).toBytes();
+            datasetCache = new WeightedLruCache<>("datasets", maxBytes, ClusteredStorageService::estimateBytes,
+                    resumeData -> resumeData.getResumePoints() == null
+                            || MappedDatasetFile.isMapped(resumeData.getResumePoints()));
+        }
+        return datasetCache;
+    }
+
+    /**
+     * Rough heap footprint of a cached dataset: its points are mapped, so each only costs its list entry.
+     */
+    static long estimateBytes(ResumeData resumeData) {
+        List<String> points = resumeData.getResumePoints();
+        return points == null ? 64 : 64 + 8L * points.size();
+    }
+
+    /**
+     * Replaces the whole dataset. Only the difference to what is stored is written, so this
+     * costs a read of the current state but no more I/O than {@link #storeDatasetChanges}.
+     */
     public void storeDatasetResumeData(String datasetId, ResumeData resumeData) throws IOException {
-        Path storageDir = Paths.get(getStoragePath(), "datasets");
-        java.nio.file.Files.createDirectories(storageDir);
+        ResumeData current = getDatasetResumeData(datasetId);
+        Map<Long, String> previous = new HashMap<>();
+        if (current != null) {
+            for (String point : current.getResumePoints()) {
+                previous.put(PointNormalizer.dedupeKey(point), point);
+            }
+        }
 
+        List<String> added = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        for (String point : resumeData.getResumePoints()) {
+            long key = PointNormalizer.dedupeKey(point);
+            // A repeated point would otherwise be logged as a second ADD and counted twice
+            if (seen.add(key) && previous.remove(key) == null) {
+                added.add(point);
+            }
+        }
+        storeDatasetChanges(datasetId, resumeData, added, previous.values());
+    }
+
+    /**
+     * Appends the given changes to the dataset's log. Only the metadata of {@code resumeData}
+     * is used, so callers need not hold the whole dataset; the cached copy is dropped and
+     * reloaded from the log on next use.
+     */
+    public void storeDatasetChanges(String datasetId, ResumeData resumeData,
+                                    Collection<String> added, Collection<String> removed) throws IOException {
         // Set the dataset-specific ID
         resumeData.setId(datasetId);
 
-        Path dataPath = storageDir.resolve(datasetId + ".json");
-        objectMapper.writeValue(dataPath.toFile(), resumeData);
+        DatasetSegmentLog log = logFor(datasetId);
+        if (!log.exists()) {
+            migrateToLog(datasetId, log);
+        }
+        log.append(resumeData, added, removed);
 
-        // Cache for quick access
-        datasetCache.put(datasetId, resumeData);
+        getDatasetCache().invalidate(datasetId);
 
-        System.out.println("Dataset " + datasetId + " stored at: " + dataPath.toString());
+        logger.info("Dataset {}: appended {} added and {} removed points to {}",
+                datasetId, added.size(), removed.size(), logPath(datasetId));
     }
 
     public ResumeData getDatasetResumeData(String datasetId) throws IOException {
-        // Check cache first
-        if (datasetCache.containsKey(datasetId)) {
-            return datasetCache.get(datasetId);
+        // Concurrent misses for a dataset share a single read
+        return getDatasetCache().get(datasetId, () -> loadDatasetResumeData(datasetId));
+    }
+
+    private ResumeData loadDatasetResumeData(String datasetId) throws IOException {
+        DatasetSegmentLog log = logFor(datasetId);
+        if (log.exists()) {
+            return log.read();
+        } else if (binaryPath(datasetId).toFile().exists()) {
+            // Mapping is constant-time; points are paged in as they are read
+            return MappedDatasetFile.open(binaryPath(datasetId)).getResumeData();
+        } else if (jsonPath(datasetId).toFile().exists()) {
+            return objectMapper.readValue(jsonPath(datasetId).toFile(), ResumeData.class);
+        }
+        logger.debug("No data found for dataset: {}", datasetId);
+        return null;
+    }
+
+    /**
+     * How many points a dataset holds, read from file headers so the dataset is not loaded;
+     * only a dataset still stored as JSON by an older version has to be parsed.
+     */
+    public int getDatasetPointCount(String datasetId) throws IOException {
+        DatasetSegmentLog log = logFor(datasetId);
+        if (log.exists()) {
+            return log.pointCount();
+        } else if (binaryPath(datasetId).toFile().exists()) {
+            return MappedDatasetFile.readPointCount(binaryPath(datasetId));
+        }
+        ResumeData data = loadDatasetResumeData(datasetId);
+        return data != null && data.getResumePoints() != null ? data.getResumePoints().size() : 0;
+    }
+
+    /**
+     * Writes a dataset as JSON, the interchange format.
+     */
+    public void exportDatasetJson(String datasetId, Path target) throws IOException {
+        if (!logFor(datasetId).exists() && binaryPath(datasetId).toFile().exists()) {
+            MappedDatasetFile dataset = MappedDatasetFile.open(binaryPath(datasetId));
+            dataset.verify();
+            objectMapper.writeValue(target.toFile(), dataset.getResumeData());
+            return;
+        }
+        ResumeData data = getDatasetResumeData(datasetId);
+        if (data == null) {
+            throw new IOException("No data found for dataset: " + datasetId);
         }
+        objectMapper.writeValue(target.toFile(), data);
+    }
+
+    public void importDatasetJson(String datasetId, Path source) throws IOException {
+        storeDatasetResumeData(datasetId, objectMapper.readValue(source.toFile(), ResumeData.class));
+    }
 
-        Path dataPath = Paths.get(getStoragePath(), "datasets", datasetId + ".json");
-        File file = dataPath.toFile();
+    /**
+     * Marks the current state of a dataset's log for {@link #getDatasetChangesSince}, or returns -1
+     * if the dataset has no log yet.
+     */
+    public long checkpointDataset(String datasetId) throws IOException {
+        DatasetSegmentLog log = logFor(datasetId);
+        return log.exists() ? log.checkpoint() : -1;
+    }
+
+    /**
+     * What changed in a dataset since a checkpoint, or null if that can no longer be told
+     * from the log and the caller has to compare against the whole dataset.
+     */
+    public DatasetSegmentLog.Changes getDatasetChangesSince(String datasetId, long position) throws IOException {
+        return position >= 0 ? logFor(datasetId).changesSince(position) : null;
+    }
+
+    /**
+     * Where the shard owning a dataset keeps the snapshot of its built search indexes.
+     */
+    public Path getIndexSnapshotPath(String datasetId) {
+        return Paths.get(getStoragePath(), "datasets", datasetId + ".idx");
+    }
 
-        if (!file.exists()) {
-            System.out.println("No data found for dataset: " + datasetId);
-            return null;
+    // A dataset stored as a single file by an older version becomes the log's first snapshot
+    private void migrateToLog(String datasetId, DatasetSegmentLog log) throws IOException {
+        ResumeData legacy = loadDatasetResumeData(datasetId);
+        if (legacy == null) {
+            return;
         }
+        log.seed(legacy);
+        Files.deleteIfExists(binaryPath(datasetId));
+        Files.deleteIfExists(jsonPath(datasetId));
+    }
+
+    private DatasetSegmentLog logFor(String datasetId) {
+        return logs.computeIfAbsent(datasetId, id -> new DatasetSegmentLog(logPath(id), compactor));
+    }
+
+    @PreDestroy
+    public void close() {
+        compactor.shutdown();
+    }
+
+    private Path logPath(String datasetId) {
+        return Paths.get(getStoragePath(), "datasets", datasetId + DatasetSegmentLog.DIRECTORY_SUFFIX);
+    }
+
+    private Path binaryPath(String datasetId) {
+        return Paths.get(getStoragePath(), "datasets", datasetId + MappedDatasetFile.EXTENSION);
+    }
 
-        ResumeData data = objectMapper.readValue(file, ResumeData.class);
-        datasetCache.put(datasetId, data);
-        return data;
+    private Path jsonPath(String datasetId) {
+        return Paths.get(getStoragePath(), "datasets", datasetId + ".json");
     }
 
     public Set<String> getAllDatasetIds() {
@@ -74,31 +244,34 @@ public class ClusteredStorageService {
             return Collections.emptySet();
         }
 
-        File[] files = datasetsDir.listFiles((dir, name) -> name.endsWith(".json"));
+        File[] files = datasetsDir.listFiles((dir, name) -> name.endsWith(".json")
+                || name.endsWith(MappedDatasetFile.EXTENSION) || name.endsWith(DatasetSegmentLog.DIRECTORY_SUFFIX));
         if (files == null) {
             return Collections.emptySet();
         }
 
         Set<String> datasetIds = new HashSet<>();
         for (File file : files) {
-            String fileName = file.getName().replace(".json", "");
-            datasetIds.add(fileName);
+            String fileName = file.getName();
+            datasetIds.add(fileName.substring(0, fileName.lastIndexOf('.')));
         }
         return datasetIds;
     }
 
     public void clearDataset(String datasetId) throws IOException {
-        datasetCache.remove(datasetId);
-        Path dataPath = Paths.get(getStoragePath(), "datasets", datasetId + ".json");
-        File file = dataPath.toFile();
-        if (file.exists() && !file.delete()) {
-            throw new IOException("Failed to delete dataset file: " + dataPath);
+        getDatasetCache().invalidate(datasetId);
+        logFor(datasetId).delete();
+        for (Path dataPath : List.of(binaryPath(datasetId), jsonPath(datasetId), getIndexSnapshotPath(datasetId))) {
+            File file = dataPath.toFile();
+            if (file.exists() && !file.delete()) {
+                throw new IOException("Failed to delete dataset file: " + dataPath);
+            }
         }
     }
 
     public boolean hasDatasetData(String datasetId) {
-        File file = new File(getStoragePath(), "datasets/" + datasetId + ".json");
-        return file.exists();
+        return logFor(datasetId).exists()
+                || binaryPath(datasetId).toFile().exists() || jsonPath(datasetId).toFile().exists();
     }
 
     public int getDatasetCount() {
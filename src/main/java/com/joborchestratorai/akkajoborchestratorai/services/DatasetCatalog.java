@@ -0,0 +1,80 @@
+package com.joborchestratorai.akkajoborchestratorai.services;
+
+import com.joborchestratorai.akkajoborchestratorai.models.DatasetInfo;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * This node's view of the cluster-wide dataset catalog. The catalog itself is a replicated
+ * map kept by {@link com.joborchestratorai.akkajoborchestratorai.actors.DatasetCatalogActor};
+ * every change it sees is published here as an immutable copy, so lookups are lock-free
+ * reads of memory and never go to the filesystem or another node.
+ */
+@Component
+@Profile({"node1", "node2", "clustered"})
+public class DatasetCatalog {
+
+    private volatile Map<String, DatasetInfo> datasets = Map.of();
+    // Recorded here but not yet seen in a replicated state; only these survive missing from one
+    private final Set<String> unconfirmed = new HashSet<>();
+
+    public DatasetCatalog() {
+        MetricsRegistry.getInstance().gauge("dataset-catalog.entries", () -> datasets.size());
+    }
+
+    public List<String> getDatasetIds() {
+        List<String> ids = new ArrayList<>(datasets.keySet());
+        Collections.sort(ids);
+        return ids;
+    }
+
+    public List<DatasetInfo> getDatasets() {
+        List<DatasetInfo> all = new ArrayList<>(datasets.values());
+        all.sort(Comparator.comparing(DatasetInfo::getDatasetId));
+        return all;
+    }
+
+    public DatasetInfo get(String datasetId) {
+        return datasets.get(datasetId);
+    }
+
+    /**
+     * Takes the latest replicated state. A newer version recorded locally is kept, since a
+     * change notification can be older than a write this node has just made; any other entry
+     * missing from the replicated state was removed and is dropped.
+     */
+    public synchronized void replace(Map<String, DatasetInfo> replicated) {
+        Map<String, DatasetInfo> updated = new HashMap<>(replicated);
+        for (DatasetInfo local : datasets.values()) {
+            DatasetInfo remote = updated.get(local.getDatasetId());
+            if (remote == null ? unconfirmed.contains(local.getDatasetId()) : remote.getVersion() < local.getVersion()) {
+                updated.put(local.getDatasetId(), local);
+            } else {
+                unconfirmed.remove(local.getDatasetId());
+            }
+        }
+        datasets = Map.copyOf(updated);
+    }
+
+    /**
+     * Records a change made on this node right away, ahead of the replicator's change notification.
+     */
+    public synchronized void record(DatasetInfo info) {
+        Map<String, DatasetInfo> updated = new HashMap<>(datasets);
+        updated.put(info.getDatasetId(), info);
+        unconfirmed.add(info.getDatasetId());
+        datasets = Map.copyOf(updated);
+    }
+
+    /**
+     * Drops a dataset cleared on this node right away, ahead of the replicator's change notification.
+     */
+    public synchronized void remove(String datasetId) {
+        Map<String, DatasetInfo> updated = new HashMap<>(datasets);
+        updated.remove(datasetId);
+        unconfirmed.remove(datasetId);
+        datasets = Map.copyOf(updated);
+    }
+}
@@ -0,0 +1,248 @@
+package com.joborchestratorai.akkajoborchestratorai.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Two-tier cache of OpenAI chat completions keyed by a SHA-256 of the full request.
+ * The first tier is a size-bounded in-memory LRU, the second one JSON file per entry
+ * on disk so completions survive restarts. Entries older than the TTL count as misses.
+ * <p>
+ * The disk tier is swept in the background at startup, every {@link #SWEEP_INTERVAL} and whenever
+ * it has grown past its entry cap: expired files are deleted and, over the cap, the oldest ones.
+ */
+public class LlmCompletionCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(LlmCompletionCache.class);
+
+    private static final Duration SWEEP_INTERVAL = Duration.ofHours(1);
+
+    public static class CachedCompletion {
+        public String completion;
+        public long createdAtMillis;
+
+        public CachedCompletion() {}
+
+        CachedCompletion(String completion, long createdAtMillis) {
+            this.completion = completion;
+            this.createdAtMillis = createdAtMillis;
+        }
+    }
+
+    private final Path directory;
+    private final long ttlMillis;
+    private final int maxDiskEntries;
+    private final Map<String, CachedCompletion> memory;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    // Files on disk as of the last sweep plus those written since
+    private final AtomicInteger diskEntries = new AtomicInteger();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private volatile long lastSweepMillis;
+
+    public LlmCompletionCache(Path directory, int maxEntries, int maxDiskEntries, Duration ttl) {
+        this.directory = directory;
+        this.ttlMillis = ttl.toMillis();
+        this.maxDiskEntries = Math.max(maxDiskEntries, 1);
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedCompletion> eldest) {
+                if (size() > maxEntries) {
+                    metrics.increment("llm.cache.memory.evictions");
+                    return true;
+                }
+                return false;
+            }
+        };
+        metrics.gauge("llm.cache.memory.size", this::memorySize);
+        metrics.gauge("llm.cache.disk.size", diskEntries::get);
+        // Entries left over from earlier runs may have expired while the node was down
+        sweepInBackground();
+    }
+
+    public static String key(String model, String systemPrompt, String userPrompt, double temperature, int maxTokens) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            // The separator keeps ("ab", "c") and ("a", "bc") from hashing the same
+            for (String part : new String[]{model, systemPrompt, userPrompt,
+                    Double.toString(temperature), Integer.toString(maxTokens)}) {
+                digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public Optional<String> get(String key) {
+        long now = System.currentTimeMillis();
+
+        CachedCompletion cached;
+        synchronized (memory) {
+            cached = memory.get(key);
+        }
+        if (cached != null && !isExpired(cached, now)) {
+            metrics.increment("llm.cache.memory.hits");
+            return Optional.of(cached.completion);
+        }
+
+        cached = readFromDisk(key);
+        if (cached != null && !isExpired(cached, now)) {
+            synchronized (memory) {
+                memory.put(key, cached);
+            }
+            metrics.increment("llm.cache.disk.hits");
+            return Optional.of(cached.completion);
+        }
+
+        if (cached != null) {
+            metrics.increment("llm.cache.expired");
+            remove(key);
+        }
+        metrics.increment("llm.cache.misses");
+        return Optional.empty();
+    }
+
+    public void put(String key, String completion) {
+        CachedCompletion cached = new CachedCompletion(completion, System.currentTimeMillis());
+        synchronized (memory) {
+            memory.put(key, cached);
+        }
+
+        try {
+            Path file = fileFor(key);
+            Files.createDirectories(file.getParent());
+            // Write to a temp file and rename so a crash never leaves a half-written entry behind
+            Path temp = Files.createTempFile(file.getParent(), key, ".tmp");
+            objectMapper.writeValue(temp.toFile(), cached);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Failed to persist LLM cache entry {}: {}", key, e.getMessage());
+            return;
+        }
+
+        if (diskEntries.incrementAndGet() > maxDiskEntries
+                || System.currentTimeMillis() - lastSweepMillis > SWEEP_INTERVAL.toMillis()) {
+            sweepInBackground();
+        }
+    }
+
+    // At most one sweep at a time; it walks the whole directory, so it stays off the caller's thread
+    private void sweepInBackground() {
+        if (sweeping.compareAndSet(false, true)) {
+            lastSweepMillis = System.currentTimeMillis();
+            CompletableFuture.runAsync(() -> {
+                try {
+                    sweep();
+                } finally {
+                    sweeping.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * Deletes expired entries from disk and, if more than the disk cap remain, the oldest ones.
+     * Entries are never rewritten, so a file's modification time is when it was cached.
+     */
+    private void sweep() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        long startedAt = System.nanoTime();
+        long now = System.currentTimeMillis();
+        List<Map.Entry<Path, Long>> live = new ArrayList<>();
+        int deleted = 0;
+        int excess;
+        try (Stream<Path> files = Files.walk(directory, 2)) {
+            for (Path file : files.filter(path -> path.getFileName().toString().endsWith(".json")).toList()) {
+                long modified = Files.getLastModifiedTime(file).toMillis();
+                if (now - modified > ttlMillis) {
+                    deleted += Files.deleteIfExists(file) ? 1 : 0;
+                } else {
+                    live.add(Map.entry(file, modified));
+                }
+            }
+
+            live.sort(Map.Entry.comparingByValue());
+            // Down to 90% of the cap, so a cache that is full does not sweep again on every write
+            excess = live.size() > maxDiskEntries ? live.size() - (maxDiskEntries - maxDiskEntries / 10) : 0;
+            for (int i = 0; i < excess; i++) {
+                deleted += Files.deleteIfExists(live.get(i).getKey()) ? 1 : 0;
+            }
+        } catch (IOException | UncheckedIOException e) {
+            logger.warn("Failed to sweep LLM cache directory {}: {}", directory, e.getMessage());
+            return;
+        }
+
+        diskEntries.set(live.size() - excess);
+        metrics.counter("llm.cache.disk.swept").add(deleted);
+        metrics.timer("llm.cache.disk.sweep").record(System.nanoTime() - startedAt);
+        if (deleted > 0) {
+            logger.info("Swept {} expired or excess LLM cache entries, {} remain", deleted, live.size() - excess);
+        }
+    }
+
+    private int memorySize() {
+        synchronized (memory) {
+            return memory.size();
+        }
+    }
+
+    private boolean isExpired(CachedCompletion cached, long now) {
+        return now - cached.createdAtMillis > ttlMillis;
+    }
+
+    private CachedCompletion readFromDisk(String key) {
+        Path file = fileFor(key);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(file.toFile(), CachedCompletion.class);
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable LLM cache entry {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private void remove(String key) {
+        synchronized (memory) {
+            memory.remove(key);
+        }
+        try {
+            if (Files.deleteIfExists(fileFor(key))) {
+                diskEntries.decrementAndGet();
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to delete expired LLM cache entry {}: {}", key, e.getMessage());
+        }
+    }
+
+    // Fan out by the first two hex characters to keep directories small
+    private Path fileFor(String key) {
+        return directory.resolve(key.substring(0, 2)).resolve(key + ".json");
+    }
+}
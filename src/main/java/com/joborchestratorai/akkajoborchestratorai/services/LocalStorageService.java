@@ -3,6 +3,9 @@ package com.joborchestratorai.akkajoborchestratorai.services;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.joborchestratorai.akkajoborchestratorai.models.ResumeData;
+import com.joborchestratorai.akkajoborchestratorai.storage.DatasetSegmentLog;
+import com.joborchestratorai.akkajoborchestratorai.storage.MappedDatasetFile;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -26,6 +29,7 @@ public class LocalStorageService {
     private String storagePath;
 
     private final ObjectMapper objectMapper;
+    private ResumeCatalog catalog;
 
     public LocalStorageService() {
         this.objectMapper = new ObjectMapper();
@@ -38,7 +42,34 @@ public class LocalStorageService {
                 ? storagePath : "./resume-data";
     }
 
+    // Started on first use so the @Value path is injected; one bean, so one catalog and watcher per node
+    private synchronized ResumeCatalog catalog() {
+        if (catalog == null) {
+            catalog = new ResumeCatalog(Paths.get(getStoragePath()).toAbsolutePath().normalize());
+            catalog.start();
+        }
+        return catalog;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (catalog != null) {
+            catalog.close();
+            catalog = null;
+        }
+    }
+
     public void storeResumeData(ResumeData resumeData) throws IOException {
+        Path dataPath = resolveResumeDataPath(resumeData);
+        objectMapper.writeValue(dataPath.toFile(), resumeData);
+        recordStored(dataPath, resumeData);
+        System.out.println("Resume data stored successfully at: " + dataPath.toString());
+    }
+
+    /**
+     * Assigns an id to the resume data if it has none and returns the file it is stored in.
+     */
+    public Path resolveResumeDataPath(ResumeData resumeData) {
         if (resumeData == null) {
             throw new IllegalArgumentException("Resume data cannot be null");
         }
@@ -63,47 +94,33 @@ public class LocalStorageService {
             }
         }
 
-        Path dataPath = storageDir.resolve(fileId + ".json");
-        objectMapper.writeValue(dataPath.toFile(), resumeData);
-        System.out.println("Resume data stored successfully at: " + dataPath.toString());
+        return storageDir.resolve(fileId + ".json");
     }
 
-    public ResumeData getLatestResumeData() throws IOException {
-        File dir = new File(getStoragePath());
-
-        // Check if directory exists
-        if (!dir.exists()) {
-            System.out.println("Storage directory does not exist: " + getStoragePath());
-            return null;
-        }
+    /**
+     * Records resume data written to {@code dataPath} by someone else, e.g. the write-behind writer,
+     * so lookups see it without re-reading the file.
+     */
+    public void recordStored(Path dataPath, ResumeData resumeData) {
+        catalog().stored(dataPath, resumeData);
+    }
 
-        File[] files = dir.listFiles((d, name) -> name.endsWith(".json"));
+    public Path getStorageDirectory() {
+        return Paths.get(getStoragePath());
+    }
 
-        if (files == null || files.length == 0) {
+    // Served from the catalog, which watches the directory instead of listing it on every call
+    public ResumeData getLatestResumeData() throws IOException {
+        ResumeData latest = catalog().getLatest();
+        if (latest == null) {
             System.out.println("No resume data files found in: " + getStoragePath());
-            return null;
-        }
-
-        File latestFile = files[0];
-        for (File file : files) {
-            if (file.lastModified() > latestFile.lastModified()) {
-                latestFile = file;
-            }
         }
-
-        System.out.println("Loading resume data from: " + latestFile.getAbsolutePath());
-        return objectMapper.readValue(latestFile, ResumeData.class);
+        return latest;
     }
 
     // Additional utility methods
     public boolean hasResumeData() {
-        File dir = new File(getStoragePath());
-        if (!dir.exists()) {
-            return false;
-        }
-
-        File[] files = dir.listFiles((d, name) -> name.endsWith(".json"));
-        return files != null && files.length > 0;
+        return catalog().size() > 0;
     }
 
     public void clearAllResumeData() throws IOException {
@@ -120,16 +137,11 @@ public class LocalStorageService {
                 }
             }
         }
+        catalog().refresh();
     }
 
     public int getResumeDataCount() {
-        File dir = new File(getStoragePath());
-        if (!dir.exists()) {
-            return 0;
-        }
-
-        File[] files = dir.listFiles((d, name) -> name.endsWith(".json"));
-        return files != null ? files.length : 0;
+        return catalog().size();
     }
 
     public Set<String> getAllDatasetIds() {
@@ -138,15 +150,16 @@ public class LocalStorageService {
             return Collections.emptySet();
         }
 
-        File[] files = datasetsDir.listFiles((dir, name) -> name.endsWith(".json"));
+        File[] files = datasetsDir.listFiles((dir, name) -> name.endsWith(".json")
+                || name.endsWith(MappedDatasetFile.EXTENSION) || name.endsWith(DatasetSegmentLog.DIRECTORY_SUFFIX));
         if (files == null) {
             return Collections.emptySet();
         }
 
         Set<String> datasetIds = new HashSet<>();
         for (File file : files) {
-            String fileName = file.getName().replace(".json", "");
-            datasetIds.add(fileName);
+            String fileName = file.getName();
+            datasetIds.add(fileName.substring(0, fileName.lastIndexOf('.')));
         }
         return datasetIds;
     }
@@ -171,6 +184,18 @@ public class LocalStorageService {
 
     // Add this method for dataset-specific retrieval
     public ResumeData getDatasetResumeData(String datasetId) throws IOException {
+        // Datasets written by the clustered profiles are kept as segment logs or mapped binary files;
+        // this profile only reads them, so the log never appends and never compacts
+        DatasetSegmentLog log = new DatasetSegmentLog(
+                Paths.get(getStoragePath(), "datasets", datasetId + DatasetSegmentLog.DIRECTORY_SUFFIX), Runnable::run);
+        if (log.exists()) {
+            return log.read();
+        }
+        Path binaryPath = Paths.get(getStoragePath(), "datasets", datasetId + MappedDatasetFile.EXTENSION);
+        if (Files.exists(binaryPath)) {
+            return MappedDatasetFile.open(binaryPath).getResumeData();
+        }
+
         Path dataPath = Paths.get(getStoragePath(), "datasets", datasetId + ".json");
         File file = dataPath.toFile();
 
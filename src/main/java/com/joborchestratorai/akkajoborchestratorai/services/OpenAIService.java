@@ -5,12 +5,20 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.joborchestratorai.akkajoborchestratorai.models.ResumeData;
 import com.joborchestratorai.akkajoborchestratorai.models.SearchResult;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,65 +31,234 @@ public class OpenAIService {
     @Value("${spring.ai.openai.chat.model:gpt-4}")
     private String model;
 
+    @Value("${spring.ai.openai.embedding.model:text-embedding-3-small}")
+    private String embeddingModel;
+
+    @Value("${resume.storage.path:./resume-data}")
+    private String storagePath;
+
+    @Value("${resume.llm.cache.enabled:true}")
+    private Boolean cacheEnabled;
+
+    @Value("${resume.llm.cache.max-entries:1000}")
+    private Integer cacheMaxEntries;
+
+    @Value("${resume.llm.cache.max-disk-entries:50000}")
+    private Integer cacheMaxDiskEntries;
+
+    @Value("${resume.llm.cache.ttl:7d}")
+    private Duration cacheTtl;
+
+    @Value("${resume.llm.rate-limit.requests-per-minute:500}")
+    private Integer requestsPerMinute;
+
+    @Value("${resume.llm.rate-limit.tokens-per-minute:30000}")
+    private Integer tokensPerMinute;
+
     private static final double DEFAULT_TEMPERATURE = 0.1;
     private static final int DEFAULT_MAX_TOKENS = 3000;
     private static final String OPENAI_API_URL = "https://api.openai.com/v1/chat/completions";
+    private static final String OPENAI_EMBEDDINGS_URL = "https://api.openai.com/v1/embeddings";
+    private static final String DEFAULT_EMBEDDING_MODEL = "text-embedding-3-small";
+    private static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(1);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofMinutes(2);
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
     private final ObjectMapper objectMapper = new ObjectMapper();
+    // Concurrent identical prompts share one API call
+    private final SingleFlight<String, String> completionsInFlight = new SingleFlight<>("llm.completions");
+
     private final LocalStorageService storageService;
+    private LlmCompletionCache completionCache;
+    private TokenBucketRateLimiter rateLimiter;
 
     public OpenAIService(LocalStorageService storageService) {
         this.storageService = storageService;
     }
 
+    // Created on first use so the @Value settings are injected; one bean, so one cache per node
+    private synchronized LlmCompletionCache getCompletionCache() {
+        if (Boolean.FALSE.equals(cacheEnabled)) {
+            return null;
+        }
+        if (completionCache == null) {
+            String root = (storagePath != null && !storagePath.trim().isEmpty()) ? storagePath : "./resume-data";
+            completionCache = new LlmCompletionCache(
+                    Paths.get(root, "llm-cache"),
+                    cacheMaxEntries != null ? cacheMaxEntries : 1000,
+                    cacheMaxDiskEntries != null ? cacheMaxDiskEntries : 50000,
+                    cacheTtl != null ? cacheTtl : Duration.ofDays(7)
+            );
+        }
+        return completionCache;
+    }
+
+    private synchronized TokenBucketRateLimiter getRateLimiter() {
+        if (rateLimiter == null) {
+            rateLimiter = new TokenBucketRateLimiter(
+                    requestsPerMinute != null ? requestsPerMinute : 500,
+                    tokensPerMinute != null ? tokensPerMinute : 30000
+            );
+        }
+        return rateLimiter;
+    }
+
+    // Rough count of ~4 characters per token; max_tokens counts against the quota up front as well
+    private static int estimateTokens(String text, int completionTokens) {
+        return text.length() / 4 + completionTokens;
+    }
+
     /**
      * Unified method to call the OpenAI Chat Completion API.
      */
     private String callOpenAI(String systemPrompt, String userPrompt, double temperature, int maxTokens) {
-        try {
-            // Always trim API key to avoid hidden whitespace errors
-            String cleanApiKey = Optional.ofNullable(apiKey)
-                    .map(String::trim)
-                    .orElseThrow(() -> new IllegalStateException("OpenAI API key is missing"));
-
-            // Prepare request body
-            Map<String, Object> requestBody = new LinkedHashMap<>();
-            requestBody.put("model", model);
-            requestBody.put("temperature", temperature);
-            requestBody.put("max_tokens", maxTokens);
-            requestBody.put("messages", List.of(
-                    Map.of("role", "system", "content", systemPrompt),
-                    Map.of("role", "user", "content", userPrompt)
-            ));
-
-            // Headers
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.setBearerAuth(cleanApiKey);
-
-            HttpEntity<Map<String, Object>> requestEntity = new HttpEntity<>(requestBody, headers);
-
-            // API call
-            ResponseEntity<String> response = restTemplate.exchange(
-                    OPENAI_API_URL, HttpMethod.POST, requestEntity, String.class
-            );
+        return await(callOpenAIAsync(systemPrompt, userPrompt, temperature, maxTokens));
+    }
 
-            if (response.getStatusCode() != HttpStatus.OK || response.getBody() == null) {
-                throw new RuntimeException("Invalid response from OpenAI: " + response.getStatusCode());
+    /**
+     * Non-blocking variant of {@link #callOpenAI}. The returned stage completes on the HTTP client's
+     * threads, so actors should consume it with pipeToSelf rather than touch their state from it.
+     */
+    private CompletionStage<String> callOpenAIAsync(String systemPrompt, String userPrompt,
+                                                    double temperature, int maxTokens) {
+        LlmCompletionCache cache = getCompletionCache();
+        String cacheKey = LlmCompletionCache.key(model, systemPrompt, userPrompt, temperature, maxTokens);
+        if (cache != null) {
+            Optional<String> cached = cache.get(cacheKey);
+            if (cached.isPresent()) {
+                return CompletableFuture.completedFuture(cached.get());
             }
+        }
 
-            // Parse JSON safely
-            JsonNode root = objectMapper.readTree(response.getBody());
-            JsonNode choices = root.path("choices");
-            if (!choices.isArray() || choices.isEmpty()) {
-                throw new RuntimeException("No choices returned from OpenAI");
-            }
+        return completionsInFlight.execute(cacheKey,
+                () -> requestCompletion(systemPrompt, userPrompt, temperature, maxTokens, cache, cacheKey));
+    }
+
+    private CompletionStage<String> requestCompletion(String systemPrompt, String userPrompt, double temperature,
+                                                      int maxTokens, LlmCompletionCache cache, String cacheKey) {
+        // Prepare request body
+        Map<String, Object> requestBody = new LinkedHashMap<>();
+        requestBody.put("model", model);
+        requestBody.put("temperature", temperature);
+        requestBody.put("max_tokens", maxTokens);
+        requestBody.put("messages", List.of(
+                Map.of("role", "system", "content", systemPrompt),
+                Map.of("role", "user", "content", userPrompt)
+        ));
+
+        return postAsync(OPENAI_API_URL, requestBody, estimateTokens(systemPrompt + userPrompt, maxTokens))
+                .thenApply(root -> {
+                    JsonNode choices = root.path("choices");
+                    if (!choices.isArray() || choices.isEmpty()) {
+                        throw new RuntimeException("No choices returned from OpenAI");
+                    }
 
-            return choices.get(0).path("message").path("content").asText("");
+                    String completion = choices.get(0).path("message").path("content").asText("");
+                    if (cache != null && !completion.isEmpty()) {
+                        cache.put(cacheKey, completion);
+                    }
+                    return completion;
+                });
+    }
 
+    /**
+     * Sends a JSON POST once the rate limiter allows it and parses the response body.
+     * The wait for quota is scheduled on a timer instead of sleeping on the caller's thread.
+     */
+    private CompletableFuture<JsonNode> postAsync(String url, Map<String, Object> requestBody, int estimatedTokens) {
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(url))
+                    .timeout(REQUEST_TIMEOUT)
+                    .header("Content-Type", "application/json")
+                    .header("Authorization", "Bearer " + cleanApiKey())
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(requestBody)))
+                    .build();
         } catch (Exception e) {
-            throw new RuntimeException("Error calling OpenAI API: " + e.getMessage(), e);
+            return CompletableFuture.failedFuture(new RuntimeException("Error preparing OpenAI request: " + e.getMessage(), e));
+        }
+
+        // Wait for quota before sending rather than letting the API answer 429
+        Duration wait = getRateLimiter().reserve(estimatedTokens);
+        CompletableFuture<HttpResponse<String>> response = wait.isZero()
+                ? httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                : CompletableFuture.runAsync(() -> {}, CompletableFuture.delayedExecutor(wait.toNanos(), TimeUnit.NANOSECONDS))
+                        .thenCompose(ignored -> httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+
+        return response.thenApply(this::parseResponseBody);
+    }
+
+    private JsonNode parseResponseBody(HttpResponse<String> response) {
+        if (response.statusCode() == 429) {
+            backOff(response);
+            throw new RuntimeException("OpenAI rate limit exceeded: " + response.body());
+        }
+        if (response.statusCode() != 200 || response.body() == null) {
+            throw new RuntimeException("Invalid response from OpenAI: " + response.statusCode());
+        }
+        try {
+            return objectMapper.readTree(response.body());
+        } catch (IOException e) {
+            throw new RuntimeException("Error parsing OpenAI response: " + e.getMessage(), e);
+        }
+    }
+
+    // Pause every caller on the node, not just this one, so a 429 does not turn into a storm of retries
+    private void backOff(HttpResponse<String> response) {
+        Duration retryAfter = DEFAULT_RETRY_AFTER;
+        Optional<String> header = response.headers().firstValue("Retry-After");
+        if (header.isPresent()) {
+            try {
+                retryAfter = Duration.ofMillis((long) (Double.parseDouble(header.get()) * 1000));
+            } catch (NumberFormatException ignored) {
+                // Retry-After may also be an HTTP date; the default pause is good enough then
+            }
+        }
+        getRateLimiter().pauseFor(retryAfter);
+    }
+
+    /**
+     * Embeds a batch of texts with the OpenAI embeddings API, parsed straight into primitive arrays.
+     */
+    public CompletionStage<float[][]> createEmbeddingsAsync(List<String> texts, int dimensions) {
+        Map<String, Object> requestBody = new LinkedHashMap<>();
+        requestBody.put("model", Optional.ofNullable(embeddingModel).orElse(DEFAULT_EMBEDDING_MODEL));
+        requestBody.put("input", texts);
+        requestBody.put("dimensions", dimensions);
+
+        return postAsync(OPENAI_EMBEDDINGS_URL, requestBody, estimateTokens(String.join("", texts), 0))
+                .thenApply(root -> {
+                    float[][] embeddings = new float[texts.size()][];
+                    for (JsonNode item : root.path("data")) {
+                        JsonNode values = item.path("embedding");
+                        float[] embedding = new float[values.size()];
+                        for (int i = 0; i < embedding.length; i++) {
+                            embedding[i] = (float) values.get(i).asDouble();
+                        }
+                        embeddings[item.path("index").asInt()] = embedding;
+                    }
+                    return embeddings;
+                });
+    }
+
+    private String cleanApiKey() {
+        // Always trim API key to avoid hidden whitespace errors
+        return Optional.ofNullable(apiKey)
+                .map(String::trim)
+                .orElseThrow(() -> new IllegalStateException("OpenAI API key is missing"));
+    }
+
+    // Blocking bridge for the synchronous API; unwraps failures so callers see the original exception
+    private static <T> T await(CompletionStage<T> stage) {
+        try {
+            return stage.toCompletableFuture().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException("Error calling OpenAI API: " + e.getCause().getMessage(), e.getCause());
         }
     }
 
@@ -105,9 +282,21 @@ public class OpenAIService {
     public List<SearchResult> findMatchingPoints(String jobDescription, int topK) throws IOException {
         ResumeData resumeData = storageService.getLatestResumeData();
 
-        if (resumeData == null || resumeData.getResumePoints().isEmpty()) {
+        if (resumeData == null) {
             return Collections.emptyList();
         }
+        return findMatchingPoints(jobDescription, resumeData.getResumePoints(), topK);
+    }
+
+    public List<SearchResult> findMatchingPoints(String jobDescription, List<String> resumePoints, int topK) {
+        return await(findMatchingPointsAsync(jobDescription, resumePoints, topK));
+    }
+
+    public CompletionStage<List<SearchResult>> findMatchingPointsAsync(String jobDescription, List<String> resumePoints,
+                                                                       int topK) {
+        if (resumePoints == null || resumePoints.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
 
         String systemPrompt = String.format(
                 "You are a resume analyzer. Given a job description and resume points, " +
@@ -118,12 +307,12 @@ public class OpenAIService {
         String userPrompt = String.format(
                 "Job Description:\n%s\n\nResume Points:\n%s\n\nReturn top %d matches with scores.",
                 jobDescription,
-                String.join("\n", resumeData.getResumePoints()),
+                String.join("\n", resumePoints),
                 topK
         );
 
-        String response = callOpenAI(systemPrompt, userPrompt, DEFAULT_TEMPERATURE, DEFAULT_MAX_TOKENS);
-        return parseResponse(response);
+        return callOpenAIAsync(systemPrompt, userPrompt, DEFAULT_TEMPERATURE, DEFAULT_MAX_TOKENS)
+                .thenApply(this::parseResponse);
     }
 
     private String createSystemPrompt() {
@@ -0,0 +1,205 @@
+package com.joborchestratorai.akkajoborchestratorai.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.joborchestratorai.akkajoborchestratorai.models.ResumeData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * In-memory index of the resume data files in one storage directory. The directory is
+ * scanned once, then kept current by a {@link WatchService}; the latest upload is parsed
+ * once and held until a newer file replaces it, so lookups never touch the disk.
+ * <p>
+ * Writes made through {@link LocalStorageService} are recorded directly as well, because
+ * watch events arrive asynchronously and a search right after an upload must see it.
+ */
+public class ResumeCatalog implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResumeCatalog.class);
+
+    private final Path directory;
+    private final ObjectMapper objectMapper;
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+
+    // File name -> last modified millis of every top-level *.json file
+    private final Map<String, Long> files = new HashMap<>();
+    private String latestFile;
+    private ResumeData latestData;
+    private WatchService watcher;
+
+    public ResumeCatalog(Path directory) {
+        this.directory = directory;
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new JavaTimeModule());
+    }
+
+    public synchronized ResumeData getLatest() throws IOException {
+        if (latestFile == null) {
+            return null;
+        }
+        if (latestData == null) {
+            Path file = directory.resolve(latestFile);
+            logger.info("Loading resume data from: {}", file.toAbsolutePath());
+            latestData = objectMapper.readValue(file.toFile(), ResumeData.class);
+            metrics.increment("catalog.loads");
+        }
+        return latestData;
+    }
+
+    public synchronized int size() {
+        return files.size();
+    }
+
+    /**
+     * Records a file just written by this node, with its parsed content, so it is served without a re-read.
+     */
+    public synchronized void stored(Path file, ResumeData resumeData) {
+        String name = file.getFileName().toString();
+        files.put(name, lastModified(file));
+        latestFile = name;
+        latestData = resumeData;
+    }
+
+    /**
+     * Re-reads the directory after files were removed behind the watcher's back, e.g. by a clear,
+     * so lookups made before the delete events arrive do not see them.
+     */
+    public void refresh() {
+        rescan();
+    }
+
+    /**
+     * Scans the directory and starts watching it; {@link #close} stops the watcher thread.
+     */
+    public void start() {
+        try {
+            Files.createDirectories(directory);
+            WatchService watcher = directory.getFileSystem().newWatchService();
+            synchronized (this) {
+                this.watcher = watcher;
+            }
+            // Register before scanning so nothing written in between is missed
+            directory.register(watcher, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+            rescan();
+
+            Thread thread = new Thread(() -> watch(watcher), "resume-catalog-watcher");
+            thread.setDaemon(true);
+            thread.start();
+        } catch (IOException e) {
+            logger.warn("Could not watch resume storage {}, using a one-off scan: {}", directory, e.getMessage());
+            rescan();
+        }
+        metrics.gauge("catalog.files", this::size);
+    }
+
+    @Override
+    public void close() {
+        WatchService current;
+        synchronized (this) {
+            current = watcher;
+            watcher = null;
+        }
+        if (current != null) {
+            try {
+                // Wakes the watcher thread with a ClosedWatchServiceException, which ends it
+                current.close();
+            } catch (IOException e) {
+                logger.warn("Failed to stop watching resume storage {}: {}", directory, e.getMessage());
+            }
+        }
+    }
+
+    private void watch(WatchService watcher) {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watcher.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == OVERFLOW) {
+                    rescan();
+                    continue;
+                }
+                String name = event.context().toString();
+                if (name.endsWith(".json")) {
+                    onChange(name, event.kind() == ENTRY_DELETE);
+                }
+            }
+            if (!key.reset()) {
+                logger.warn("Resume storage {} is no longer watchable", directory);
+                return;
+            }
+        }
+    }
+
+    private synchronized void onChange(String name, boolean deleted) {
+        metrics.increment("catalog.events");
+        Path file = directory.resolve(name);
+        if (deleted || !Files.exists(file)) {
+            files.remove(name);
+            if (name.equals(latestFile)) {
+                // Rare enough that finding the next newest file by a pass over the map is fine
+                latestFile = files.entrySet().stream()
+                        .max(Map.Entry.comparingByValue())
+                        .map(Map.Entry::getKey)
+                        .orElse(null);
+                latestData = null;
+            }
+            return;
+        }
+
+        long modified = lastModified(file);
+        Long known = files.put(name, modified);
+        if (known != null && known == modified) {
+            // Usually the echo of a write already recorded through stored()
+            return;
+        }
+        if (name.equals(latestFile)) {
+            // Rewritten in place, e.g. by another process; parse again on the next lookup
+            latestData = null;
+        } else if (latestFile == null || modified > files.getOrDefault(latestFile, Long.MIN_VALUE)) {
+            latestFile = name;
+            latestData = null;
+        }
+    }
+
+    private synchronized void rescan() {
+        metrics.increment("catalog.scans");
+        files.clear();
+        try (Stream<Path> listing = Files.list(directory)) {
+            listing.filter(path -> path.getFileName().toString().endsWith(".json") && Files.isRegularFile(path))
+                    .forEach(path -> files.put(path.getFileName().toString(), lastModified(path)));
+        } catch (IOException e) {
+            logger.error("Failed to scan resume storage {}: {}", directory, e.getMessage());
+        }
+
+        String newest = files.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .orElse(null);
+        if (newest == null || !newest.equals(latestFile)) {
+            latestData = null;
+        }
+        latestFile = newest;
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
@@ -4,23 +4,47 @@ import akka.actor.typed.ActorRef;
 import akka.actor.typed.ActorSystem;
 import akka.actor.typed.javadsl.AskPattern;
 import com.joborchestratorai.akkajoborchestratorai.actors.MasterActor;
+import com.joborchestratorai.akkajoborchestratorai.ingest.IngestSettings;
+import com.joborchestratorai.akkajoborchestratorai.ingest.LimitedInputStream;
+import com.joborchestratorai.akkajoborchestratorai.ingest.NearDuplicateDetector;
+import com.joborchestratorai.akkajoborchestratorai.ingest.PointNormalizer;
+import com.joborchestratorai.akkajoborchestratorai.ingest.StreamingExcelReader;
+import com.joborchestratorai.akkajoborchestratorai.models.IngestionStatus;
+import com.joborchestratorai.akkajoborchestratorai.models.ResumeData;
 import com.joborchestratorai.akkajoborchestratorai.models.SearchResult;
+import com.joborchestratorai.akkajoborchestratorai.models.UploadJob;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.*;
+import java.util.function.Consumer;
 
 @Service
 @Profile("single-node")
 public class ResumeSearchService {
 
     private final ActorSystem<MasterActor.Command> actorSystem;
+    private final UploadJobRegistry jobRegistry;
+
+    @Value("${resume.upload.max-stream-size:1GB}")
+    private DataSize maxStreamSize;
+    @Value("${resume.upload.max-stream-points:1000000}")
+    private int maxStreamPoints;
     private final Duration askTimeout = Duration.ofSeconds(30);
+    private final SingleFlight<List<Object>, List<SearchResult>> searchesInFlight = new SingleFlight<>("search");
 
-    public ResumeSearchService(ActorSystem<MasterActor.Command> actorSystem) {
+    public ResumeSearchService(ActorSystem<MasterActor.Command> actorSystem, UploadJobRegistry jobRegistry) {
         this.actorSystem = actorSystem;
+        this.jobRegistry = jobRegistry;
     }
 
     // Using tell pattern (fire and forget)
@@ -28,14 +52,68 @@ public class ResumeSearchService {
         actorSystem.tell(new MasterActor.ProcessExcelFile(filePath));
     }
 
+    /**
+     * Parses a workbook from the request body on the calling thread, then hands the points to the
+     * actors for storage. A zip cannot be parsed front to back, so POI unpacks the whole body first
+     * (large entries to temp files) and parsing starts once it has arrived. The points are held in
+     * memory until stored, so an upload with more than {@code resume.upload.max-stream-points}
+     * fails. Progress is tracked under the returned job like a file upload.
+     */
+    public UploadJob ingestExcelStream(InputStream workbook, String fileName) {
+        UploadJob job = jobRegistry.create(fileName);
+        Consumer<IngestionStatus> listener = status -> jobRegistry.onStatus(job.getId(), status);
+        String resumeId = UUID.randomUUID().toString();
+        long startedAt = System.nanoTime();
+
+        try {
+            List<String> resumePoints = new ArrayList<>();
+            IngestSettings settings = IngestSettings.fromConfig(actorSystem.settings().config());
+            NearDuplicateDetector detector = new NearDuplicateDetector(settings.similarityThreshold);
+            long[] rowsRead = new long[1];
+            new StreamingExcelReader(settings).read(new LimitedInputStream(workbook, maxStreamSize.toBytes()), chunk -> {
+                rowsRead[0] += chunk.size();
+                resumePoints.addAll(detector.addAll(PointNormalizer.normalizeAll(chunk, settings.minWords)));
+                if (resumePoints.size() > maxStreamPoints) {
+                    throw new IllegalStateException("Workbook has more than " + maxStreamPoints
+                            + " resume points; upload it as a file instead");
+                }
+                listener.accept(new IngestionStatus(resumeId, IngestionStatus.PARSING, rowsRead[0], 0,
+                        detector.getDuplicates(), (System.nanoTime() - startedAt) / 1_000_000, null));
+            });
+
+            listener.accept(new IngestionStatus(resumeId, IngestionStatus.INDEXING, rowsRead[0], 0,
+                    detector.getDuplicates(), (System.nanoTime() - startedAt) / 1_000_000, null));
+            ResumeData resumeData = new ResumeData(resumeId, fileName, resumePoints);
+            resumeData.setMergedPoints(detector.getMergedPoints(resumePoints));
+            actorSystem.tell(new MasterActor.StoreResumeData(resumeData, rowsRead[0], detector.getDuplicates(),
+                    listener));
+        } catch (IOException e) {
+            jobRegistry.fail(job.getId(), "Failed to read workbook: " + e.getMessage());
+        }
+        return jobRegistry.get(job.getId()).orElse(job);
+    }
+
+    // Queues the file for ingestion and returns at once; progress is tracked under the returned job
+    public UploadJob submitExcelFile(String filePath, String fileName) {
+        UploadJob job = jobRegistry.create(fileName);
+        actorSystem.tell(new MasterActor.ProcessExcelFile(filePath, status -> jobRegistry.onStatus(job.getId(), status)));
+        return job;
+    }
+
     // Using ask pattern (request-response)
     public CompletionStage<List<SearchResult>> searchResumes(String jobDescription, int topK) {
-        return AskPattern.ask(
+        return searchResumes(jobDescription, topK, 0);
+    }
+
+    public CompletionStage<List<SearchResult>> searchResumes(String jobDescription, int topK, int candidatePoolSize) {
+        // Identical searches arriving while one is running share its result; the key tolerates a missing
+        // job description, which the actors reject with an empty result
+        return searchesInFlight.execute(Arrays.asList(jobDescription, topK, candidatePoolSize), () -> AskPattern.ask(
                 actorSystem,
                 (ActorRef<List<SearchResult>> replyTo) ->
-                        new MasterActor.ProcessJobDescription(jobDescription, topK, replyTo),
+                        new MasterActor.ProcessJobDescription(jobDescription, topK, candidatePoolSize, replyTo),
                 askTimeout,
                 actorSystem.scheduler()
-        );
+        ));
     }
 }
\ No newline at end of file
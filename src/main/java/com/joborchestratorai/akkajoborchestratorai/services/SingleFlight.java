@@ -0,0 +1,72 @@
+package com.joborchestratorai.akkajoborchestratorai.services;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical requests: while a computation for a key is in flight,
+ * later callers with the same key get the same pending result instead of starting their own.
+ * Nothing is cached once the computation completes.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final String metricPrefix;
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+
+    public SingleFlight(String name) {
+        this.metricPrefix = "singleflight." + name;
+        metrics.gauge(metricPrefix + ".in-flight", inFlight::size);
+    }
+
+    public CompletableFuture<V> execute(K key, Supplier<? extends CompletionStage<V>> work) {
+        CompletableFuture<V> pending = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, pending);
+        if (existing != null) {
+            metrics.increment(metricPrefix + ".coalesced");
+            // Each caller gets its own copy so completing or timing out one cannot affect the others
+            return existing.copy();
+        }
+
+        metrics.increment(metricPrefix + ".executed");
+        try {
+            work.get().whenComplete((value, error) -> complete(key, pending, value, error));
+        } catch (RuntimeException e) {
+            complete(key, pending, null, e);
+        }
+        return pending.copy();
+    }
+
+    /**
+     * Blocking variant for synchronous callers. Failures are rethrown unwrapped when they are runtime exceptions.
+     */
+    public V executeBlocking(K key, Supplier<V> work) {
+        try {
+            return execute(key, () -> {
+                try {
+                    return CompletableFuture.completedFuture(work.get());
+                } catch (RuntimeException e) {
+                    return CompletableFuture.failedFuture(e);
+                }
+            }).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void complete(K key, CompletableFuture<V> pending, V value, Throwable error) {
+        // Remove before completing so a caller reacting to the result starts a fresh flight
+        inFlight.remove(key, pending);
+        if (error != null) {
+            pending.completeExceptionally(error);
+        } else {
+            pending.complete(value);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.joborchestratorai.akkajoborchestratorai.services;
+
+import java.time.Duration;
+
+/**
+ * Two token buckets, one for requests per minute and one for model tokens per minute,
+ * matching how OpenAI enforces its quotas. Callers reserve capacity up front and are told
+ * how long to wait; reservations may run the buckets into debt, which later callers pay
+ * off by waiting longer, so bursts are smoothed instead of rejected.
+ */
+public class TokenBucketRateLimiter {
+
+    private final double requestCapacity;
+    private final double tokenCapacity;
+    private final double requestsPerNano;
+    private final double tokensPerNano;
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+
+    private double availableRequests;
+    private double availableTokens;
+    private long lastRefillNanos;
+    private long pausedUntilNanos;
+
+    public TokenBucketRateLimiter(int requestsPerMinute, int tokensPerMinute) {
+        this.requestCapacity = requestsPerMinute;
+        this.tokenCapacity = tokensPerMinute;
+        this.requestsPerNano = requestsPerMinute / (double) Duration.ofMinutes(1).toNanos();
+        this.tokensPerNano = tokensPerMinute / (double) Duration.ofMinutes(1).toNanos();
+        this.availableRequests = requestCapacity;
+        this.availableTokens = tokenCapacity;
+        this.lastRefillNanos = System.nanoTime();
+
+        metrics.gauge("llm.ratelimit.available-requests", () -> (long) snapshotAvailableRequests());
+        metrics.gauge("llm.ratelimit.available-tokens", () -> (long) snapshotAvailableTokens());
+    }
+
+    /**
+     * Reserves one request and the given number of tokens, returning how long the caller must wait before sending.
+     */
+    public synchronized Duration reserve(int tokens) {
+        long now = System.nanoTime();
+        refill(now);
+
+        // A single request larger than the whole bucket can never fit, so cap it at capacity
+        double tokenCost = Math.min(tokens, tokenCapacity);
+        availableRequests -= 1;
+        availableTokens -= tokenCost;
+
+        long requestWait = availableRequests >= 0 ? 0 : (long) (-availableRequests / requestsPerNano);
+        long tokenWait = availableTokens >= 0 ? 0 : (long) (-availableTokens / tokensPerNano);
+        long pauseWait = Math.max(0, pausedUntilNanos - now);
+
+        Duration wait = Duration.ofNanos(Math.max(pauseWait, Math.max(requestWait, tokenWait)));
+        metrics.timer("llm.ratelimit.wait").record(wait.toNanos());
+        return wait;
+    }
+
+    /**
+     * Holds back every caller for the given time, e.g. after the API answered 429 with Retry-After.
+     */
+    public synchronized void pauseFor(Duration duration) {
+        pausedUntilNanos = Math.max(pausedUntilNanos, System.nanoTime() + duration.toNanos());
+        metrics.increment("llm.ratelimit.pauses");
+    }
+
+    private void refill(long now) {
+        long elapsed = now - lastRefillNanos;
+        availableRequests = Math.min(requestCapacity, availableRequests + elapsed * requestsPerNano);
+        availableTokens = Math.min(tokenCapacity, availableTokens + elapsed * tokensPerNano);
+        lastRefillNanos = now;
+    }
+
+    private synchronized double snapshotAvailableRequests() {
+        refill(System.nanoTime());
+        return availableRequests;
+    }
+
+    private synchronized double snapshotAvailableTokens() {
+        refill(System.nanoTime());
+        return availableTokens;
+    }
+}
@@ -0,0 +1,174 @@
+package com.joborchestratorai.akkajoborchestratorai.services;
+
+import com.joborchestratorai.akkajoborchestratorai.models.IngestionStatus;
+import com.joborchestratorai.akkajoborchestratorai.models.UploadJob;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Tracks upload jobs from submission until they are indexed or fail, and pushes every
+ * change to Server-Sent Events subscribers. Finished jobs are kept for a while so
+ * clients that poll late still see the outcome.
+ */
+@Service
+public class UploadJobRegistry {
+
+    private static final int MAX_FINISHED_JOBS = 1000;
+    private static final long EMITTER_TIMEOUT_MILLIS = 30 * 60 * 1000L;
+
+    private final Map<String, UploadJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private final Queue<String> finishedJobIds = new ConcurrentLinkedQueue<>();
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+
+    public UploadJobRegistry() {
+        metrics.gauge("upload.jobs.active", () -> jobs.size() - finishedJobIds.size());
+    }
+
+    public UploadJob create(String fileName) {
+        UploadJob job = new UploadJob(UUID.randomUUID().toString(), fileName);
+        jobs.put(job.getId(), job);
+        metrics.increment("upload.jobs.submitted");
+        return job.copy();
+    }
+
+    public Optional<UploadJob> get(String jobId) {
+        UploadJob job = jobs.get(jobId);
+        if (job == null) {
+            return Optional.empty();
+        }
+        synchronized (job) {
+            return Optional.of(job.copy());
+        }
+    }
+
+    /**
+     * Applies a status reported by the ingestion actors. Safe to call from any thread.
+     */
+    public void onStatus(String jobId, IngestionStatus status) {
+        UploadJob job = jobs.get(jobId);
+        if (job == null) {
+            return;
+        }
+
+        UploadJob snapshot;
+        synchronized (job) {
+            if (job.isFinished()) {
+                return;
+            }
+            if (job.getStartedAtMillis() == 0) {
+                job.setStartedAtMillis(System.currentTimeMillis());
+            }
+            job.setState(toJobState(status.getState()));
+            job.setRowsRead(status.getPointsRead());
+            job.setPointsIndexed(status.getPointsIngested());
+            job.setDuplicatesDropped(status.getDuplicatesDropped());
+            job.setError(status.getError());
+            if (job.isFinished()) {
+                job.setFinishedAtMillis(System.currentTimeMillis());
+            }
+            snapshot = job.copy();
+        }
+
+        if (snapshot.isFinished()) {
+            metrics.increment(UploadJob.DONE.equals(snapshot.getState()) ? "upload.jobs.done" : "upload.jobs.failed");
+            finishedJobIds.add(jobId);
+            evictOldJobs();
+        }
+        publish(snapshot);
+    }
+
+    public void fail(String jobId, String error) {
+        onStatus(jobId, IngestionStatus.failed(jobId, error));
+    }
+
+    /**
+     * Streams the job's current state followed by every change; completes once the job finishes.
+     */
+    public Optional<SseEmitter> subscribe(String jobId) {
+        Optional<UploadJob> current = get(jobId);
+        if (current.isEmpty()) {
+            return Optional.empty();
+        }
+
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MILLIS);
+        // Added inside compute so it cannot land in a list that unsubscribe is dropping
+        subscribers.compute(jobId, (id, emitters) -> {
+            List<SseEmitter> list = emitters != null ? emitters : new CopyOnWriteArrayList<>();
+            list.add(emitter);
+            return list;
+        });
+        emitter.onCompletion(() -> unsubscribe(jobId, emitter));
+        emitter.onTimeout(() -> unsubscribe(jobId, emitter));
+
+        // Re-read after subscribing so a change between the two reads is not lost
+        UploadJob latest = get(jobId).orElse(current.get());
+        send(emitter, latest);
+        if (latest.isFinished()) {
+            // The final publish may have run before this emitter was added, leaving it behind
+            unsubscribe(jobId, emitter);
+            emitter.complete();
+        }
+        return Optional.of(emitter);
+    }
+
+    // Drops the job's list with its last emitter, so finished jobs leave nothing behind
+    private void unsubscribe(String jobId, SseEmitter emitter) {
+        subscribers.computeIfPresent(jobId, (id, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+
+    private void publish(UploadJob snapshot) {
+        List<SseEmitter> emitters = snapshot.isFinished()
+                ? subscribers.remove(snapshot.getId())
+                : subscribers.get(snapshot.getId());
+        if (emitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            send(emitter, snapshot);
+            if (snapshot.isFinished()) {
+                emitter.complete();
+            }
+        }
+    }
+
+    private void send(SseEmitter emitter, UploadJob snapshot) {
+        try {
+            emitter.send(SseEmitter.event().name("job").data(snapshot));
+        } catch (IOException | IllegalStateException e) {
+            // The client went away; Spring calls onCompletion, which unsubscribes the emitter
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void evictOldJobs() {
+        while (finishedJobIds.size() > MAX_FINISHED_JOBS) {
+            String oldest = finishedJobIds.poll();
+            if (oldest != null) {
+                jobs.remove(oldest);
+            }
+        }
+    }
+
+    private static String toJobState(String ingestionState) {
+        switch (ingestionState) {
+            case IngestionStatus.PARSING:
+                return UploadJob.PARSING;
+            case IngestionStatus.INDEXING:
+                return UploadJob.INDEXING;
+            case IngestionStatus.COMPLETED:
+                return UploadJob.DONE;
+            default:
+                return UploadJob.FAILED;
+        }
+    }
+}
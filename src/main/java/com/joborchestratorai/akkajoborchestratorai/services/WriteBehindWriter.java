@@ -0,0 +1,409 @@
+package com.joborchestratorai.akkajoborchestratorai.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.joborchestratorai.akkajoborchestratorai.models.ResumeData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * Write-behind storage for uploaded resume data. Writes are queued and picked up by one
+ * dedicated thread, which commits them in groups: each upload is serialized straight into a
+ * journal, the whole group is made durable with a single fsync, the per-upload JSON files are
+ * copied out of the journal without one, and only then are the callers told. A burst of uploads
+ * therefore costs one fsync per group instead of one small synchronous file write per upload on
+ * the storage actor's thread.
+ * <p>
+ * The journal is what makes an acknowledged write durable; it is cut back once it has grown
+ * past {@link #CHECKPOINT_BYTES} and the files it covers have been synced. Entries still in it
+ * at startup are written out again. An upload whose JSON exceeds {@link #MAX_RECORD_BYTES} is
+ * rejected, since recovery could not read it back.
+ * <p>
+ * One writer per storage directory; Spring owns it and {@link #close} drains the queue.
+ */
+public class WriteBehindWriter implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindWriter.class);
+
+    private static final String JOURNAL_FILE = "write-behind.journal";
+    private static final long CHECKPOINT_BYTES = 32L * 1024 * 1024;
+    // Largest record the journal takes and recovery reads back
+    static final int MAX_RECORD_BYTES = 128 * 1024 * 1024;
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(10);
+
+    private static class PendingWrite {
+        final ResumeData resumeData;
+        final Path dataPath;
+        final CompletableFuture<Path> result = new CompletableFuture<>();
+        // Where its JSON sits in the journal once appended
+        long offset;
+        int length;
+
+        PendingWrite(ResumeData resumeData, Path dataPath) {
+            this.resumeData = resumeData;
+            this.dataPath = dataPath;
+        }
+    }
+
+    // Queued by close; the writer commits what is ahead of it and stops
+    private static final PendingWrite STOP = new PendingWrite(null, null);
+
+    private final LocalStorageService storageService;
+    private final Path directory;
+    private final Duration flushInterval;
+    private final int maxBatch;
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private final LinkedBlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+    // Files written since the last checkpoint; synced before the journal entries covering them are dropped
+    private final Set<Path> unsynced = new LinkedHashSet<>();
+    private FileChannel journal;
+    private Thread thread;
+    private volatile boolean closed;
+
+    public WriteBehindWriter(LocalStorageService storageService, Duration flushInterval, int maxBatch) {
+        this.storageService = storageService;
+        this.directory = storageService.getStorageDirectory().toAbsolutePath().normalize();
+        this.flushInterval = flushInterval;
+        this.maxBatch = Math.max(maxBatch, 1);
+    }
+
+    /**
+     * Queues the resume data; the future completes with its file once the write is durable and
+     * visible to lookups, or fails if it could not be made durable.
+     */
+    public CompletableFuture<Path> submit(ResumeData resumeData) {
+        PendingWrite write = new PendingWrite(resumeData, storageService.resolveResumeDataPath(resumeData));
+        if (closed) {
+            write.result.completeExceptionally(new IllegalStateException("Write-behind writer is closed"));
+            return write.result;
+        }
+        queue.add(write);
+        // Close may have begun after the check above, and the writer may be past its final drain;
+        // if the write is still queued nobody else will take it
+        if (closed && queue.remove(write)) {
+            write.result.completeExceptionally(new IllegalStateException("Write-behind writer is closed"));
+        }
+        return write.result;
+    }
+
+    /**
+     * Opens the journal, writes out what it still holds and starts the writer thread.
+     */
+    public void start() {
+        try {
+            Files.createDirectories(directory);
+            journal = FileChannel.open(directory.resolve(JOURNAL_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            recover();
+        } catch (IOException e) {
+            // Without a journal nothing could be acknowledged as durable, so fail loudly
+            throw new IllegalStateException("Cannot open write-behind journal in " + directory, e);
+        }
+
+        thread = new Thread(this::run, "resume-storage-writer");
+        thread.setDaemon(true);
+        thread.start();
+        metrics.gauge("storage.write-behind.queue-depth", queue::size);
+    }
+
+    /**
+     * Commits everything submitted so far, then stops the writer thread and closes the journal.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        if (thread != null) {
+            queue.add(STOP);
+            try {
+                thread.join(CLOSE_TIMEOUT.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    private void run() {
+        List<PendingWrite> batch = new ArrayList<>(maxBatch);
+        boolean stopping = false;
+        while (!stopping) {
+            try {
+                batch.add(queue.take());
+                // Whatever is already queued joins the group; then wait briefly for stragglers
+                queue.drainTo(batch, maxBatch - batch.size());
+                long deadline = System.nanoTime() + flushInterval.toNanos();
+                while (batch.size() < maxBatch && !batch.contains(STOP)) {
+                    PendingWrite next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatch - batch.size());
+                }
+                stopping = batch.remove(STOP);
+                if (!batch.isEmpty()) {
+                    commit(batch);
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                // Keep the writer alive; the batch's callers are failed below
+                logger.error("Write-behind commit failed: {}", e.getMessage());
+                batch.forEach(write -> write.result.completeExceptionally(e));
+            }
+            batch.clear();
+        }
+        // Submitted while close was stopping the writer; taken off the queue so submit does not fail them twice
+        PendingWrite write;
+        while ((write = queue.poll()) != null) {
+            write.result.completeExceptionally(new IllegalStateException("Write-behind writer is closed"));
+        }
+    }
+
+    private void commit(List<PendingWrite> batch) {
+        long startedAt = System.nanoTime();
+        List<PendingWrite> accepted = new ArrayList<>(batch.size());
+        long batchStart = -1;
+        try {
+            batchStart = journal.size();
+            for (PendingWrite write : batch) {
+                try {
+                    append(write);
+                    accepted.add(write);
+                } catch (RecordTooLargeException | JsonProcessingException e) {
+                    // Only this upload is refused; append has cut the journal back to where it began
+                    write.result.completeExceptionally(e);
+                }
+            }
+            if (accepted.isEmpty()) {
+                return;
+            }
+            // The group commit: one fsync makes every write in the batch durable
+            journal.force(false);
+        } catch (IOException e) {
+            // Failed writes must not come back on the next start, so the batch's records are cut off again
+            if (batchStart >= 0) {
+                discardFrom(batchStart);
+            }
+            batch.forEach(write -> write.result.completeExceptionally(e));
+            return;
+        }
+
+        for (PendingWrite write : accepted) {
+            try {
+                copyFromJournal(write);
+                storageService.recordStored(write.dataPath, write.resumeData);
+                write.result.complete(write.dataPath);
+            } catch (IOException e) {
+                // Durable in the journal and written out on the next start, but not visible yet
+                write.result.completeExceptionally(e);
+            }
+        }
+        metrics.counter("storage.write-behind.commits").increment();
+        metrics.counter("storage.write-behind.writes").add(accepted.size());
+        metrics.timer("storage.write-behind.commit").record(System.nanoTime() - startedAt);
+
+        try {
+            if (journal.size() >= CHECKPOINT_BYTES) {
+                checkpoint();
+            }
+        } catch (IOException e) {
+            logger.warn("Write-behind checkpoint failed, keeping the journal: {}", e.getMessage());
+        }
+    }
+
+    private void discardFrom(long position) {
+        try {
+            journal.truncate(position);
+            journal.force(true);
+        } catch (IOException e) {
+            logger.error("Could not cut failed writes off the write-behind journal; they may be written out "
+                    + "on the next start: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Serializes the upload into the journal as int length, JSON, int CRC32C of the JSON. The
+     * length is only known afterwards, so it is filled in last; the JSON is never held in memory.
+     */
+    private void append(PendingWrite write) throws IOException {
+        long start = journal.size();
+        try {
+            CRC32C crc = new CRC32C();
+            journal.position(start + Integer.BYTES);
+            RecordOutputStream payload = new RecordOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(journal), 1 << 16), crc);
+            objectMapper.writeValue(payload, write.resumeData);
+            payload.flush();
+
+            ByteBuffer length = ByteBuffer.allocate(Integer.BYTES).putInt((int) payload.count);
+            length.flip();
+            writeFully(length, start);
+            ByteBuffer checksum = ByteBuffer.allocate(Integer.BYTES).putInt((int) crc.getValue());
+            checksum.flip();
+            writeFully(checksum, start + Integer.BYTES + payload.count);
+            write.offset = start + Integer.BYTES;
+            write.length = (int) payload.count;
+        } catch (IOException | RuntimeException e) {
+            journal.truncate(start);
+            throw e;
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += journal.write(buffer, position);
+        }
+    }
+
+    // Copied out of the journal by the kernel and renamed into place, so a reader never sees a half-written file
+    private void copyFromJournal(PendingWrite write) throws IOException {
+        Path temp = write.dataPath.resolveSibling(write.dataPath.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long copied = 0;
+            while (copied < write.length) {
+                copied += journal.transferTo(write.offset + copied, write.length - copied, out);
+            }
+        }
+        Files.move(temp, write.dataPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        unsynced.add(write.dataPath);
+    }
+
+    // Renamed into place so a reader never sees a half-written file; used for what recovery reads back
+    private void writeFile(Path dataPath, byte[] json) throws IOException {
+        Path temp = dataPath.resolveSibling(dataPath.getFileName() + ".tmp");
+        Files.write(temp, json);
+        Files.move(temp, dataPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        unsynced.add(dataPath);
+    }
+
+    private void checkpoint() throws IOException {
+        long startedAt = System.nanoTime();
+        for (Path file : unsynced) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            } catch (IOException e) {
+                // Deleted or replaced since; whatever is there now is not ours to sync
+            }
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Best effort; not every platform can open a directory
+        }
+        unsynced.clear();
+        journal.truncate(0);
+        journal.force(true);
+        metrics.timer("storage.write-behind.checkpoint").record(System.nanoTime() - startedAt);
+    }
+
+    // Writes out whatever the journal holds from before a crash or restart, then empties it
+    private void recover() throws IOException {
+        if (journal.size() == 0) {
+            return;
+        }
+        int recovered = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(directory.resolve(JOURNAL_FILE))))) {
+            byte[] json;
+            while ((json = readRecord(in)) != null) {
+                ResumeData resumeData = objectMapper.readValue(json, ResumeData.class);
+                writeFile(storageService.resolveResumeDataPath(resumeData), json);
+                recovered++;
+            }
+        }
+        checkpoint();
+        logger.info("Recovered {} resume data writes from the write-behind journal", recovered);
+    }
+
+    // Null at the end of the journal or at a torn record, which was never acknowledged
+    private static byte[] readRecord(DataInputStream in) throws IOException {
+        try {
+            int length = in.readInt();
+            if (length < 0 || length > MAX_RECORD_BYTES) {
+                return null;
+            }
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            CRC32C crc = new CRC32C();
+            crc.update(payload);
+            return (int) crc.getValue() == in.readInt() ? payload : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private static class RecordTooLargeException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        RecordTooLargeException() {
+            super("Resume data exceeds the write-behind journal's limit of " + MAX_RECORD_BYTES + " bytes");
+        }
+    }
+
+    // Checksums and counts the JSON on its way to the journal, and refuses it past the record limit.
+    // Closing only flushes, since the journal channel underneath stays open
+    private static class RecordOutputStream extends FilterOutputStream {
+        private final CRC32C crc;
+        long count;
+
+        RecordOutputStream(OutputStream out, CRC32C crc) {
+            super(out);
+            this.crc = crc;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            ensureRoom(1);
+            out.write(b);
+            crc.update(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            ensureRoom(len);
+            out.write(b, off, len);
+            crc.update(b, off, len);
+            count += len;
+        }
+
+        private void ensureRoom(int len) throws IOException {
+            if (count + len > MAX_RECORD_BYTES) {
+                throw new RecordTooLargeException();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,598 @@
+package com.joborchestratorai.akkajoborchestratorai.storage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.joborchestratorai.akkajoborchestratorai.ingest.PointNormalizer;
+import com.joborchestratorai.akkajoborchestratorai.models.ResumeData;
+import com.joborchestratorai.akkajoborchestratorai.services.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only storage for one dataset: a directory of numbered segment files holding
+ * add, remove and metadata records, on top of the latest compacted snapshot.
+ * <p>
+ * Every append is one sequential write followed by an fsync before it returns, so an
+ * acknowledged change survives a crash; a torn record at the tail of the last segment
+ * is detected by its checksum and cut off on the next append. A bad record anywhere else
+ * fails the read, since skipping it would silently drop acknowledged changes. Once the
+ * segments outgrow the snapshot they are compacted in the background into a new
+ * {@link MappedDatasetFile} snapshot, and the segments it covers are deleted.
+ * <p>
+ * The segment file is only open while an append runs, so an idle log holds no file handle.
+ * <pre>
+ *   segment-N.log   records: int payload length, byte type, payload, int CRC32C of type + payload
+ *   snapshot-N.rdat the dataset as of every segment numbered below N
+ * </pre>
+ */
+public class DatasetSegmentLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatasetSegmentLog.class);
+
+    public static final String DIRECTORY_SUFFIX = ".log";
+
+    /**
+     * Net effect of the records after a checkpoint; apply {@link #removed} before {@link #added}.
+     */
+    public static class Changes {
+        public final List<String> added;
+        public final List<String> removed;
+
+        Changes(List<String> added, List<String> removed) {
+            this.added = added;
+            this.removed = removed;
+        }
+    }
+
+    private static final byte ADD = 1;
+    private static final byte REMOVE = 2;
+    private static final byte METADATA = 3;
+
+    private static final long MAX_SEGMENT_BYTES = 64L * 1024 * 1024;
+    // Compact once the log is larger than the snapshot, but never for less than this
+    private static final long MIN_COMPACTION_BYTES = 8L * 1024 * 1024;
+
+    private static final int RECORD_OVERHEAD = Integer.BYTES + 1 + Integer.BYTES;
+    private static final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private final Path directory;
+    private final Executor compactor;
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private FileChannel active;
+    private long activeSequence = -1;
+    // Length of the active segment up to its last good record, so reopening it needs no scan
+    private long activeLength;
+    private long logBytes;
+    private long snapshotBytes;
+    private boolean compactionScheduled;
+    // Bumped by delete, so a compaction that started before can tell its snapshot is stale
+    // even when a new upload has recreated the same file names since
+    private long generation;
+
+    /**
+     * Appends and compaction are only serialised within one instance, so the owner must keep
+     * a single instance per directory. Compaction runs on {@code compactor}.
+     */
+    public DatasetSegmentLog(Path directory, Executor compactor) {
+        this.directory = directory;
+        this.compactor = compactor;
+    }
+
+    public boolean exists() {
+        return Files.isDirectory(directory);
+    }
+
+    /**
+     * Starts the log from an existing dataset, e.g. one stored in an older format.
+     */
+    public synchronized void seed(ResumeData resumeData) throws IOException {
+        Files.createDirectories(directory);
+        MappedDatasetFile.write(snapshotPath(0), resumeData);
+        syncDirectory();
+    }
+
+    /**
+     * Appends the metadata of {@code resumeData} and the given changes as one durable write.
+     */
+    public synchronized void append(ResumeData resumeData, Collection<String> added, Collection<String> removed)
+            throws IOException {
+        long startedAt = System.nanoTime();
+        ByteArrayOutputStream batch = new ByteArrayOutputStream();
+        for (String point : removed) {
+            writeRecord(batch, REMOVE, point.getBytes(StandardCharsets.UTF_8));
+        }
+        for (String point : added) {
+            writeRecord(batch, ADD, point.getBytes(StandardCharsets.UTF_8));
+        }
+        writeRecord(batch, METADATA, objectMapper.writeValueAsBytes(metadataOf(resumeData)));
+
+        try {
+            FileChannel channel = activeSegment();
+            ByteBuffer buffer = ByteBuffer.wrap(batch.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            activeLength += batch.size();
+            logBytes += batch.size();
+            metrics.counter("storage.log.bytes-written").add(batch.size());
+            metrics.timer("storage.log.append").record(System.nanoTime() - startedAt);
+
+            if (activeLength >= MAX_SEGMENT_BYTES) {
+                roll();
+            }
+        } finally {
+            closeActive();
+        }
+        if (!compactionScheduled && logBytes > Math.max(MIN_COMPACTION_BYTES, snapshotBytes)) {
+            compactionScheduled = true;
+            compactor.execute(this::compactQuietly);
+        }
+    }
+
+    /**
+     * Rebuilds the dataset from the latest snapshot and the segments written after it.
+     */
+    public synchronized ResumeData read() throws IOException {
+        if (!exists()) {
+            return null;
+        }
+        return rebuild(Long.MAX_VALUE);
+    }
+
+    // Segments below the active one are never written again, so rebuilding from them needs no lock
+    private ResumeData rebuild(long beforeSequence) throws IOException {
+        long snapshot = latestSequence("snapshot-", ".rdat");
+        long lastSegment = latestSequence("segment-", ".log");
+        List<Path> segments = segmentsFrom(Math.max(snapshot, 0)).stream()
+                .filter(segment -> sequenceOf(segment) < beforeSequence)
+                .toList();
+        ResumeData base = snapshot >= 0 ? MappedDatasetFile.open(snapshotPath(snapshot)).getResumeData() : null;
+
+        boolean noChanges = true;
+        for (Path segment : segments) {
+            noChanges &= Files.size(segment) == 0;
+        }
+        if (base != null && noChanges) {
+            // Straight from the mapped snapshot, without decoding a single point
+            return base;
+        }
+
+        LinkedHashMap<Long, String> points = new LinkedHashMap<>();
+        ResumeData metadata = base;
+        if (base != null) {
+            for (String point : base.getResumePoints()) {
+                points.put(PointNormalizer.dedupeKey(point), point);
+            }
+        }
+        for (Path segment : segments) {
+            metadata = replay(segment, sequenceOf(segment) == lastSegment, points, metadata);
+        }
+        if (metadata == null) {
+            metadata = new ResumeData();
+        }
+
+        ResumeData resumeData = metadataOf(metadata);
+        resumeData.setResumePoints(new ArrayList<>(points.values()));
+        return resumeData;
+    }
+
+    /**
+     * The number of points in the dataset, taken from the snapshot header and the type of each
+     * later record, without reading a point or checking a checksum. Exact as long as appends only
+     * add points the dataset does not hold and remove ones it does, as {@link #append} callers do.
+     */
+    public synchronized int pointCount() throws IOException {
+        if (!exists()) {
+            return 0;
+        }
+        long snapshot = latestSequence("snapshot-", ".rdat");
+        long lastSegment = latestSequence("segment-", ".log");
+        int count = snapshot >= 0 ? MappedDatasetFile.readPointCount(snapshotPath(snapshot)) : 0;
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES + 1);
+        for (Path segment : segmentsFrom(Math.max(snapshot, 0))) {
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                long size = channel.size();
+                long position = 0;
+                while (position < size) {
+                    header.clear();
+                    while (header.hasRemaining() && channel.read(header, position + header.position()) > 0) {
+                        // Keep reading until the record header is complete or the segment ends
+                    }
+                    int length = header.getInt(0);
+                    if (header.hasRemaining() || length < 0 || length > size - position - RECORD_OVERHEAD) {
+                        if (sequenceOf(segment) == lastSegment) {
+                            // A torn tail, which the next append cuts off
+                            break;
+                        }
+                        throw new IOException("Corrupt record in " + segment + " at byte " + position);
+                    }
+                    byte type = header.get(Integer.BYTES);
+                    if (type == ADD) {
+                        count++;
+                    } else if (type == REMOVE) {
+                        count--;
+                    }
+                    position += RECORD_OVERHEAD + length;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Seals the active segment and returns a position N such that the dataset as of now is
+     * exactly what segments numbered below N hold; pass it to {@link #changesSince} later.
+     */
+    public synchronized long checkpoint() throws IOException {
+        try {
+            if (activeSegment().size() > 0) {
+                roll();
+            }
+        } finally {
+            closeActive();
+        }
+        return activeSequence;
+    }
+
+    /**
+     * The changes appended after {@link #checkpoint} returned {@code position}, or null once
+     * compaction has folded them into a newer snapshot or the log was recreated since.
+     */
+    public synchronized Changes changesSince(long position) throws IOException {
+        if (!exists()) {
+            return null;
+        }
+        long snapshot = latestSequence("snapshot-", ".rdat");
+        long segment = latestSequence("segment-", ".log");
+        if (snapshot > position || Math.max(snapshot, segment) < position) {
+            return null;
+        }
+
+        Map<Long, String> added = new LinkedHashMap<>();
+        Map<Long, String> removed = new LinkedHashMap<>();
+        for (Path file : segmentsFrom(position)) {
+            try (SegmentReader in = new SegmentReader(file, sequenceOf(file) == segment)) {
+                byte[][] record;
+                while ((record = in.next()) != null) {
+                    String value = new String(record[1], StandardCharsets.UTF_8);
+                    long key = PointNormalizer.dedupeKey(value);
+                    if (record[0][0] == ADD) {
+                        added.put(key, value);
+                    } else if (record[0][0] == REMOVE) {
+                        added.remove(key);
+                        removed.put(key, value);
+                    }
+                }
+            }
+        }
+        return new Changes(new ArrayList<>(added.values()), new ArrayList<>(removed.values()));
+    }
+
+    /**
+     * Deletes the log and everything in it.
+     */
+    public synchronized void delete() throws IOException {
+        closeActive();
+        if (!exists()) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+        activeSequence = -1;
+        logBytes = 0;
+        snapshotBytes = 0;
+        generation++;
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (IOException e) {
+            logger.error("Failed to compact dataset log {}: {}", directory, e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the current state as a new snapshot and drops what it supersedes. Appends only
+     * wait for the segment roll, not for rebuilding the state or writing the snapshot.
+     */
+    void compact() throws IOException {
+        long sequence;
+        long startedGeneration;
+        synchronized (this) {
+            compactionScheduled = false;
+            if (!exists()) {
+                return;
+            }
+            // New appends go to a fresh segment the snapshot does not cover; an empty one is
+            // reused, so a checkpoint taken just before still lines up with the snapshot
+            try {
+                if (activeSegment().size() > 0) {
+                    roll();
+                }
+            } finally {
+                closeActive();
+            }
+            sequence = activeSequence;
+            startedGeneration = generation;
+        }
+
+        long startedAt = System.nanoTime();
+        ResumeData state = rebuild(sequence);
+        Path snapshot = snapshotPath(sequence);
+        // Staged under a name reads ignore; it only becomes the snapshot if the log was not deleted meanwhile
+        Path staged = directory.resolve(snapshot.getFileName() + ".compacting");
+        MappedDatasetFile.write(staged, state);
+
+        synchronized (this) {
+            if (generation != startedGeneration) {
+                Files.deleteIfExists(staged);
+                return;
+            }
+            Files.move(staged, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            syncDirectory();
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.toList()) {
+                    if (sequenceOf(file) < sequence) {
+                        Files.delete(file);
+                    }
+                }
+            }
+            snapshotBytes = Files.size(snapshot);
+            logBytes = activeLength;
+        }
+        metrics.increment("storage.log.compactions");
+        metrics.timer("storage.log.compaction").record(System.nanoTime() - startedAt);
+    }
+
+    // Opens the active segment; callers close it again with closeActive before they return
+    private FileChannel activeSegment() throws IOException {
+        if (active != null) {
+            return active;
+        }
+        if (activeSequence >= 0) {
+            active = FileChannel.open(segmentPath(activeSequence), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            active.position(activeLength);
+            return active;
+        }
+
+        Files.createDirectories(directory);
+        long snapshot = latestSequence("snapshot-", ".rdat");
+        long segment = latestSequence("segment-", ".log");
+        snapshotBytes = snapshot >= 0 ? Files.size(snapshotPath(snapshot)) : 0;
+        logBytes = 0;
+        for (Path file : segmentsFrom(Math.max(snapshot, 0))) {
+            logBytes += Files.size(file);
+        }
+        long sequence = Math.max(segment, Math.max(snapshot, 0));
+        Path path = segmentPath(sequence);
+        active = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        // A crash mid-append leaves a torn record; drop it so new records follow the last good one
+        long valid = validLength(path);
+        if (valid < active.size()) {
+            logger.warn("Truncating torn tail of {} at byte {}", path, valid);
+            active.truncate(valid);
+            active.force(true);
+        }
+        active.position(valid);
+        syncDirectory();
+        activeSequence = sequence;
+        activeLength = valid;
+        return active;
+    }
+
+    private void roll() throws IOException {
+        activeSegment();
+        closeActive();
+        activeSequence++;
+        activeLength = 0;
+        active = FileChannel.open(segmentPath(activeSequence), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        syncDirectory();
+    }
+
+    private void closeActive() throws IOException {
+        if (active != null) {
+            active.close();
+            active = null;
+        }
+    }
+
+    private ResumeData replay(Path segment, boolean last, Map<Long, String> points, ResumeData metadata)
+            throws IOException {
+        try (SegmentReader in = new SegmentReader(segment, last)) {
+            byte[][] record;
+            while ((record = in.next()) != null) {
+                byte type = record[0][0];
+                String value = new String(record[1], StandardCharsets.UTF_8);
+                if (type == ADD) {
+                    points.put(PointNormalizer.dedupeKey(value), value);
+                } else if (type == REMOVE) {
+                    points.remove(PointNormalizer.dedupeKey(value));
+                } else if (type == METADATA) {
+                    metadata = objectMapper.readValue(record[1], ResumeData.class);
+                }
+            }
+        }
+        return metadata;
+    }
+
+    // Only called on the last segment, whose torn tail is what gets cut off
+    private static long validLength(Path segment) throws IOException {
+        try (SegmentReader in = new SegmentReader(segment, true)) {
+            while (in.next() != null) {
+                // Skip to the end of the last good record
+            }
+            return in.position;
+        }
+    }
+
+    /**
+     * Reads the records of one segment. A crash mid-append can only tear the tail of the last
+     * segment: a record running past the end of the file, ending exactly at it, or followed by
+     * nothing but zeros reads as the end there. Any other bad record fails the read.
+     */
+    private static class SegmentReader implements Closeable {
+        private final Path segment;
+        private final boolean last;
+        private final long size;
+        private final DataInputStream in;
+        // End of the last good record
+        long position;
+
+        SegmentReader(Path segment, boolean last) throws IOException {
+            this.segment = segment;
+            this.last = last;
+            this.size = Files.size(segment);
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment)));
+        }
+
+        // Returns {type, payload}, or null at the end of the segment or at a torn tail
+        byte[][] next() throws IOException {
+            long remaining = size - position;
+            if (remaining == 0) {
+                return null;
+            }
+            String problem;
+            boolean reachesEnd;
+            if (remaining < RECORD_OVERHEAD) {
+                problem = "record header cut off";
+                reachesEnd = true;
+            } else {
+                int length = in.readInt();
+                if (length < 0 || length > remaining - RECORD_OVERHEAD) {
+                    problem = "record length " + length + " runs past the end of the segment";
+                    reachesEnd = length > remaining - RECORD_OVERHEAD;
+                } else {
+                    byte type = in.readByte();
+                    byte[] payload = new byte[length];
+                    in.readFully(payload);
+                    int checksum = in.readInt();
+
+                    CRC32C crc = new CRC32C();
+                    crc.update(type);
+                    crc.update(payload);
+                    if ((int) crc.getValue() == checksum) {
+                        position += RECORD_OVERHEAD + length;
+                        return new byte[][]{{type}, payload};
+                    }
+                    problem = "checksum mismatch";
+                    reachesEnd = RECORD_OVERHEAD + length == remaining;
+                }
+            }
+            if (last && (reachesEnd || zeroFrom(position))) {
+                return null;
+            }
+            throw new IOException("Corrupt record in " + segment + " at byte " + position + ": " + problem);
+        }
+
+        private boolean zeroFrom(long offset) throws IOException {
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+                channel.position(offset);
+                while (channel.read(buffer) > 0) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        if (buffer.get() != 0) {
+                            return false;
+                        }
+                    }
+                    buffer.clear();
+                }
+                return true;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static void writeRecord(ByteArrayOutputStream out, byte type, byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(type);
+        crc.update(payload);
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES + 1).putInt(payload.length).put(type);
+        out.write(header.array(), 0, header.capacity());
+        out.write(payload, 0, payload.length);
+        out.write(ByteBuffer.allocate(Integer.BYTES).putInt((int) crc.getValue()).array(), 0, Integer.BYTES);
+    }
+
+    private static ResumeData metadataOf(ResumeData resumeData) {
+        ResumeData metadata = new ResumeData();
+        metadata.setId(resumeData.getId());
+        metadata.setFileName(resumeData.getFileName());
+        metadata.setUploadedAt(resumeData.getUploadedAt());
+        metadata.setMergedPoints(resumeData.getMergedPoints());
+        return metadata;
+    }
+
+    private List<Path> segmentsFrom(long sequence) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("segment-"))
+                    .filter(file -> sequenceOf(file) >= sequence)
+                    .sorted(Comparator.comparingLong(DatasetSegmentLog::sequenceOf))
+                    .toList();
+        }
+    }
+
+    private long latestSequence(String prefix, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(suffix))
+                    .mapToLong(name -> Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())))
+                    .max()
+                    .orElse(-1);
+        }
+    }
+
+    private static long sequenceOf(Path file) {
+        String name = file.getFileName().toString();
+        int start = name.indexOf('-') + 1;
+        int end = name.indexOf('.');
+        try {
+            return Long.parseLong(name.substring(start, end));
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private Path segmentPath(long sequence) {
+        return directory.resolve(String.format("segment-%016d.log", sequence));
+    }
+
+    private Path snapshotPath(long sequence) {
+        return directory.resolve(String.format("snapshot-%016d.rdat", sequence));
+    }
+
+    // Makes created, renamed and deleted entries durable; not every platform can open a directory
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Best effort
+        }
+    }
+}
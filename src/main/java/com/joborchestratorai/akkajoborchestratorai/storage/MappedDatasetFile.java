@@ -0,0 +1,278 @@
+package com.joborchestratorai.akkajoborchestratorai.storage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.joborchestratorai.akkajoborchestratorai.models.ResumeData;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary dataset file that is opened with {@link FileChannel#map} instead of being parsed.
+ * Points are decoded only when read, so opening a multi-GB dataset costs a few page faults.
+ * <pre>
+ *   header   magic "RDAT", version, point count, metadata length, table offset,
+ *            CRC32C of metadata + offset table, CRC32C of the point block, end of the point block  (48 bytes)
+ *   metadata ResumeData without its points, as UTF-8 JSON
+ *   points   per point: int byte length, UTF-8 bytes
+ *   table    per point: long offset of its length prefix, 8-byte aligned
+ * </pre>
+ * Only the header, metadata and table checksum are checked on open; the point block is
+ * checked by {@link #verify()}, which has to read every page.
+ */
+public class MappedDatasetFile {
+
+    public static final String EXTENSION = ".rdat";
+
+    private static final int MAGIC = 0x52444154; // "RDAT"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 48;
+    // Mapped in windows below 2 GB, a multiple of 8 so table entries never straddle two windows
+    private static final long WINDOW_SIZE = 1L << 30;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private final Path file;
+    private final MappedByteBuffer[] windows;
+    private final int pointCount;
+    private final long tableOffset;
+    private final long dataChecksum;
+    private final long dataStart;
+    private final long dataEnd;
+    private final ResumeData resumeData;
+
+    private MappedDatasetFile(Path file) throws IOException {
+        this.file = file;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException("Dataset file " + file + " is truncated");
+            }
+            int count = (int) ((size + WINDOW_SIZE - 1) / WINDOW_SIZE);
+            windows = new MappedByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long start = i * WINDOW_SIZE;
+                windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_SIZE, size - start));
+                windows[i].order(ByteOrder.BIG_ENDIAN);
+            }
+
+            ByteBuffer header = windows[0].duplicate();
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException(file + " is not a dataset file");
+            }
+            if (header.getInt(4) != VERSION) {
+                throw new IOException("Unsupported dataset file version " + header.getInt(4) + " in " + file);
+            }
+            pointCount = header.getInt(8);
+            int metadataLength = header.getInt(12);
+            tableOffset = header.getLong(16);
+            long indexChecksum = header.getLong(24);
+            dataChecksum = header.getLong(32);
+            dataStart = HEADER_SIZE + metadataLength;
+            dataEnd = header.getLong(40);
+            if (tableOffset + (long) pointCount * Long.BYTES != size || dataEnd < dataStart || dataEnd > tableOffset) {
+                throw new IOException("Dataset file " + file + " is truncated");
+            }
+
+            CRC32C crc = new CRC32C();
+            update(crc, HEADER_SIZE, metadataLength);
+            update(crc, tableOffset, (long) pointCount * Long.BYTES);
+            if (crc.getValue() != indexChecksum) {
+                throw new IOException("Checksum mismatch in " + file);
+            }
+
+            byte[] metadata = new byte[metadataLength];
+            read(HEADER_SIZE, metadata, 0, metadataLength);
+            resumeData = objectMapper.readValue(metadata, ResumeData.class);
+            resumeData.setResumePoints(new PointList());
+        }
+    }
+
+    public static MappedDatasetFile open(Path file) throws IOException {
+        return new MappedDatasetFile(file);
+    }
+
+    /**
+     * The dataset with a points list that reads straight from the mapping; it is read-only.
+     */
+    public ResumeData getResumeData() {
+        return resumeData;
+    }
+
+    public int size() {
+        return pointCount;
+    }
+
+    /**
+     * The point count of a dataset file, read from its header without mapping the file.
+     */
+    public static int readPointCount(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) > 0) {
+                // Keep reading until the header is complete or the file ends
+            }
+            if (header.hasRemaining()) {
+                throw new IOException("Dataset file " + file + " is truncated");
+            }
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException(file + " is not a dataset file");
+            }
+            if (header.getInt(4) != VERSION) {
+                throw new IOException("Unsupported dataset file version " + header.getInt(4) + " in " + file);
+            }
+            return header.getInt(8);
+        }
+    }
+
+    /**
+     * True for the points list of a mapped file, whose content lives in the page cache rather than on the heap.
+     */
+    public static boolean isMapped(List<String> points) {
+        return points instanceof PointList;
+    }
+
+    /**
+     * Checks the point block against its checksum, reading the whole file.
+     */
+    public void verify() throws IOException {
+        CRC32C crc = new CRC32C();
+        update(crc, dataStart, dataEnd - dataStart);
+        if (crc.getValue() != dataChecksum) {
+            throw new IOException("Checksum mismatch in the points of " + file);
+        }
+    }
+
+    /**
+     * Writes the dataset to a temp file next to {@code file} and renames it into place, so readers
+     * that still map the previous version keep a consistent view.
+     */
+    public static void write(Path file, ResumeData resumeData) throws IOException {
+        ResumeData metadata = new ResumeData();
+        metadata.setId(resumeData.getId());
+        metadata.setFileName(resumeData.getFileName());
+        metadata.setUploadedAt(resumeData.getUploadedAt());
+        metadata.setMergedPoints(resumeData.getMergedPoints());
+        byte[] metadataBytes = objectMapper.writeValueAsBytes(metadata);
+
+        List<String> points = resumeData.getResumePoints() != null ? resumeData.getResumePoints() : List.of();
+        long[] offsets = new long[points.size()];
+        CRC32C indexCrc = new CRC32C();
+        CRC32C dataCrc = new CRC32C();
+        indexCrc.update(metadataBytes);
+
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.position(HEADER_SIZE);
+            // Not closed separately: closing it would close the channel before the header is written
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+            out.write(metadataBytes);
+
+            long position = HEADER_SIZE + metadataBytes.length;
+            byte[] lengthPrefix = new byte[Integer.BYTES];
+            for (int i = 0; i < offsets.length; i++) {
+                byte[] bytes = points.get(i).getBytes(StandardCharsets.UTF_8);
+                ByteBuffer.wrap(lengthPrefix).putInt(bytes.length);
+                out.write(lengthPrefix);
+                out.write(bytes);
+                dataCrc.update(lengthPrefix);
+                dataCrc.update(bytes);
+                offsets[i] = position;
+                position += Integer.BYTES + bytes.length;
+            }
+
+            int padding = (int) ((Long.BYTES - position % Long.BYTES) % Long.BYTES);
+            out.write(new byte[padding]);
+            long tableOffset = position + padding;
+
+            byte[] entry = new byte[Long.BYTES];
+            for (long offset : offsets) {
+                ByteBuffer.wrap(entry).putLong(offset);
+                out.write(entry);
+                indexCrc.update(entry);
+            }
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(offsets.length).putInt(metadataBytes.length)
+                    .putLong(tableOffset).putLong(indexCrc.getValue()).putLong(dataCrc.getValue()).putLong(position);
+            header.flip();
+            channel.write(header, 0);
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private long offsetOf(int index) {
+        long position = tableOffset + (long) index * Long.BYTES;
+        return windows[(int) (position / WINDOW_SIZE)].getLong((int) (position % WINDOW_SIZE));
+    }
+
+    private int readInt(long position) {
+        byte[] bytes = new byte[Integer.BYTES];
+        read(position, bytes, 0, bytes.length);
+        return ByteBuffer.wrap(bytes).getInt();
+    }
+
+    // Copies bytes that may straddle two windows
+    private void read(long position, byte[] target, int targetOffset, int length) {
+        while (length > 0) {
+            ByteBuffer window = windows[(int) (position / WINDOW_SIZE)].duplicate();
+            int start = (int) (position % WINDOW_SIZE);
+            int chunk = Math.min(length, window.limit() - start);
+            window.position(start);
+            window.get(target, targetOffset, chunk);
+            position += chunk;
+            targetOffset += chunk;
+            length -= chunk;
+        }
+    }
+
+    private void update(CRC32C crc, long position, long length) {
+        while (length > 0) {
+            ByteBuffer window = windows[(int) (position / WINDOW_SIZE)].duplicate();
+            int start = (int) (position % WINDOW_SIZE);
+            int chunk = (int) Math.min(length, window.limit() - start);
+            window.position(start).limit(start + chunk);
+            crc.update(window);
+            position += chunk;
+            length -= chunk;
+        }
+    }
+
+    private class PointList extends AbstractList<String> implements RandomAccess {
+        @Override
+        public String get(int index) {
+            if (index < 0 || index >= pointCount) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + pointCount);
+            }
+            long offset = offsetOf(index);
+            byte[] bytes = new byte[readInt(offset)];
+            read(offset + Integer.BYTES, bytes, 0, bytes.length);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public int size() {
+            return pointCount;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.joborchestratorai.akkajoborchestratorai.storage;
+
+import com.joborchestratorai.akkajoborchestratorai.services.MetricsRegistry;
+import org.springframework.stereotype.Component;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Node-wide, interned store of resume point text. Every distinct point is held once, as
+ * UTF-8 bytes under an int id, however many datasets and searchers on the node contain it;
+ * the same bullets recur across the versions of one resume and across datasets.
+ * <p>
+ * Holders take a reference with {@link #intern} and give it back with {@link #release};
+ * a point is dropped when its last reference goes and its id is reused. An id must not be
+ * read after its holder released it.
+ * <p>
+ * Interning and releasing take the store's lock; reading a point does not, so searches on
+ * different shards never wait for each other or for an upload being interned.
+ * <p>
+ * One bean per node, handed to every searcher through the actors that create them.
+ */
+@Component
+public class PointStore {
+
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+
+    // Indexed by id; a null value marks a free id. Read without the lock: a holder only reads ids
+    // it interned, so the entry was written before the id reached it, and this volatile field
+    // hands a reader any array grown since
+    private volatile byte[][] values = new byte[1024][];
+    private int[] hashes = new int[1024];
+    private int[] refCounts = new int[1024];
+    private int nextId;
+    private int[] freeIds = new int[64];
+    private int freeCount;
+    // Open addressing with linear probing; a slot holds id + 1, or 0 when empty
+    private int[] table = new int[2048];
+    private int size;
+    private long bytes;
+
+    public PointStore() {
+        metrics.gauge("points.store.entries", this::size);
+        metrics.gauge("points.store.bytes", this::bytes);
+    }
+
+    /**
+     * Returns the id of {@code point}, adding it if it is not stored yet, and takes a reference to it.
+     */
+    public synchronized int intern(String point) {
+        byte[] encoded = point.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(encoded);
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != 0) {
+            int id = table[slot] - 1;
+            if (hashes[id] == hash && Arrays.equals(values[id], encoded)) {
+                refCounts[id]++;
+                metrics.increment("points.store.shared");
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        int id = allocate();
+        values[id] = encoded;
+        hashes[id] = hash;
+        refCounts[id] = 1;
+        table[slot] = id + 1;
+        size++;
+        bytes += encoded.length;
+        // Kept at most half full so probe runs stay short
+        if (size * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+        return id;
+    }
+
+    public String get(int id) {
+        return new String(encoded(id), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the point as its UTF-8 byte length followed by the bytes, without decoding it.
+     */
+    public void writeTo(int id, DataOutput out) throws IOException {
+        byte[] value = encoded(id);
+        out.writeInt(value.length);
+        out.write(value);
+    }
+
+    private byte[] encoded(int id) {
+        byte[][] current = values;
+        byte[] value = id >= 0 && id < current.length ? current[id] : null;
+        if (value == null) {
+            throw new IllegalArgumentException("No point stored under id " + id);
+        }
+        return value;
+    }
+
+    /**
+     * Gives back one reference taken by {@link #intern}.
+     */
+    public synchronized void release(int id) {
+        if (id < 0 || id >= nextId || values[id] == null) {
+            throw new IllegalArgumentException("No point stored under id " + id);
+        }
+        if (--refCounts[id] > 0) {
+            return;
+        }
+        removeFromTable(id);
+        bytes -= values[id].length;
+        values[id] = null;
+        size--;
+        if (freeCount == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+        }
+        freeIds[freeCount++] = id;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    private int allocate() {
+        if (freeCount > 0) {
+            return freeIds[--freeCount];
+        }
+        if (nextId == values.length) {
+            int capacity = values.length * 2;
+            values = Arrays.copyOf(values, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+            refCounts = Arrays.copyOf(refCounts, capacity);
+        }
+        return nextId++;
+    }
+
+    // Backward-shift deletion, so lookups never need tombstones
+    private void removeFromTable(int id) {
+        int mask = table.length - 1;
+        int slot = hashes[id] & mask;
+        while (table[slot] != id + 1) {
+            slot = (slot + 1) & mask;
+        }
+        int hole = slot;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (table[next] == 0) {
+                break;
+            }
+            int home = hashes[table[next] - 1] & mask;
+            // Move the entry back unless its home slot lies cyclically in (hole, next]
+            boolean homeBetween = hole <= next ? hole < home && home <= next : hole < home || home <= next;
+            if (!homeBetween) {
+                table[hole] = table[next];
+                hole = next;
+            }
+        }
+        table[hole] = 0;
+    }
+
+    private void rehash(int capacity) {
+        int[] rehashed = new int[capacity];
+        int mask = capacity - 1;
+        for (int entry : table) {
+            if (entry != 0) {
+                int slot = hashes[entry - 1] & mask;
+                while (rehashed[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                rehashed[slot] = entry;
+            }
+        }
+        table = rehashed;
+    }
+
+    private static int hash(byte[] value) {
+        int h = Arrays.hashCode(value) * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,187 @@
+package com.joborchestratorai.akkajoborchestratorai.storage;
+
+import com.joborchestratorai.akkajoborchestratorai.services.MetricsRegistry;
+import com.joborchestratorai.akkajoborchestratorai.services.SingleFlight;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Thread-safe LRU cache bounded by the estimated size of its values rather than their number.
+ * Concurrent misses for the same key share one load, so a hot dataset is read from disk once
+ * no matter how many callers ask for it at the same moment. An optional admission test keeps
+ * values out that are not worth holding, which still share the load but are not kept. A load
+ * that overlaps an {@link #invalidate} of its key is returned but not kept either, since it may
+ * have read the state from before the change.
+ */
+public class WeightedLruCache<K, V> {
+
+    @FunctionalInterface
+    public interface Loader<V> {
+        V load() throws IOException;
+    }
+
+    private static class Entry<V> {
+        final V value;
+        final long weight;
+
+        Entry(V value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    private final long maxWeight;
+    private final ToLongFunction<V> weigher;
+    private final Predicate<V> admission;
+    private final String metricPrefix;
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final SingleFlight<K, V> loads;
+    // Bumped by invalidate; one entry per key ever invalidated, which for datasets is a few per dataset id
+    private final Map<K, Long> versions = new HashMap<>();
+    private long weight;
+
+    public WeightedLruCache(String name, long maxWeight, ToLongFunction<V> weigher) {
+        this(name, maxWeight, weigher, value -> true);
+    }
+
+    public WeightedLruCache(String name, long maxWeight, ToLongFunction<V> weigher, Predicate<V> admission) {
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.admission = admission;
+        this.metricPrefix = "cache." + name;
+        this.loads = new SingleFlight<>(metricPrefix + ".loads");
+        metrics.gauge(metricPrefix + ".entries", this::size);
+        metrics.gauge(metricPrefix + ".weight-bytes", this::weight);
+        metrics.gauge(metricPrefix + ".hit-rate-percent", this::hitRatePercent);
+    }
+
+    /**
+     * Returns the cached value, or loads and caches it. Returns null, without caching, when the loader does.
+     */
+    public V get(K key, Loader<V> loader) throws IOException {
+        V cached = getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        metrics.increment(metricPrefix + ".misses");
+
+        try {
+            return loads.executeBlocking(key, () -> {
+                // Another caller may have finished loading between our miss and joining the flight
+                V loaded = peek(key);
+                if (loaded != null) {
+                    return loaded;
+                }
+                long version = versionOf(key);
+                long startedAt = System.nanoTime();
+                try {
+                    loaded = loader.load();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                metrics.timer(metricPrefix + ".load").record(System.nanoTime() - startedAt);
+                if (loaded != null) {
+                    put(key, loaded, version);
+                }
+                return loaded;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public V getIfPresent(K key) {
+        V value = peek(key);
+        if (value != null) {
+            metrics.increment(metricPrefix + ".hits");
+        }
+        return value;
+    }
+
+    private V peek(K key) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            return entry != null ? entry.value : null;
+        }
+    }
+
+    public void put(K key, V value) {
+        put(key, value, -1);
+    }
+
+    // With a version other than -1 the value is only kept if the key was not invalidated since it was read
+    private void put(K key, V value, long version) {
+        long valueWeight = weigher.applyAsLong(value);
+        synchronized (entries) {
+            if (version >= 0 && version != versions.getOrDefault(key, 0L)) {
+                metrics.increment(metricPrefix + ".stale-loads");
+                return;
+            }
+            Entry<V> previous = entries.remove(key);
+            if (previous != null) {
+                weight -= previous.weight;
+            }
+            if (!admission.test(value)) {
+                metrics.increment(metricPrefix + ".not-admitted");
+                return;
+            }
+            // Something larger than the whole cache would only evict everything else and then itself
+            if (valueWeight > maxWeight) {
+                metrics.increment(metricPrefix + ".rejected");
+                return;
+            }
+            entries.put(key, new Entry<>(value, valueWeight));
+            weight += valueWeight;
+
+            Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+            while (weight > maxWeight && eldest.hasNext()) {
+                Map.Entry<K, Entry<V>> evicted = eldest.next();
+                weight -= evicted.getValue().weight;
+                eldest.remove();
+                metrics.increment(metricPrefix + ".evictions");
+            }
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (entries) {
+            versions.merge(key, 1L, Long::sum);
+            Entry<V> previous = entries.remove(key);
+            if (previous != null) {
+                weight -= previous.weight;
+            }
+        }
+    }
+
+    private long versionOf(K key) {
+        synchronized (entries) {
+            return versions.getOrDefault(key, 0L);
+        }
+    }
+
+    private int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private long weight() {
+        synchronized (entries) {
+            return weight;
+        }
+    }
+
+    private long hitRatePercent() {
+        long hits = metrics.counter(metricPrefix + ".hits").sum();
+        long lookups = hits + metrics.counter(metricPrefix + ".misses").sum();
+        return lookups == 0 ? 0 : hits * 100 / lookups;
+    }
+}
@@ -1,6 +1,7 @@
 package com.joborchestratorai.akkajoborchestratorai.testing;
 
 import com.joborchestratorai.akkajoborchestratorai.services.ClusteredResumeSearchService;
+import com.joborchestratorai.akkajoborchestratorai.models.IngestionStatus;
 import com.joborchestratorai.akkajoborchestratorai.models.SearchResult;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
@@ -21,9 +22,9 @@ public class ClusterTestRunner {
             // Test 1: Index multiple datasets
             System.out.println("=== Testing Dataset Indexing ===");
 
-            CompletableFuture<Void> indexing1 = searchService.indexDatasetFile("tech-resumes", "/path/to/tech-resumes.xlsx");
-            CompletableFuture<Void> indexing2 = searchService.indexDatasetFile("marketing-resumes", "/path/to/marketing-resumes.xlsx");
-            CompletableFuture<Void> indexing3 = searchService.indexDatasetFile("finance-resumes", "/path/to/finance-resumes.xlsx");
+            CompletableFuture<IngestionStatus> indexing1 = searchService.indexDatasetFile("tech-resumes", "/path/to/tech-resumes.xlsx");
+            CompletableFuture<IngestionStatus> indexing2 = searchService.indexDatasetFile("marketing-resumes", "/path/to/marketing-resumes.xlsx");
+            CompletableFuture<IngestionStatus> indexing3 = searchService.indexDatasetFile("finance-resumes", "/path/to/finance-resumes.xlsx");
 
             CompletableFuture.allOf(indexing1, indexing2, indexing3).get();
             System.out.println("All datasets indexed successfully!");
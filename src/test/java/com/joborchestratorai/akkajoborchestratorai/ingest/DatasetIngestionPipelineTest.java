@@ -0,0 +1,149 @@
+package com.joborchestratorai.akkajoborchestratorai.ingest;
+
+import akka.actor.typed.ActorSystem;
+import akka.actor.typed.javadsl.Behaviors;
+import akka.stream.Materializer;
+import com.joborchestratorai.akkajoborchestratorai.models.IngestionStatus;
+import com.joborchestratorai.akkajoborchestratorai.search.ResumePointSearcher;
+import com.joborchestratorai.akkajoborchestratorai.search.SearchMode;
+import com.joborchestratorai.akkajoborchestratorai.search.SearchSettings;
+import com.joborchestratorai.akkajoborchestratorai.services.ClusteredStorageService;
+import com.joborchestratorai.akkajoborchestratorai.storage.PointStore;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatasetIngestionPipelineTest {
+
+    private static final SearchSettings SEARCH_SETTINGS = new SearchSettings(SearchMode.LEXICAL, 1.2f, 0.75f,
+            SearchMode.LEXICAL, 50, "hashing", 64, 8, 64, 32);
+
+    // Two points per chunk, so every upload spans several chunks
+    private static final IngestSettings SETTINGS = new IngestSettings(2, 2, 2, Duration.ofSeconds(10),
+            Duration.ofSeconds(30), List.of(0), false, 1, 0.8, 1);
+
+    @TempDir
+    Path directory;
+
+    private ActorSystem<Void> system;
+    private ExecutorService executor;
+    private ClusteredStorageService storageService;
+    private ResumePointSearcher searcher;
+
+    @BeforeEach
+    void setUp() {
+        system = ActorSystem.create(Behaviors.empty(), "ingestion-test");
+        executor = Executors.newFixedThreadPool(4);
+        storageService = new ClusteredStorageService();
+        ReflectionTestUtils.setField(storageService, "storagePath", directory.resolve("datasets").toString());
+        searcher = new ResumePointSearcher(SEARCH_SETTINGS, null, new PointStore());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        searcher.release();
+        storageService.close();
+        executor.shutdownNow();
+        system.terminate();
+        system.getWhenTerminated().toCompletableFuture().get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void firstUploadDropsDuplicatesAndStoresTheRest() throws Exception {
+        IngestionStatus status = ingest("v1.xlsx", List.of(
+                "Designed a Kafka pipeline for payment events",
+                "Tuned PostgreSQL queries to cut report times",
+                "designed a kafka pipeline for payment events",
+                "Coached the team on code review practices"));
+
+        assertEquals(IngestionStatus.COMPLETED, status.getState());
+        assertEquals(4, status.getPointsRead());
+        assertEquals(3, status.getPointsIngested());
+        assertEquals(1, status.getDuplicatesDropped());
+        assertEquals(3, searcher.size());
+        assertEquals(new HashSet<>(searcher.getPoints()),
+                new HashSet<>(storageService.getDatasetResumeData("dataset").getResumePoints()));
+    }
+
+    @Test
+    void reuploadOnlyAddsAndRemovesWhatChanged() throws Exception {
+        ingest("v1.xlsx", List.of(
+                "Designed a Kafka pipeline for payment events",
+                "Tuned PostgreSQL queries to cut report times",
+                "Coached the team on code review practices"));
+
+        IngestionStatus status = ingest("v2.xlsx", List.of(
+                "Tuned PostgreSQL queries to cut report times",
+                "Coached the team on code review practices",
+                "Built a Terraform module for Kubernetes clusters"));
+
+        List<String> expected = List.of(
+                "Tuned PostgreSQL queries to cut report times",
+                "Coached the team on code review practices",
+                "Built a Terraform module for Kubernetes clusters");
+        assertEquals(3, status.getPointsIngested());
+        assertEquals(new HashSet<>(expected), new HashSet<>(searcher.getPoints()));
+        assertEquals(new HashSet<>(expected),
+                new HashSet<>(storageService.getDatasetResumeData("dataset").getResumePoints()));
+        assertEquals(3, storageService.getDatasetPointCount("dataset"));
+    }
+
+    @Test
+    void nearDuplicatesOfAnUnchangedPointAreMergedIntoIt() throws Exception {
+        ingest("v1.xlsx", List.of("Designed the Kafka pipeline for payment events at scale"));
+
+        ingest("v2.xlsx", List.of(
+                "Designed the Kafka pipeline for payment events at scale",
+                "Built a Terraform module for Kubernetes clusters",
+                "Designed a Kafka pipeline for payment events at scale"));
+
+        Map<String, List<String>> merged = storageService.getDatasetResumeData("dataset").getMergedPoints();
+        assertEquals(List.of("Designed a Kafka pipeline for payment events at scale"),
+                merged.get("Designed the Kafka pipeline for payment events at scale"));
+        assertEquals(2, searcher.size());
+    }
+
+    // Indexes into the test's searcher directly; the pipeline calls these one at a time, as the shard does
+    private IngestionStatus ingest(String fileName, List<String> points) throws Exception {
+        Path file = workbook(fileName, points);
+        DatasetIngestionPipeline pipeline = new DatasetIngestionPipeline(SETTINGS, Materializer.matFromSystem(system),
+                executor, executor, executor, "akka.actor.default-dispatcher", storageService);
+        return pipeline.run("dataset", file,
+                        chunk -> CompletableFuture.completedFuture(searcher.addPoints(chunk)),
+                        keys -> CompletableFuture.completedFuture(searcher.retainOnly(keys)),
+                        keys -> CompletableFuture.completedFuture(searcher.getPoints(keys)),
+                        progress -> { })
+                .toCompletableFuture().get(30, TimeUnit.SECONDS);
+    }
+
+    private Path workbook(String fileName, List<String> points) throws IOException {
+        Path file = directory.resolve(fileName);
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); OutputStream out = Files.newOutputStream(file)) {
+            Sheet sheet = workbook.createSheet("Points");
+            for (int i = 0; i < points.size(); i++) {
+                sheet.createRow(i).createCell(0).setCellValue(points.get(i));
+            }
+            workbook.write(out);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,61 @@
+package com.joborchestratorai.akkajoborchestratorai.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NearDuplicateDetectorTest {
+
+    @Test
+    void dropsExactDuplicatesIgnoringCase() {
+        NearDuplicateDetector detector = new NearDuplicateDetector(1.0);
+
+        List<String> unique = detector.addAll(List.of(
+                "Designed a Kafka pipeline for payment events",
+                "designed a kafka pipeline for payment events",
+                "Tuned PostgreSQL queries to cut report times"));
+
+        assertEquals(List.of("Designed a Kafka pipeline for payment events",
+                "Tuned PostgreSQL queries to cut report times"), unique);
+        assertEquals(1, detector.getDuplicates());
+        // Exact duplicates are not near-duplicates, so nothing is merged
+        assertTrue(detector.getMergedPoints(unique).isEmpty());
+    }
+
+    @Test
+    void mergesNearDuplicatesIntoTheFirstPointSeen() {
+        NearDuplicateDetector detector = new NearDuplicateDetector(0.8);
+
+        List<String> unique = detector.addAll(List.of(
+                "Designed the Kafka pipeline for payment events at scale",
+                "Tuned PostgreSQL queries to cut report times",
+                "Designed a Kafka pipeline for payment events at scale"));
+
+        assertEquals(List.of("Designed the Kafka pipeline for payment events at scale",
+                "Tuned PostgreSQL queries to cut report times"), unique);
+        assertEquals(1, detector.getDuplicates());
+        assertEquals(Set.of(PointNormalizer.dedupeKey("Designed the Kafka pipeline for payment events at scale")),
+                detector.getMergedCanonicalKeys());
+        assertEquals(Map.of("Designed the Kafka pipeline for payment events at scale",
+                        List.of("Designed a Kafka pipeline for payment events at scale")),
+                detector.getMergedPoints(unique));
+    }
+
+    @Test
+    void keepsPointsThatOnlyShareATemplate() {
+        NearDuplicateDetector detector = new NearDuplicateDetector(0.8);
+        List<String> points = new ArrayList<>();
+        for (String client : List.of("Acme Bank", "Globex Insurance", "Initech Logistics", "Umbrella Pharma")) {
+            points.add("Delivered the data warehouse migration for " + client + " on schedule");
+        }
+        points.add("Led the GDPR data retention project");
+
+        assertEquals(points, detector.addAll(points));
+        assertEquals(0, detector.getDuplicates());
+    }
+}
@@ -0,0 +1,171 @@
+package com.joborchestratorai.akkajoborchestratorai.search;
+
+import com.joborchestratorai.akkajoborchestratorai.models.ResumeData;
+import com.joborchestratorai.akkajoborchestratorai.models.SearchResult;
+import com.joborchestratorai.akkajoborchestratorai.storage.DatasetSegmentLog;
+import com.joborchestratorai.akkajoborchestratorai.storage.PointStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResumePointSearcherTest {
+
+    // Lexical search with the local hashing embedder, so nothing calls OpenAI
+    private static final SearchSettings SETTINGS = new SearchSettings(SearchMode.LEXICAL, 1.2f, 0.75f,
+            SearchMode.LEXICAL, 50, "hashing", 64, 8, 64, 32);
+
+    private static final List<String> POINTS = List.of(
+            "Designed a Kafka pipeline for payment events",
+            "Migrated the monolith to Spring Boot microservices",
+            "Tuned PostgreSQL queries to cut report times by 60%",
+            "Coached the team on code review practices");
+
+    private final PointStore store = new PointStore();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoversFromASnapshotPlusTheLogWrittenAfterIt() throws IOException {
+        DatasetSegmentLog log = new DatasetSegmentLog(directory.resolve("dataset.log"), Runnable::run);
+        log.seed(new ResumeData("dataset", "v1.xlsx", POINTS));
+        ResumePointSearcher original = new ResumePointSearcher(SETTINGS, null, store);
+        original.index(POINTS);
+        Path snapshot = directory.resolve("dataset.idx");
+        original.writeSnapshot(snapshot, log.checkpoint());
+
+        log.append(new ResumeData("dataset", "v2.xlsx", List.of()),
+                List.of("Built a Terraform module for Kubernetes clusters"), List.of(POINTS.get(0)));
+
+        ResumePointSearcher recovered = new ResumePointSearcher(SETTINGS, null, store);
+        try {
+            long position = recovered.readSnapshot(snapshot);
+            DatasetSegmentLog.Changes changes = log.changesSince(position);
+            recovered.removePoints(changes.removed);
+            recovered.addPoints(changes.added);
+
+            assertEquals(new HashSet<>(log.read().getResumePoints()), new HashSet<>(recovered.getPoints()));
+            assertEquals("Built a Terraform module for Kubernetes clusters", topHit(recovered, "terraform kubernetes"));
+            assertNotEquals(POINTS.get(0), topHit(recovered, "kafka payment events"));
+            assertEquals(POINTS.get(2), topHit(recovered, "postgresql report queries"));
+        } finally {
+            original.release();
+            recovered.release();
+        }
+    }
+
+    @Test
+    void corruptSnapshotLeavesTheSearcherUntouched() throws IOException {
+        ResumePointSearcher original = new ResumePointSearcher(SETTINGS, null, store);
+        original.index(POINTS);
+        Path snapshot = directory.resolve("dataset.idx");
+        original.writeSnapshot(snapshot, 7);
+        byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[bytes.length / 2] ^= 0x01;
+        Files.write(snapshot, bytes);
+
+        ResumePointSearcher other = new ResumePointSearcher(SETTINGS, null, store);
+        try {
+            other.index(List.of("Wrote the onboarding guide"));
+            assertThrows(IOException.class, () -> other.readSnapshot(snapshot));
+            assertEquals(List.of("Wrote the onboarding guide"), other.getPoints());
+        } finally {
+            original.release();
+            other.release();
+        }
+    }
+
+    @Test
+    void reconcileOnlyChangesWhatDiffers() {
+        ResumePointSearcher searcher = new ResumePointSearcher(SETTINGS, null, store);
+        try {
+            searcher.index(POINTS);
+            List<String> wanted = List.of(POINTS.get(1), POINTS.get(3), "Led the GDPR data retention project");
+
+            searcher.reconcile(wanted);
+
+            assertEquals(new HashSet<>(wanted), new HashSet<>(searcher.getPoints()));
+            assertEquals(3, searcher.size());
+            assertEquals("Led the GDPR data retention project", topHit(searcher, "gdpr retention"));
+        } finally {
+            searcher.release();
+        }
+    }
+
+    @Test
+    void repeatedPointsAreIndexedOnceAndCanBeRemoved() {
+        ResumePointSearcher searcher = new ResumePointSearcher(SETTINGS, null, store);
+        try {
+            searcher.index(List.of(POINTS.get(0), POINTS.get(0), "Led the GDPR data retention project"));
+            assertEquals(2, searcher.size());
+
+            searcher.reconcile(List.of("Led the GDPR data retention project"));
+
+            assertEquals(1, searcher.size());
+            assertFalse(searcher.contains(POINTS.get(0)));
+            assertNotEquals(POINTS.get(0), topHit(searcher, "kafka payment events"));
+        } finally {
+            searcher.release();
+        }
+    }
+
+    @Test
+    void vectorSearchEmbedsPointsAddedAfterTheIndexWasBuilt() {
+        SearchSettings vectors = new SearchSettings(SearchMode.VECTOR, 1.2f, 0.75f,
+                SearchMode.LEXICAL, 50, "hashing", 64, 8, 64, 32);
+        ResumePointSearcher searcher = new ResumePointSearcher(vectors, null, store);
+        try {
+            searcher.index(POINTS);
+            assertTrue(searcher.searchChangesIndex());
+            assertEquals(POINTS.get(2), vectorHit(searcher, "postgresql report queries"));
+            assertFalse(searcher.searchChangesIndex());
+
+            searcher.addPoints(List.of("Built a Terraform module for Kubernetes clusters"));
+            searcher.removePoints(List.of(POINTS.get(2)));
+
+            assertTrue(searcher.searchChangesIndex());
+            assertEquals("Built a Terraform module for Kubernetes clusters",
+                    vectorHit(searcher, "terraform kubernetes clusters"));
+            assertNotEquals(POINTS.get(2), vectorHit(searcher, "postgresql report queries"));
+        } finally {
+            searcher.release();
+        }
+    }
+
+    @Test
+    void embeddingsMadeBeforeARebuildAreStale() {
+        SearchSettings vectors = new SearchSettings(SearchMode.VECTOR, 1.2f, 0.75f,
+                SearchMode.LEXICAL, 50, "hashing", 64, 8, 64, 32);
+        ResumePointSearcher searcher = new ResumePointSearcher(vectors, null, store);
+        try {
+            searcher.index(POINTS);
+            ResumePointSearcher.SearchEmbeddings embeddings =
+                    searcher.embedForSearch("kafka payment events").toCompletableFuture().join();
+
+            searcher.index(List.of("Led the GDPR data retention project"));
+
+            assertTrue(searcher.isStale(embeddings));
+            assertThrows(IllegalStateException.class, () -> searcher.searchAsync("kafka payment events", 1, 0));
+        } finally {
+            searcher.release();
+        }
+    }
+
+    private static String vectorHit(ResumePointSearcher searcher, String query) {
+        ResumePointSearcher.SearchEmbeddings embeddings = searcher.embedForSearch(query).toCompletableFuture().join();
+        List<SearchResult> results = searcher.searchAsync(query, embeddings, 1, 0).toCompletableFuture().join();
+        return results.isEmpty() ? null : results.get(0).getContent();
+    }
+
+    private static String topHit(ResumePointSearcher searcher, String query) {
+        List<SearchResult> results = searcher.searchAsync(query, 1, 0).toCompletableFuture().join();
+        return results.isEmpty() ? null : results.get(0).getContent();
+    }
+}
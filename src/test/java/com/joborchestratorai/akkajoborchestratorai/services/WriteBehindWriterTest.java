@@ -0,0 +1,97 @@
+package com.joborchestratorai.akkajoborchestratorai.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.joborchestratorai.akkajoborchestratorai.models.ResumeData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteBehindWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @TempDir
+    Path directory;
+
+    private LocalStorageService storageService;
+
+    @BeforeEach
+    void setUp() {
+        storageService = new LocalStorageService();
+        ReflectionTestUtils.setField(storageService, "storagePath", directory.toString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        storageService.close();
+    }
+
+    @Test
+    void acknowledgedWritesAreStoredAndVisible() throws Exception {
+        WriteBehindWriter writer = new WriteBehindWriter(storageService, Duration.ofMillis(5), 8);
+        writer.start();
+        try {
+            List<CompletableFuture<Path>> results = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                results.add(writer.submit(new ResumeData("resume-" + i, "v" + i + ".xlsx", List.of("Point " + i))));
+            }
+
+            for (int i = 0; i < results.size(); i++) {
+                Path file = results.get(i).get(10, TimeUnit.SECONDS);
+                assertEquals(directory.resolve("resume-" + i + ".json"), file);
+                assertEquals(List.of("Point " + i),
+                        objectMapper.readValue(file.toFile(), ResumeData.class).getResumePoints());
+            }
+            assertTrue(storageService.hasResumeData());
+        } finally {
+            writer.close();
+        }
+    }
+
+    @Test
+    void writesStillInTheJournalAreWrittenOutOnStart() throws Exception {
+        WriteBehindWriter writer = new WriteBehindWriter(storageService, Duration.ofMillis(5), 8);
+        writer.start();
+        Path file = writer.submit(new ResumeData("resume", "v1.xlsx", List.of("Kept across restarts")))
+                .get(10, TimeUnit.SECONDS);
+        writer.close();
+        // As if the copy out of the journal had never reached the disk
+        Files.delete(file);
+
+        WriteBehindWriter restarted = new WriteBehindWriter(storageService, Duration.ofMillis(5), 8);
+        restarted.start();
+        try {
+            assertEquals(List.of("Kept across restarts"),
+                    objectMapper.readValue(file.toFile(), ResumeData.class).getResumePoints());
+        } finally {
+            restarted.close();
+        }
+    }
+
+    @Test
+    void submitAfterCloseFails() throws Exception {
+        WriteBehindWriter writer = new WriteBehindWriter(storageService, Duration.ofMillis(5), 8);
+        writer.start();
+        writer.close();
+
+        CompletableFuture<Path> result = writer.submit(new ResumeData("resume", "v1.xlsx", List.of("Too late")));
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> result.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+        assertFalse(Files.exists(directory.resolve("resume.json")));
+    }
+}
@@ -0,0 +1,148 @@
+package com.joborchestratorai.akkajoborchestratorai.storage;
+
+import com.joborchestratorai.akkajoborchestratorai.models.ResumeData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatasetSegmentLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysAppendsAfterReopening() throws IOException {
+        Path logDirectory = logDirectory();
+        DatasetSegmentLog log = new DatasetSegmentLog(logDirectory, Runnable::run);
+        log.seed(dataset("v1.xlsx", List.of("Built a billing service", "Ran the on-call rotation")));
+        log.append(dataset("v2.xlsx", List.of()), List.of("Cut build times in half"), List.of("Ran the on-call rotation"));
+        log.append(dataset("v3.xlsx", List.of()), List.of("Hired three engineers"), List.of());
+
+        ResumeData read = new DatasetSegmentLog(logDirectory, Runnable::run).read();
+
+        assertEquals(Set.of("Built a billing service", "Cut build times in half", "Hired three engineers"),
+                new HashSet<>(read.getResumePoints()));
+        assertEquals("v3.xlsx", read.getFileName());
+        assertEquals(3, new DatasetSegmentLog(logDirectory, Runnable::run).pointCount());
+    }
+
+    @Test
+    void compactionFoldsSegmentsIntoASnapshot() throws IOException {
+        DatasetSegmentLog log = new DatasetSegmentLog(logDirectory(), Runnable::run);
+        log.append(dataset("v1.xlsx", List.of()), List.of("a point", "b point", "c point"), List.of());
+        log.checkpoint();
+        log.append(dataset("v2.xlsx", List.of()), List.of("d point"), List.of("a point"));
+        Set<String> before = new HashSet<>(log.read().getResumePoints());
+
+        log.compact();
+
+        ResumeData after = log.read();
+        assertEquals(before, new HashSet<>(after.getResumePoints()));
+        assertEquals("v2.xlsx", after.getFileName());
+        // Nothing appended since, so the dataset comes straight from the mapped snapshot
+        assertTrue(MappedDatasetFile.isMapped(after.getResumePoints()));
+        assertEquals(before.size(), log.pointCount());
+        try (Stream<Path> files = Files.list(logDirectory())) {
+            assertEquals(1, files.filter(file -> file.getFileName().toString().endsWith(".rdat")).count());
+        }
+
+        log.append(dataset("v3.xlsx", List.of()), List.of("e point"), List.of());
+        assertTrue(log.read().getResumePoints().contains("e point"));
+    }
+
+    @Test
+    void changesSinceReturnsTheNetChangesAfterACheckpoint() throws IOException {
+        DatasetSegmentLog log = new DatasetSegmentLog(logDirectory(), Runnable::run);
+        log.seed(dataset("v1.xlsx", List.of("kept", "dropped")));
+        long position = log.checkpoint();
+
+        log.append(dataset("v2.xlsx", List.of()), List.of("added", "added then removed"), List.of("dropped"));
+        log.append(dataset("v3.xlsx", List.of()), List.of(), List.of("added then removed"));
+
+        DatasetSegmentLog.Changes changes = log.changesSince(position);
+        assertEquals(List.of("added"), changes.added);
+        assertEquals(Set.of("dropped", "added then removed"), new HashSet<>(changes.removed));
+
+        // Folded into a newer snapshot, the changes can no longer be told apart
+        log.compact();
+        assertNull(log.changesSince(position));
+    }
+
+    @Test
+    void tornTailOfTheLastSegmentIsCutOff() throws IOException {
+        Path logDirectory = logDirectory();
+        DatasetSegmentLog log = new DatasetSegmentLog(logDirectory, Runnable::run);
+        log.append(dataset("v1.xlsx", List.of()), List.of("first"), List.of());
+        // A record header promising more bytes than were written, as a crash mid-append leaves it
+        Files.write(lastSegment(logDirectory), new byte[]{0, 0, 1, 0, 1, 'x'}, StandardOpenOption.APPEND);
+
+        DatasetSegmentLog reopened = new DatasetSegmentLog(logDirectory, Runnable::run);
+        assertEquals(List.of("first"), reopened.read().getResumePoints());
+        assertEquals(1, reopened.pointCount());
+
+        reopened.append(dataset("v2.xlsx", List.of()), List.of("second"), List.of());
+        assertEquals(List.of("first", "second"), new DatasetSegmentLog(logDirectory, Runnable::run).read().getResumePoints());
+    }
+
+    @Test
+    void corruptRecordInASealedSegmentFailsTheRead() throws IOException {
+        Path logDirectory = logDirectory();
+        DatasetSegmentLog log = new DatasetSegmentLog(logDirectory, Runnable::run);
+        log.append(dataset("v1.xlsx", List.of()), List.of("first point", "second point"), List.of());
+        Path sealed = lastSegment(logDirectory);
+        log.checkpoint();
+        log.append(dataset("v2.xlsx", List.of()), List.of("third point"), List.of());
+
+        byte[] bytes = Files.readAllBytes(sealed);
+        // Inside the payload of the first record
+        bytes[Integer.BYTES + 1 + 2] ^= 0x01;
+        Files.write(sealed, bytes);
+
+        assertThrows(IOException.class, () -> new DatasetSegmentLog(logDirectory, Runnable::run).read());
+    }
+
+    @Test
+    void deleteRemovesTheLog() throws IOException {
+        DatasetSegmentLog log = new DatasetSegmentLog(logDirectory(), Runnable::run);
+        log.append(dataset("v1.xlsx", List.of()), List.of("first"), List.of());
+
+        log.delete();
+
+        assertFalse(log.exists());
+        assertNull(log.read());
+        assertEquals(0, log.pointCount());
+        log.append(dataset("v2.xlsx", List.of()), List.of("again"), List.of());
+        assertEquals(List.of("again"), log.read().getResumePoints());
+    }
+
+    private Path logDirectory() {
+        return directory.resolve("dataset" + DatasetSegmentLog.DIRECTORY_SUFFIX);
+    }
+
+    private static Path lastSegment(Path logDirectory) throws IOException {
+        try (Stream<Path> files = Files.list(logDirectory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("segment-"))
+                    .max((a, b) -> Long.compare(sequence(a), sequence(b)))
+                    .orElseThrow();
+        }
+    }
+
+    private static long sequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(name.indexOf('-') + 1, name.lastIndexOf('.')));
+    }
+
+    private static ResumeData dataset(String fileName, List<String> points) {
+        return new ResumeData("dataset", fileName, points);
+    }
+}
@@ -0,0 +1,121 @@
+package com.joborchestratorai.akkajoborchestratorai.storage;
+
+import com.joborchestratorai.akkajoborchestratorai.models.ResumeData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedDatasetFileTest {
+
+    private static final List<String> POINTS = List.of(
+            "Led the migration of 40 services to Kubernetes",
+            "Réduit les coûts d'infrastructure de 30 %",
+            "",
+            "Mentored four junior engineers");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripsPointsAndMetadata() throws IOException {
+        Path file = directory.resolve("dataset" + MappedDatasetFile.EXTENSION);
+        ResumeData written = new ResumeData("dataset", "resumes.xlsx", POINTS);
+        written.setMergedPoints(Map.of(POINTS.get(0), List.of("Led the migration of forty services to Kubernetes")));
+        MappedDatasetFile.write(file, written);
+
+        MappedDatasetFile dataset = MappedDatasetFile.open(file);
+        ResumeData read = dataset.getResumeData();
+
+        assertEquals(POINTS.size(), dataset.size());
+        assertEquals(POINTS, List.copyOf(read.getResumePoints()));
+        assertTrue(MappedDatasetFile.isMapped(read.getResumePoints()));
+        assertEquals("dataset", read.getId());
+        assertEquals("resumes.xlsx", read.getFileName());
+        assertEquals(written.getUploadedAt(), read.getUploadedAt());
+        assertEquals(written.getMergedPoints(), read.getMergedPoints());
+        assertEquals(POINTS.size(), MappedDatasetFile.readPointCount(file));
+        dataset.verify();
+    }
+
+    @Test
+    void emptyDatasetRoundTrips() throws IOException {
+        Path file = directory.resolve("empty" + MappedDatasetFile.EXTENSION);
+        MappedDatasetFile.write(file, new ResumeData("empty", "empty.xlsx", List.of()));
+
+        MappedDatasetFile dataset = MappedDatasetFile.open(file);
+
+        assertEquals(0, dataset.size());
+        assertTrue(dataset.getResumeData().getResumePoints().isEmpty());
+        dataset.verify();
+    }
+
+    @Test
+    void corruptOffsetTableFailsOpen() throws IOException {
+        Path file = writeDataset();
+        byte[] bytes = Files.readAllBytes(file);
+        // The file ends with the offset table
+        bytes[bytes.length - 3] ^= 0x10;
+        Files.write(file, bytes);
+
+        assertThrows(IOException.class, () -> MappedDatasetFile.open(file));
+    }
+
+    @Test
+    void corruptPointFailsVerifyOnly() throws IOException {
+        Path file = writeDataset();
+        byte[] bytes = Files.readAllBytes(file);
+        int offset = indexOf(bytes, "Mentored".getBytes(StandardCharsets.UTF_8));
+        bytes[offset] = 'm';
+        Files.write(file, bytes);
+
+        // Opening only checks the header, metadata and table, so it still succeeds
+        MappedDatasetFile dataset = MappedDatasetFile.open(file);
+        assertThrows(IOException.class, dataset::verify);
+    }
+
+    @Test
+    void truncatedFileFailsOpen() throws IOException {
+        Path file = writeDataset();
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - Long.BYTES));
+
+        assertThrows(IOException.class, () -> MappedDatasetFile.open(file));
+    }
+
+    @Test
+    void otherFilesAreRejected() throws IOException {
+        Path file = directory.resolve("notes" + MappedDatasetFile.EXTENSION);
+        Files.writeString(file, "x".repeat(100));
+
+        assertThrows(IOException.class, () -> MappedDatasetFile.open(file));
+        assertThrows(IOException.class, () -> MappedDatasetFile.readPointCount(file));
+    }
+
+    private Path writeDataset() throws IOException {
+        Path file = directory.resolve("dataset" + MappedDatasetFile.EXTENSION);
+        MappedDatasetFile.write(file, new ResumeData("dataset", "resumes.xlsx", POINTS));
+        return file;
+    }
+
+    private static int indexOf(byte[] bytes, byte[] part) {
+        outer:
+        for (int i = 0; i <= bytes.length - part.length; i++) {
+            for (int j = 0; j < part.length; j++) {
+                if (bytes[i + j] != part[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        throw new AssertionError("Not found in file");
+    }
+}
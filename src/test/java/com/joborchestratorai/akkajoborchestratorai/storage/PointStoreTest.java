@@ -0,0 +1,103 @@
+package com.joborchestratorai.akkajoborchestratorai.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PointStoreTest {
+
+    @Test
+    void internSharesOneIdAndCountsReferences() {
+        PointStore store = new PointStore();
+        int first = store.intern("Led a team of five engineers");
+        int second = store.intern("Led a team of five engineers");
+
+        assertEquals(first, second);
+        assertEquals(1, store.size());
+
+        store.release(first);
+        assertEquals("Led a team of five engineers", store.get(first));
+
+        store.release(second);
+        assertEquals(0, store.size());
+        assertEquals(0, store.bytes());
+        assertThrows(IllegalArgumentException.class, () -> store.get(first));
+        assertThrows(IllegalArgumentException.class, () -> store.release(first));
+    }
+
+    @Test
+    void releasedIdIsReusedForNewText() {
+        PointStore store = new PointStore();
+        int kept = store.intern("Built a billing service in Java");
+        int released = store.intern("Migrated CI to GitHub Actions");
+        store.release(released);
+
+        int reused = store.intern("Cut p99 latency by 40%");
+
+        assertEquals(released, reused);
+        assertEquals("Cut p99 latency by 40%", store.get(reused));
+        assertEquals("Built a billing service in Java", store.get(kept));
+        // The old text is gone from the table, so interning it again takes a fresh id
+        assertNotEquals(reused, store.intern("Migrated CI to GitHub Actions"));
+    }
+
+    @Test
+    void removalKeepsEveryOtherPointReachable() {
+        // Enough points for long probe runs and several rehashes, so releases shift entries back
+        // across runs and around the end of the table
+        PointStore store = new PointStore();
+        Map<String, Integer> ids = new HashMap<>();
+        for (int i = 0; i < 5000; i++) {
+            String point = "Resume point number " + i;
+            ids.put(point, store.intern(point));
+        }
+
+        Random random = new Random(42);
+        List<String> points = new ArrayList<>(ids.keySet());
+        Collections.shuffle(points, random);
+        List<String> released = points.subList(0, 2500);
+        for (String point : released) {
+            store.release(ids.get(point));
+        }
+
+        assertEquals(2500, store.size());
+        for (String point : points.subList(2500, points.size())) {
+            int id = ids.get(point);
+            assertEquals(point, store.get(id));
+            // Found again through the table rather than added a second time
+            assertEquals(id, store.intern(point));
+            store.release(id);
+        }
+        assertEquals(2500, store.size());
+
+        Set<Integer> freed = new HashSet<>();
+        for (String point : released) {
+            freed.add(ids.get(point));
+        }
+        for (String point : released) {
+            assertTrue(freed.contains(store.intern(point + " again")));
+        }
+        assertEquals(5000, store.size());
+    }
+
+    @Test
+    void writeToCopiesTheEncodedText() throws IOException {
+        PointStore store = new PointStore();
+        int id = store.intern("Shipped the résumé parser");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        store.writeTo(id, new DataOutputStream(bytes));
+
+        byte[] expected = "Shipped the résumé parser".getBytes(StandardCharsets.UTF_8);
+        byte[] written = bytes.toByteArray();
+        assertEquals(Integer.BYTES + expected.length, written.length);
+        assertEquals(expected.length, (written[0] << 24) | (written[1] << 16) | (written[2] << 8) | written[3]);
+        assertArrayEquals(expected, Arrays.copyOfRange(written, Integer.BYTES, written.length));
+    }
+}
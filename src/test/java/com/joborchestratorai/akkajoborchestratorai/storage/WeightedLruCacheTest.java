@@ -0,0 +1,59 @@
+package com.joborchestratorai.akkajoborchestratorai.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeightedLruCacheTest {
+
+    @Test
+    void evictsTheLeastRecentlyUsedOnceOverWeight() {
+        WeightedLruCache<String, String> cache = new WeightedLruCache<>("test", 10, String::length);
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        cache.getIfPresent("a");
+
+        cache.put("c", "cccc");
+
+        assertEquals("aaaa", cache.getIfPresent("a"));
+        assertNull(cache.getIfPresent("b"));
+        assertEquals("cccc", cache.getIfPresent("c"));
+    }
+
+    @Test
+    void valuesThatAreTooLargeOrNotAdmittedAreNotKept() throws IOException {
+        WeightedLruCache<String, String> cache = new WeightedLruCache<>("test", 10, String::length,
+                value -> !value.startsWith("heap"));
+
+        assertEquals("heap copy", cache.get("a", () -> "heap copy"));
+        cache.put("b", "more than ten");
+
+        assertNull(cache.getIfPresent("a"));
+        assertNull(cache.getIfPresent("b"));
+    }
+
+    @Test
+    void loadOverlappingAnInvalidateIsReturnedButNotKept() throws IOException {
+        WeightedLruCache<String, String> cache = new WeightedLruCache<>("test", 100, String::length);
+        AtomicInteger loads = new AtomicInteger();
+
+        // A write lands while the first load is reading the old state
+        String stale = cache.get("dataset", () -> {
+            loads.incrementAndGet();
+            cache.invalidate("dataset");
+            return "old";
+        });
+
+        assertEquals("old", stale);
+        assertNull(cache.getIfPresent("dataset"));
+        assertEquals("new", cache.get("dataset", () -> {
+            loads.incrementAndGet();
+            return "new";
+        }));
+        assertEquals("new", cache.get("dataset", () -> "unused"));
+        assertEquals(2, loads.get());
+    }
+}